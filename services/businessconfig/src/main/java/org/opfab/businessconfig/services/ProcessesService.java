@@ -25,6 +25,7 @@ import org.opfab.springtools.error.model.ApiErrorException;
 import org.opfab.utilities.PathUtils;
 import org.opfab.utilities.StringUtils;
 import org.opfab.utilities.eventbus.EventBus;
+import org.opfab.utilities.eventbus.EventKeys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.core.io.Resource;
@@ -437,6 +438,7 @@ public class ProcessesService implements ResourceLoaderAware {
         completeCache.put(process.id(), process.version(), process);
 
         pushProcessChangeInEventBus();
+        pushProcessChangeInEventBus(process.id());
 
         // retrieve newly loaded process from cache
         return fetch(process.id(), process.version());
@@ -480,6 +482,7 @@ public class ProcessesService implements ResourceLoaderAware {
         log.debug("removed process:{} from filesystem", id);
         removeFromCache(id);
         pushProcessChangeInEventBus();
+        pushProcessChangeInEventBus(id);
     }
 
     /**
@@ -511,6 +514,7 @@ public class ProcessesService implements ResourceLoaderAware {
             PathUtils.delete(processRootPath);
             log.debug("removed process:{} from filesystem", id);
             removeFromCache(id);
+            pushProcessChangeInEventBus(id);
         } else {// case: multiple versions => to delete only the given version
             Path processVersionPath = processRootPath.resolve(version);
             if (process.version().equals(version)) {// case: version to delete is the default one => root config
@@ -541,6 +545,7 @@ public class ProcessesService implements ResourceLoaderAware {
             log.debug("removed process:{} with version:{} from filesystem", id, version);
             completeCache.remove(id, version);
             pushProcessChangeInEventBus();
+            pushProcessChangeInEventBus(id);
         }
     }
 
@@ -570,6 +575,7 @@ public class ProcessesService implements ResourceLoaderAware {
             new ProcessGroups(new ArrayList<>());
         }
         pushProcessChangeInEventBus();
+        pushProcessChangeInEventBus("");
     }
 
     /**
@@ -616,6 +622,14 @@ public class ProcessesService implements ResourceLoaderAware {
         eventBus.sendEvent(PROCESS_EVENT_KEY, "BUSINESS_CONFIG_CHANGE");
     }
 
+    /**
+     * Notifies the services caching the processes (cards-publication) of the process that has changed so they only
+     * invalidate this process
+     */
+    private void pushProcessChangeInEventBus(String processId) {
+        eventBus.sendEvent(EventKeys.PROCESS_CHANGE, processId);
+    }
+
     /**
      * Updates or creates realtimescreens file from a file uploaded from POST
      * /businessconfig/realtimescreens
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2021, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -14,6 +14,7 @@ package org.opfab.cards.consultation.configuration.json;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.opfab.springtools.configuration.mongo.ContinuationPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 
@@ -46,6 +47,8 @@ public class PageImplSerializer extends StdSerializer<Page> {
         gen.writeNumberField("numberOfElements", page.getNumberOfElements());
         gen.writeNumberField("size", page.getSize());
         gen.writeNumberField("number", page.getNumber());
+        if (page instanceof ContinuationPage<?> continuationPage)
+            gen.writeStringField("nextPageToken", continuationPage.getNextPageToken());
         gen.writeEndObject();
     }
 
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -11,11 +11,15 @@
 package org.opfab.cards.consultation.configuration.webflux;
 
 import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.opfab.cards.consultation.model.ArchivedCard;
 import org.opfab.cards.consultation.model.ArchivedCardWithChildCards;
 import org.opfab.cards.consultation.model.CardsFilter;
 import org.opfab.cards.consultation.repositories.ArchivedCardRepository;
+import org.opfab.cards.consultation.services.CardExportFormatter;
 import org.opfab.springtools.configuration.oauth.OpFabJwtAuthenticationToken;
 import org.opfab.users.model.CurrentUserWithPerimeters;
 import org.springframework.context.annotation.Bean;
@@ -26,6 +30,7 @@ import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 
 import static org.springframework.web.reactive.function.BodyInserters.fromValue;
+import static org.springframework.web.reactive.function.server.ServerResponse.badRequest;
 import static org.springframework.web.reactive.function.server.ServerResponse.notFound;
 import static org.springframework.web.reactive.function.server.ServerResponse.ok;
 import static reactor.util.function.Tuples.of;
@@ -34,9 +39,13 @@ import static reactor.util.function.Tuples.of;
 public class ArchivedCardRoutesConfig implements UserExtractor {
 
     private final ArchivedCardRepository archivedCardRepository;
+    private final CardExportFormatter cardExportFormatter;
 
     
-    public ArchivedCardRoutesConfig(ArchivedCardRepository archivedCardRepository) { this.archivedCardRepository = archivedCardRepository; }
+    public ArchivedCardRoutesConfig(ArchivedCardRepository archivedCardRepository, ObjectMapper objectMapper) {
+        this.archivedCardRepository = archivedCardRepository;
+        this.cardExportFormatter = new CardExportFormatter(objectMapper);
+    }
 
     /**
      * Archived cards route configuration
@@ -47,13 +56,35 @@ public class ArchivedCardRoutesConfig implements UserExtractor {
         return RouterFunctions
                 .route(RequestPredicates.GET("/archives/{id}"),archivedCardGetRoute())
                 .andRoute(RequestPredicates.OPTIONS("/archives/**"),archivedCardOptionRoute())
-                .andRoute(RequestPredicates.POST("/archives"),archivedCardPostRoute());
+                .andRoute(RequestPredicates.POST("/archives"),archivedCardPostRoute())
+                .andRoute(RequestPredicates.POST("/archives/export"),archivedCardExportRoute());
     }
 
     private HandlerFunction<ServerResponse> archivedCardPostRoute() {
         return request -> extractFilterOnPost(request).flatMap(params -> archivedCardRepository.findWithUserAndFilter(params)
                 .flatMap(archivedCards-> ok().contentType(MediaType.APPLICATION_JSON)
-                        .body(fromValue(archivedCards))));
+                        .body(fromValue(archivedCards))))
+                .onErrorResume(IllegalArgumentException.class, e -> badRequest().build());
+    }
+
+    /**
+     * Streams all the archived cards matching the filter (page and size are ignored) as NDJSON or CSV
+     * (query parameter "format", NDJSON by default)
+     */
+    private HandlerFunction<ServerResponse> archivedCardExportRoute() {
+        return request -> {
+            CardExportFormatter.Format format;
+            try {
+                format = CardExportFormatter.Format
+                        .valueOf(request.queryParam("format").orElse("ndjson").toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return badRequest().build();
+            }
+            return extractFilterOnPost(request).flatMap(params -> ok()
+                    .contentType(MediaType.parseMediaType(format.getMediaType()))
+                    .body(cardExportFormatter.format(archivedCardRepository.exportWithUserAndFilter(params), format,
+                            archivedCardRepository.getExportedFields(params.getT2())), String.class));
+        };
     }
 
     private Mono<Tuple2<CurrentUserWithPerimeters, CardsFilter>> extractFilterOnPost(ServerRequest request){
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -29,6 +29,7 @@ import reactor.util.function.Tuple2;
 import java.util.List;
 
 import static org.springframework.web.reactive.function.BodyInserters.fromValue;
+import static org.springframework.web.reactive.function.server.ServerResponse.badRequest;
 import static org.springframework.web.reactive.function.server.ServerResponse.notFound;
 import static org.springframework.web.reactive.function.server.ServerResponse.ok;
 import static reactor.util.function.Tuples.of;
@@ -94,7 +95,8 @@ public class CardRoutesConfig implements UserExtractor {
     private HandlerFunction<ServerResponse> queryCardPostRoute() {
         return request -> extractFilterOnPost(request).flatMap(params -> cardRepository.findWithUserAndFilter(params)
                 .flatMap(cards-> ok().contentType(MediaType.APPLICATION_JSON)
-                        .body(fromValue(cards))));
+                        .body(fromValue(cards))))
+                .onErrorResume(IllegalArgumentException.class, e -> badRequest().build());
     }
 
     private Mono<Tuple2<CurrentUserWithPerimeters, CardsFilter>> extractFilterOnPost(ServerRequest request){
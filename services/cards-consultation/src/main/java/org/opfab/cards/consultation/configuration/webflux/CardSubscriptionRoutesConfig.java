@@ -117,6 +117,7 @@ public class CardSubscriptionRoutesConfig implements UserExtractor  {
                             .rangeStart(parseAsInstant(request.queryParam("rangeStart").orElse(null)))
                             .rangeEnd(parseAsInstant(request.queryParam("rangeEnd").orElse(null)))
                             .updatedFrom(parseAsInstant(request.queryParam("updatedFrom").orElse(null)))
+                            .afterSequence(request.queryParam("afterSequence").map(Long::valueOf).orElse(null))
                             .test(request.queryParam("test").orElse(FALSE).equals(TRUE))
                             .notification(request.queryParam("notification").orElse(FALSE).equals(TRUE))
                             .build();
@@ -155,6 +156,7 @@ public class CardSubscriptionRoutesConfig implements UserExtractor  {
                             .rangeStart(t.getT2().rangeStart())
                             .rangeEnd(t.getT2().rangeEnd())
                             .updatedFrom(t.getT2().updatedFrom())
+                            .afterSequence(t.getT2().afterSequence())
                             .test(false)
                             .notification(true);
                     return builder.build();
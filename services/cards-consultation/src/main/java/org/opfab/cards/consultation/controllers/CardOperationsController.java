@@ -12,24 +12,33 @@
 package org.opfab.cards.consultation.controllers;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.BufferRecycler;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.opfab.cards.consultation.configuration.CustomScreenDataFields;
 import org.opfab.cards.consultation.model.CardOperation;
 import org.opfab.cards.consultation.model.CardSubscriptionDto;
 import org.opfab.cards.consultation.repositories.CardRepository;
+import org.opfab.cards.consultation.services.CardSnapshotCache;
 import org.opfab.cards.consultation.services.CardSubscription;
 import org.opfab.cards.consultation.services.CardSubscriptionService;
+import org.opfab.cards.consultation.services.PerimeterSignature;
 import org.opfab.springtools.error.model.ApiError;
 import org.opfab.springtools.error.model.ApiErrorException;
 import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
 import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * <p>Handles cards access at the rest level. Depends on {@link CardSubscriptionService} for business logic</p>
@@ -44,18 +53,26 @@ public class CardOperationsController {
 
     private final CardRepository cardRepository;
 
+    private final CardSnapshotCache cardSnapshotCache;
+
     private final ObjectMapper mapper;
 
     private final String version = getClass().getPackage().getImplementationVersion();
 
+    // Number of cards already published sent in a single message, cards are sent one by one if less than 2
+    @Value("${operatorfabric.subscription.oldCardsBatchSize:1}")
+    private int oldCardsBatchSize;
+
     
     public CardOperationsController(CardSubscriptionService cardSubscriptionService, ObjectMapper mapper,
-                                    CardRepository cardRepository, CustomScreenDataFields customScreenDataFields) {
+                                    CardRepository cardRepository, CustomScreenDataFields customScreenDataFields,
+                                    CardSnapshotCache cardSnapshotCache) {
         this.cardSubscriptionService = cardSubscriptionService;
         this.mapper = mapper;
         this.mapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
         this.cardRepository = cardRepository;
         this.customScreenDataFields = customScreenDataFields;
+        this.cardSnapshotCache = cardSnapshotCache;
     }
 
 
@@ -102,12 +119,12 @@ public class CardOperationsController {
                         .findSubscription(p.getCurrentUserWithPerimeters(), p.getClientId());
                 if (oldSubscription != null) {
                     log.debug("Found subscription: {}", oldSubscription.getId());
-                    oldSubscription.publishOldCardsIntoSubscription(fetchOldCards(oldSubscription, p.getUpdatedFrom(),
+                    oldSubscription.publishOldCardsIntoSubscription(fetchOldCards(oldSubscription, p.getUpdatedFrom(), p.getAfterSequence(),
                             p.getRangeStart(), p.getRangeEnd(), customScreenDataFields));
                 } else {
                     log.debug("No subscription found for {}#{}", p.getCurrentUserWithPerimeters().getUserData().getLogin(), p.getClientId());
                 }
-                return new CardSubscriptionDto(p.getRangeStart(),p.getRangeEnd(),p.getUpdatedFrom());
+                return new CardSubscriptionDto(p.getRangeStart(),p.getRangeEnd(),p.getUpdatedFrom(),p.getAfterSequence());
             } catch (IllegalArgumentException e) {
                 log.error("Error searching for old subscription", e);
                 throw new ApiErrorException(
@@ -123,10 +140,10 @@ public class CardOperationsController {
      * @param subscription
      * @return
      */
-    private Flux<String> fetchOldCards(CardSubscription subscription, Instant updatedFrom, Instant start, Instant end,
-                                       CustomScreenDataFields customScreenDataFields)  {
+    private Flux<String> fetchOldCards(CardSubscription subscription, Instant updatedFrom, Long afterSequence,
+                                       Instant start, Instant end, CustomScreenDataFields customScreenDataFields)  {
         
-        return fetchOldCards0(updatedFrom, start, end, subscription.getCurrentUserWithPerimeters(),
+        return fetchOldCards0(updatedFrom, afterSequence, start, end, subscription.getCurrentUserWithPerimeters(),
                 customScreenDataFields);
     }
 
@@ -134,23 +151,75 @@ public class CardOperationsController {
         Instant start = parameters.getRangeStart();
         Instant end = parameters.getRangeEnd();
         Instant updatedFrom = parameters.getUpdatedFrom();
-        return fetchOldCards0(updatedFrom, start, end, parameters.getCurrentUserWithPerimeters(), customScreenDataFields);
+        return fetchOldCards0(updatedFrom, parameters.getAfterSequence(), start, end,
+                parameters.getCurrentUserWithPerimeters(), customScreenDataFields);
     }
 
-    private Flux<String> fetchOldCards0(Instant updatedFrom, Instant start, Instant end,
+    private Flux<String> fetchOldCards0(Instant updatedFrom, Long afterSequence, Instant start, Instant end,
                                         CurrentUserWithPerimeters currentUserWithPerimeters,
                                         CustomScreenDataFields customScreenDataFields) {
         Flux<CardOperation> oldCards;
 
         log.debug("Fetch card with startDate = {} and endDate = {} and updatedFrom = {}",start,end,updatedFrom);
-        if ((end != null && start != null) || (updatedFrom != null)) {
+        if (afterSequence == null && updatedFrom == null && end != null && start != null
+                && cardSnapshotCache.isEnabled()) {
+            return serializedInBatches(fetchOldCardsInRangeUsingSnapshot(start, end, currentUserWithPerimeters,
+                    customScreenDataFields));
+        }
+        if (afterSequence != null) {
+            log.debug("Fetch card operations after sequence {}", afterSequence);
+            oldCards = cardRepository.getCardOperationsAfterSequence(afterSequence, start, end,
+                    currentUserWithPerimeters, customScreenDataFields);
+        } else if ((end != null && start != null) || (updatedFrom != null)) {
             oldCards = cardRepository.getCardOperations(updatedFrom, start, end, currentUserWithPerimeters,
                     customScreenDataFields);
         } else {
             log.info("Not loading published cards as no range or no publish date is provided");
             oldCards = Flux.empty();
         }
-        return oldCards.map(this::writeValueAsString);
+        return inBatches(oldCards);
+    }
+
+    /**
+     * Sends the cards in range from the snapshot of the user perimeter if any, otherwise loads them from the database
+     * and keeps them as a snapshot
+     */
+    private Flux<String> fetchOldCardsInRangeUsingSnapshot(Instant start, Instant end,
+                                                           CurrentUserWithPerimeters currentUserWithPerimeters,
+                                                           CustomScreenDataFields customScreenDataFields) {
+        CardSnapshotCache.Key key = new CardSnapshotCache.Key(PerimeterSignature.of(currentUserWithPerimeters),
+                start, end);
+        List<String> snapshot = cardSnapshotCache.get(key);
+        if (snapshot != null) {
+            log.debug("Send {} cards from snapshot", snapshot.size());
+            return Flux.fromIterable(snapshot);
+        }
+        return Flux.defer(() -> {
+            CardSnapshotCache.Load load = cardSnapshotCache.startLoad(key, currentUserWithPerimeters);
+            return cardRepository.getCardOperations(null, start, end, currentUserWithPerimeters, customScreenDataFields)
+                    .mapNotNull(cardOperation -> {
+                        String cardOperationAsString = writeValueAsString(cardOperation);
+                        if (cardOperationAsString != null)
+                            load.add(cardOperation.card() != null ? cardOperation.card().getId() : null,
+                                    cardOperationAsString);
+                        return cardOperationAsString;
+                    })
+                    .doOnComplete(() -> cardSnapshotCache.completeLoad(load))
+                    .doOnError(error -> cardSnapshotCache.abort(load))
+                    .doOnCancel(() -> cardSnapshotCache.abort(load));
+        });
+    }
+
+    private Flux<String> inBatches(Flux<CardOperation> cardOperations) {
+        if (oldCardsBatchSize > 1)
+            return cardOperations.buffer(oldCardsBatchSize).mapNotNull(this::toJsonArray);
+        return cardOperations.mapNotNull(this::writeValueAsString);
+    }
+
+    private Flux<String> serializedInBatches(Flux<String> cardOperations) {
+        if (oldCardsBatchSize > 1)
+            return cardOperations.buffer(oldCardsBatchSize).mapNotNull(this::toRawJsonArray);
+        return cardOperations;
     }
 
     public Mono<String> deleteSubscription(Mono<CardOperationsGetParameters> parameters) {
@@ -177,6 +246,48 @@ public class CardOperationsController {
     }
 
 
+    /**
+     * Serializes a batch of card operations as a single JSON array, streamed by the Jackson generator into the
+     * buffers recycled by the mapper. If the batch cannot be serialized, the card operations are serialized one by one
+     * to leave out only the ones in error.
+     */
+    private String toJsonArray(List<CardOperation> cardOperations) {
+        try {
+            return mapper.writeValueAsString(cardOperations);
+        } catch (JsonProcessingException e) {
+            log.error("Unable to linearize a batch of {} card operations to Json, linearize them one by one",
+                    cardOperations.size(), e);
+            return toRawJsonArray(cardOperations.stream().map(this::writeValueAsString).filter(Objects::nonNull)
+                    .toList());
+        }
+    }
+
+    /**
+     * Writes a batch of serialized card operations as a single JSON array with the Jackson generator, into the
+     * buffers recycled by the mapper
+     *
+     * @return the JSON array or null if the batch is empty
+     */
+    private String toRawJsonArray(List<String> cardOperations) {
+        if (cardOperations.isEmpty())
+            return null;
+        BufferRecycler bufferRecycler = mapper.getFactory()._getBufferRecycler();
+        try (SegmentedStringWriter writer = new SegmentedStringWriter(bufferRecycler)) {
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+                generator.writeStartArray();
+                for (String cardOperation : cardOperations)
+                    generator.writeRawValue(cardOperation);
+                generator.writeEndArray();
+            }
+            return writer.getAndClear();
+        } catch (IOException e) {
+            log.error("Unable to write a batch of {} card operations to Json", cardOperations.size(), e);
+            return null;
+        } finally {
+            bufferRecycler.releaseToPool();
+        }
+    }
+
     /**
      * Converts an object to a JSON string. If conversion problems arise, logs and returns "null" string
      *
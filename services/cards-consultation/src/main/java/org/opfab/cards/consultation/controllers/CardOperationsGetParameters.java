@@ -44,6 +44,10 @@ public class CardOperationsGetParameters {
     private Instant rangeStart;
     private Instant rangeEnd;
     private Instant updatedFrom;
+    /**
+     * If set, only the cards modified and deleted after this sequence number are sent, updatedFrom is then ignored
+     */
+    private Long afterSequence;
     /**
      * Filter only cards for which this user is a recipient
      * */
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -9,6 +9,7 @@
 
 package org.opfab.cards.consultation.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -20,6 +21,7 @@ import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @Builder
 @Document(collection = "archivedCards")
@@ -66,6 +68,12 @@ public record ArchivedCard(
         @JsonProperty("rRule") // if we don't use this annotation, the field will be serialized as "rrule"
         @JsonInclude(JsonInclude.Include.NON_EMPTY) RRule rRule,
 
-        List<CardActionEnum> actions) {
+        List<CardActionEnum> actions,
+
+        // Lower case copies of the fields filtered in the archives screen, written by cards-publication
+        @JsonIgnore Map<String, String> normalized,
+
+        // True for the last archived version of a card, maintained by cards-publication
+        @JsonIgnore Boolean latestVersion) {
 
 }
@@ -21,6 +21,7 @@ import org.springframework.validation.annotation.Validated;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -51,6 +52,8 @@ public class Card {
 
     private Instant lastUpdate;
 
+    private Long sequence;
+
     private Instant lttd;
     private Instant startDate;
 
@@ -132,4 +135,8 @@ public class Card {
     @JsonInclude(JsonInclude.Include.NON_EMPTY)
     private List<CardActionEnum> actions;
 
+    // Lower case copies of the fields filtered in the monitoring screens, written by cards-publication
+    @JsonIgnore
+    private Map<String, String> normalized;
+
 }
@@ -1,4 +1,4 @@
-/* Copyright (c) 2022-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2022-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -16,11 +16,13 @@ import java.util.List;
 
 @Builder
 public record CardsFilter(BigDecimal page, BigDecimal size, Boolean adminMode, Boolean includeChildCards,
-        Boolean latestUpdateOnly, List<FilterModel> filters, List<String> selectedFields) {
+        Boolean latestUpdateOnly, List<FilterModel> filters, List<String> selectedFields, CountModeEnum countMode,
+        String continuationToken) {
 
     public CardsFilter {
         adminMode = adminMode != null && adminMode;
         includeChildCards = includeChildCards != null && includeChildCards;
         latestUpdateOnly = latestUpdateOnly != null && latestUpdateOnly;
+        countMode = countMode != null ? countMode : CountModeEnum.EXACT;
     }
 }
@@ -0,0 +1,23 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.model;
+
+/**
+ * <p>How the total number of cards is computed for a paged card search:</p>
+ * <ul>
+ *     <li>EXACT: the cards of the page and the total number of matching cards are computed by the same request</li>
+ *     <li>HAS_NEXT_PAGE: only tells if there is a next page, the total number of cards is a lower bound
+ *     (cards up to the requested page plus one if there is a next page). Use it for very large archives.</li>
+ * </ul>
+ */
+public enum CountModeEnum {
+    EXACT,
+    HAS_NEXT_PAGE
+}
@@ -10,6 +10,7 @@
 
 package org.opfab.cards.consultation.repositories;
 
+import org.bson.Document;
 import org.opfab.cards.consultation.model.ArchivedCard;
 import org.opfab.cards.consultation.model.Card;
 import org.opfab.cards.consultation.model.CardsFilter;
@@ -20,8 +21,12 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 
+import java.util.List;
+
 public interface ArchivedCardCustomRepository extends UserUtilitiesCommonToCardRepository<ArchivedCard> {
 
     Flux<ArchivedCard> findByParentCard(ArchivedCard parent);
     Mono<Page<Card>> findWithUserAndFilter(Tuple2<CurrentUserWithPerimeters, CardsFilter> filter);
+    Flux<Document> exportWithUserAndFilter(Tuple2<CurrentUserWithPerimeters, CardsFilter> filter);
+    List<String> getExportedFields(CardsFilter filter);
 }
@@ -10,11 +10,14 @@
 package org.opfab.cards.consultation.repositories;
 
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
 import org.opfab.cards.consultation.model.*;
 import org.opfab.cards.consultation.model.ArchivedCard;
+import org.opfab.springtools.configuration.mongo.ArchivePartitions;
 import org.opfab.springtools.configuration.mongo.PaginationUtils;
 import org.opfab.users.model.CurrentUserWithPerimeters;
 import org.opfab.users.model.PermissionEnum;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.*;
@@ -24,6 +27,13 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 
@@ -48,24 +58,78 @@ public class ArchivedCardCustomRepositoryImpl implements ArchivedCardCustomRepos
     public static final String ADMIN_MODE = "adminMode";
     public static final String COUNT = "count";
     public static final int DEFAULT_PAGE_SIZE = 10;
-    private static final String ARCHIVED_CARDS_COLLECTION = "archivedCards";
+    private static final int EXPORT_CURSOR_BATCH_SIZE = 500;
+    private static final Duration COLLECTION_NAMES_REFRESH_PERIOD = Duration.ofSeconds(60);
+
+    private static final List<String> LIGHT_CARD_FIELDS = List.of("uid",
+            "publisher",
+            "processVersion",
+            PROCESS_FIELD,
+            PROCESS_INSTANCE_ID_FIELD,
+            "state",
+            "titleTranslated",
+            "summaryTranslated",
+            PUBLISH_DATE_FIELD,
+            START_DATE_FIELD,
+            END_DATE_FIELD,
+            "severity",
+            "publisherType",
+            "representative",
+            "representativeType",
+            "entityRecipients");
 
     private final ReactiveMongoTemplate template;
+    private final ArchivePartitions partitions;
+    private final Mono<List<String>> collectionNames;
 
-    public ArchivedCardCustomRepositoryImpl(ReactiveMongoTemplate template) {
+    public ArchivedCardCustomRepositoryImpl(ReactiveMongoTemplate template,
+            @Value("${operatorfabric.archives.partitionByMonth:false}") boolean partitionByMonth) {
         this.template = template;
+        this.partitions = new ArchivePartitions(partitionByMonth);
+        this.collectionNames = template.getCollectionNames().collectList().cache(COLLECTION_NAMES_REFRESH_PERIOD);
+    }
+
+    /**
+     * Collections which may hold archived cards published between the given dates (null for no limit), the most
+     * recent partitions first. The collection names are read again periodically, the partition of the current month
+     * is always searched so the cards archived since the beginning of the month are found at once.
+     */
+    Mono<List<String>> getCollections(Instant publishDateFrom, Instant publishDateTo) {
+        if (!partitions.isPartitionByMonth())
+            return Mono.just(List.of(ArchivePartitions.ARCHIVED_CARDS));
+        return collectionNames.map(collections -> {
+            Set<String> existingCollections = new HashSet<>(collections);
+            existingCollections.add(partitions.collectionFor(Instant.now()));
+            return partitions.collectionsBetween(existingCollections, publishDateFrom, publishDateTo);
+        });
+    }
+
+    private Mono<List<String>> getCollections(CardsFilter filter) {
+        return getCollections(getPublishDateParam(filter, PUBLISH_DATE_FROM_PARAM),
+                getPublishDateParam(filter, PUBLISH_DATE_TO_PARAM));
     }
 
     public Mono<ArchivedCard> findByIdWithUser(String id, CurrentUserWithPerimeters currentUserWithPerimeters) {
-        return findByIdWithUser(template, id, currentUserWithPerimeters, ArchivedCard.class);
+        if (!partitions.isPartitionByMonth())
+            return findByIdWithUser(template, id, currentUserWithPerimeters, ArchivedCard.class);
+        List<Criteria> criteria = computeCriteriaToFindCardByIdWithUser(id, currentUserWithPerimeters);
+        Query query = new Query(new Criteria().andOperator(criteria.toArray(new Criteria[criteria.size()])));
+        return getCollections(null, null).flatMap(collections -> Flux.fromIterable(collections)
+                .concatMap(collection -> template.findOne(query, ArchivedCard.class, collection))
+                .next());
     }
 
     public Flux<ArchivedCard> findByParentCardId(String parentId) {
-        return findByParentCardId(template, parentId, ArchivedCard.class);
+        return findInAllCollections(new Query(where(PARENT_CARD_ID_FIELD).is(parentId)));
     }
 
     public Flux<ArchivedCard> findByInitialParentCardUid(String initialParentCardUid) {
-        return findByInitialParentCardUid(template, initialParentCardUid, ArchivedCard.class);
+        return findInAllCollections(new Query(where("initialParentCardUid").is(initialParentCardUid)));
+    }
+
+    private Flux<ArchivedCard> findInAllCollections(Query query) {
+        return getCollections(null, null).flatMapMany(collections -> Flux.fromIterable(collections)
+                .concatMap(collection -> template.find(query, ArchivedCard.class, collection)));
     }
 
     public Flux<ArchivedCard> findByParentCard(ArchivedCard parentCard) {
@@ -80,55 +144,63 @@ public class ArchivedCardCustomRepositoryImpl implements ArchivedCardCustomRepos
         Pageable pageableRequest = PaginationUtils.createPageable(
                 queryFilter.page() != null ? queryFilter.page().intValue() : null,
                 queryFilter.size() != null ? queryFilter.size().intValue() : null);
-        String[] fields = { "uid",
-                "publisher",
-                "processVersion",
-                PROCESS_FIELD,
-                PROCESS_INSTANCE_ID_FIELD,
-                "state",
-                "titleTranslated",
-                "summaryTranslated",
-                PUBLISH_DATE_FIELD,
-                START_DATE_FIELD,
-                END_DATE_FIELD,
-                "severity",
-                "publisherType",
-                "representative",
-                "representativeType",
-                "entityRecipients" };
-        Aggregation agg = newAggregation(this.getFilterOperations(filter, pageableRequest, fields));
-        Aggregation countAgg = newAggregation(this.getFilterOperationsForCount(filter));
-
-        if (pageableRequest.isPaged()) {
-            if (Boolean.TRUE.equals(queryFilter.latestUpdateOnly())) {
-                return template.aggregate(agg, ARCHIVED_CARDS_COLLECTION, LatestUpdateOnlyArchivedLightCard.class)
-                        .map(LatestUpdateOnlyArchivedLightCard::latestUpdateOnly)
-                        .collectList()
-                        .zipWith(template.aggregate(countAgg, ARCHIVED_CARDS_COLLECTION, String.class)
-                                .defaultIfEmpty("{\"count\":0}")
-                                .single())
-                        .map(tuple -> new PageImpl<>(tuple.getT1(), pageableRequest,
-                                PaginationUtils.getCountFromJson(tuple.getT2())));
-
-            } else
-                return template.aggregate(agg, ARCHIVED_CARDS_COLLECTION, Card.class)
-                        .collectList()
-                        .zipWith(template.aggregate(countAgg, ARCHIVED_CARDS_COLLECTION, String.class)
-                                .defaultIfEmpty("{\"count\":0}")
-                                .single())
-                        .map(tuple -> new PageImpl<>(tuple.getT1(), pageableRequest,
-                                PaginationUtils.getCountFromJson(tuple.getT2())));
-        } else {
-            if (Boolean.TRUE.equals(queryFilter.latestUpdateOnly())) {
-                return template.aggregate(agg, ARCHIVED_CARDS_COLLECTION, LatestUpdateOnlyArchivedLightCard.class)
-                        .map(LatestUpdateOnlyArchivedLightCard::latestUpdateOnly)
-                        .collectList()
-                        .map(PageImpl::new);
-            } else
-                return template.aggregate(agg, ARCHIVED_CARDS_COLLECTION, Card.class)
-                        .collectList()
-                        .map(PageImpl::new);
-        }
+        return getCollections(queryFilter)
+                .flatMap(collections -> findWithUserAndFilter(filter, pageableRequest, collections));
+    }
+
+    private Mono<Page<Card>> findWithUserAndFilter(Tuple2<CurrentUserWithPerimeters, CardsFilter> filter,
+            Pageable pageableRequest, List<String> collections) {
+        if (collections.isEmpty())
+            return Mono.just(new PageImpl<>(List.of(), pageableRequest, 0));
+        String[] fields = LIGHT_CARD_FIELDS.toArray(String[]::new);
+        // Cards read from several partitions are sorted after their union
+        AggregationOptions options = newAggregationOptions().allowDiskUse(collections.size() > 1).build();
+        if (pageableRequest.isPaged() || filter.getT2().continuationToken() != null)
+            return findPage(template, collections, filter, pageableRequest, options,
+                    document -> template.getConverter().read(Card.class, document), fields);
+        else
+            return template.aggregate(newAggregation(unionWith(this.getFilterOperations(filter, pageableRequest, fields),
+                                    collections.subList(1, collections.size()))).withOptions(options),
+                            collections.get(0), Card.class)
+                    .collectList()
+                    .map(PageImpl::new);
+    }
+
+    @Override
+    public List<String> getExportedFields(CardsFilter filter) {
+        return filter.selectedFields() != null && !filter.selectedFields().isEmpty()
+                ? filter.selectedFields()
+                : LIGHT_CARD_FIELDS;
+    }
+
+    /**
+     * Streams all the archived cards matching the filter from a database cursor, the cards are not collected in
+     * memory. The publish date is always read as the cards are sorted by publish date.
+     */
+    @Override
+    public Flux<Document> exportWithUserAndFilter(Tuple2<CurrentUserWithPerimeters, CardsFilter> filter) {
+        log.debug("exportWithUserAndFilter {}", filter.getT2());
+        List<String> fields = new ArrayList<>(getExportedFields(filter.getT2()));
+        fields.add(PUBLISH_DATE_FIELD);
+        List<AggregationOperation> operations = this.getFilterOperations(filter, null,
+                fields.stream().distinct().toArray(String[]::new));
+        return getCollections(filter.getT2()).flatMapMany(collections -> {
+            if (collections.isEmpty())
+                return Flux.<Document>empty();
+            Aggregation agg = newAggregation(unionWith(operations, collections.subList(1, collections.size())))
+                    .withOptions(newAggregationOptions().allowDiskUse(true).cursorBatchSize(EXPORT_CURSOR_BATCH_SIZE)
+                            .build());
+            return template.aggregate(agg, collections.get(0), Document.class);
+        });
+    }
+
+    /**
+     * cards-publication marks the latest archived version of each card, searches on latest versions only do not
+     * group the archived cards
+     */
+    @Override
+    public boolean hasLatestVersionMarker() {
+        return true;
     }
 
     public Flux<ArchivedCard> findByParentCard(ReactiveMongoTemplate template, ArchivedCard parentCard) {
@@ -152,7 +224,11 @@ public class ArchivedCardCustomRepositoryImpl implements ArchivedCardCustomRepos
                                     where(DELETION_DATE_FIELD).isNull(), // when parent has KEEP_CHILD_CARD action
                                     where(DELETION_DATE_FIELD).gte(parentCard.deletionDate()))));
         }
-        return template.find(query, ArchivedCard.class);
+        if (!partitions.isPartitionByMonth())
+            return template.find(query, ArchivedCard.class);
+        // Child cards are published before the deletion of their parent card
+        return getCollections(null, parentCard.deletionDate()).flatMapMany(collections -> Flux.fromIterable(collections)
+                .concatMap(collection -> template.find(query, ArchivedCard.class, collection)));
     }
 
     public boolean checkIfInAdminMode(CurrentUserWithPerimeters currentUserWithPerimeters,
@@ -47,6 +47,18 @@ public interface CardCustomRepository extends UserUtilitiesCommonToCardRepositor
     CurrentUserWithPerimeters currentUserWithPerimeters, CustomScreenDataFields customScreenDataFields);
 
 
+    /**
+     * Finds the operations on cards since a sequence number : the deletions of cards (sent as DELETE operations
+     * with only the card id), followed by the cards modified. Cards modified are limited to the range if provided.
+     * The operations done during the safety lag before the last operation up to the sequence number are sent again,
+     * as they may have been committed after an operation with a greater sequence number.
+     *
+     * Cards and deletions fetched are limited to the ones that have been published either to login or to groups
+     * or to entities
+     */
+    Flux<CardOperation> getCardOperationsAfterSequence(long afterSequence, Instant rangeStart, Instant rangeEnd,
+    CurrentUserWithPerimeters currentUserWithPerimeters, CustomScreenDataFields customScreenDataFields);
+
     Mono<Page<Object>> findWithUserAndFilter(
             Tuple2<CurrentUserWithPerimeters, CardsFilter> params);
 }
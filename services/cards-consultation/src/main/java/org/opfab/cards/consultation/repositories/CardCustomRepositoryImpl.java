@@ -11,6 +11,7 @@ package org.opfab.cards.consultation.repositories;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.bson.Document;
 import org.opfab.cards.consultation.configuration.CustomScreenDataFields;
 import org.opfab.cards.consultation.model.Card;
 import org.opfab.cards.consultation.model.CardOperation;
@@ -19,9 +20,11 @@ import org.opfab.cards.consultation.model.CardsFilter;
 import org.opfab.springtools.configuration.mongo.PaginationUtils;
 import org.opfab.users.model.CurrentUserWithPerimeters;
 import org.opfab.users.model.PermissionEnum;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.aggregation.Aggregation;
 import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
@@ -32,10 +35,13 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
 
@@ -44,6 +50,7 @@ import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
 public class CardCustomRepositoryImpl implements CardCustomRepository {
 
 	private static final String CARDS_COLLECTION = "cards";
+	private static final String CARD_TOMBSTONES_COLLECTION = "cardTombstones";
 
 
 	private static final String PUBLISH_DATE_FIELD = "publishDate";
@@ -51,12 +58,20 @@ public class CardCustomRepositoryImpl implements CardCustomRepository {
 	private static final String END_DATE_FIELD = "endDate";
 	private static final String SEVERITY_FIELD = "severity";
 	private static final String LAST_UPDATE_FIELD = "lastUpdate";
+	private static final String SEQUENCE_FIELD = "sequence";
+	private static final String CARD_TOMBSTONE_DATE_FIELD = "deletionDate";
 
     private final ReactiveMongoTemplate template;
+    private final PerimeterCriteriaCache perimeterCriteriaCache;
+    private final Duration sequenceResumeSafetyLag;
 
 
-    public CardCustomRepositoryImpl(ReactiveMongoTemplate template) {
+    public CardCustomRepositoryImpl(ReactiveMongoTemplate template,
+            @Value("${operatorfabric.subscription.perimeterCriteriaCache.maxEntries:1000}") int perimeterCriteriaCacheMaxEntries,
+            @Value("${operatorfabric.subscription.sequenceResumeSafetyLagInSeconds:60}") long sequenceResumeSafetyLagInSeconds) {
         this.template = template;
+        this.perimeterCriteriaCache = new PerimeterCriteriaCache(perimeterCriteriaCacheMaxEntries);
+        this.sequenceResumeSafetyLag = Duration.ofSeconds(sequenceResumeSafetyLagInSeconds);
     }
 
     public Mono<Card> findByIdWithUser(String id, CurrentUserWithPerimeters currentUserWithPerimeters) {
@@ -84,19 +99,103 @@ public class CardCustomRepositoryImpl implements CardCustomRepository {
     private Flux<Card> findCards(Instant updatedFrom, Instant rangeStart, Instant rangeEnd,
 	CurrentUserWithPerimeters currentUserWithPerimeters, CustomScreenDataFields customScreenDataFields)
 	{	
+		PerimeterCriteriaCache.FeedCriteria feedCriteria = getFeedCriteria(currentUserWithPerimeters);
+		Criteria criteriaForUser = computeCriteriaForUser(currentUserWithPerimeters.getUserData().getLogin(),
+				feedCriteria.perimeterCriteria());
 		Criteria criteria ;
 		if (updatedFrom != null) 
 		{
 			if ((rangeEnd != null) || (rangeStart != null))criteria =
 					new Criteria().andOperator(updateDateCriteria(updatedFrom),
-						computeCriteriaForUser(currentUserWithPerimeters, false),
+						criteriaForUser,
 						getCriteriaForRange(rangeStart, rangeEnd));
 			else criteria = new Criteria().andOperator(updateDateCriteria(updatedFrom),
-					computeCriteriaForUser(currentUserWithPerimeters, false));
+					criteriaForUser);
 		}
-		else criteria = new Criteria().andOperator(computeCriteriaForUser(currentUserWithPerimeters, false),
+		else criteria = new Criteria().andOperator(criteriaForUser,
 													  getCriteriaForRange(rangeStart, rangeEnd));
+		return findCards(criteria, feedCriteria, currentUserWithPerimeters, customScreenDataFields);
+	}
+
+	@Override
+	public Flux<CardOperation> getCardOperationsAfterSequence(long afterSequence, Instant rangeStart, Instant rangeEnd,
+	CurrentUserWithPerimeters currentUserWithPerimeters, CustomScreenDataFields customScreenDataFields)
+	{
+		PerimeterCriteriaCache.FeedCriteria feedCriteria = getFeedCriteria(currentUserWithPerimeters);
+		Criteria criteriaForUser = computeCriteriaForUser(currentUserWithPerimeters.getUserData().getLogin(),
+				feedCriteria.perimeterCriteria());
+
+		return getLatestWriteDateUpToSequence(afterSequence).map(Optional::of).defaultIfEmpty(Optional.empty())
+				.flatMapMany(latestWriteDate -> {
+					Instant replayedFrom = latestWriteDate.map(date -> date.minus(sequenceResumeSafetyLag)).orElse(null);
+
+					Query deletedCardsQuery = new Query(new Criteria().andOperator(
+							afterSequenceCriteria(afterSequence, CARD_TOMBSTONE_DATE_FIELD, replayedFrom), criteriaForUser));
+					deletedCardsQuery.fields().include("id");
+					deletedCardsQuery.with(Sort.by(SEQUENCE_FIELD));
+					Flux<CardOperation> deletions = template.find(deletedCardsQuery, Document.class, CARD_TOMBSTONES_COLLECTION)
+							.map(tombstone -> new CardOperation(CardOperationTypeEnum.DELETE, tombstone.getString("_id"), null));
+
+					Criteria sequenceCriteria = afterSequenceCriteria(afterSequence, LAST_UPDATE_FIELD, replayedFrom);
+					Criteria criteria;
+					if ((rangeEnd != null) || (rangeStart != null))
+						criteria = new Criteria().andOperator(sequenceCriteria, criteriaForUser,
+								getCriteriaForRange(rangeStart, rangeEnd));
+					else criteria = new Criteria().andOperator(sequenceCriteria, criteriaForUser);
+					Flux<CardOperation> modifications = findCards(criteria, feedCriteria, currentUserWithPerimeters, customScreenDataFields)
+							.map(card -> new CardOperation(CardOperationTypeEnum.ADD, null, card));
+
+					// A card deleted then published again must be deleted before being added
+					return Flux.concat(deletions, modifications);
+				});
+	}
+
+	/**
+	 * <p>The sequence numbers are taken before the writes are committed, so a write can be committed after a write with
+	 * a greater sequence number, that the client may have already received. The writes with a sequence number lower
+	 * than afterSequence and done less than the safety lag before the last write up to afterSequence are sent
+	 * again (sending again a card or a deletion has no effect on the client).</p>
+	 * <p>The write dates are taken before the sequence numbers, so this is gap-free as long as a write is committed
+	 * less than the safety lag after its date.</p>
+	 */
+	private Criteria afterSequenceCriteria(long afterSequence, String writeDateField, Instant replayedFrom) {
+		if (replayedFrom == null)
+			return where(SEQUENCE_FIELD).gt(afterSequence);
+		return new Criteria().orOperator(where(SEQUENCE_FIELD).gt(afterSequence),
+				where(writeDateField).gt(replayedFrom));
+	}
+
+	/**
+	 * Date of the last write (card or deletion) with a sequence number lower or equal to the sequence
+	 */
+	private Mono<Instant> getLatestWriteDateUpToSequence(long sequence) {
+		return Flux.merge(getLatestWriteDateUpToSequence(sequence, CARDS_COLLECTION, LAST_UPDATE_FIELD),
+						getLatestWriteDateUpToSequence(sequence, CARD_TOMBSTONES_COLLECTION, CARD_TOMBSTONE_DATE_FIELD))
+				.reduce((date1, date2) -> date1.isAfter(date2) ? date1 : date2);
+	}
+
+	private Mono<Instant> getLatestWriteDateUpToSequence(long sequence, String collection, String writeDateField) {
+		Query query = new Query(where(SEQUENCE_FIELD).lte(sequence));
+		query.fields().include(writeDateField);
+		query.with(Sort.by(Sort.Direction.DESC, SEQUENCE_FIELD));
+		return template.findOne(query, Document.class, collection)
+				.mapNotNull(document -> document.getDate(writeDateField))
+				.map(Date::toInstant);
+	}
+
+	/**
+	 * Criteria of the perimeter of the user, shared by the users with the same perimeter
+	 */
+	private PerimeterCriteriaCache.FeedCriteria getFeedCriteria(CurrentUserWithPerimeters currentUserWithPerimeters) {
+		return perimeterCriteriaCache.get(currentUserWithPerimeters, user -> new PerimeterCriteriaCache.FeedCriteria(
+				computePerimeterCriteria(user.getUserData().getGroups(), user.getUserData().getEntities(),
+						getProcessStatesWithReceiveRight(user)),
+				computeCriteriaForProcessesStatesNotNotified(user)));
+	}
 
+	private Flux<Card> findCards(Criteria criteria, PerimeterCriteriaCache.FeedCriteria feedCriteria,
+	CurrentUserWithPerimeters currentUserWithPerimeters, CustomScreenDataFields customScreenDataFields)
+	{
 
 		Query query = new Query();
 		query.fields()
@@ -136,7 +235,8 @@ public class CardCustomRepositoryImpl implements CardCustomRepository {
 				.include("secondsBeforeTimeSpanForReminder")
 				.include("actions")
 				.include("usersReads")
-				.include("usersAcks");
+				.include("usersAcks")
+				.include(SEQUENCE_FIELD);
 
 		if ((customScreenDataFields != null) && (customScreenDataFields.getDataFields() != null)) {
 			customScreenDataFields.getDataFields().forEach(dataField ->
@@ -144,10 +244,8 @@ public class CardCustomRepositoryImpl implements CardCustomRepository {
 			);
 		}
 
-		Criteria criteriaForProcessesStatesNotNotified = computeCriteriaForProcessesStatesNotNotified(currentUserWithPerimeters);
-
         query.addCriteria(criteria);
-        query.addCriteria(criteriaForProcessesStatesNotNotified);
+        query.addCriteria(feedCriteria.processStatesNotNotified());
         log.debug("launch query with user {}", currentUserWithPerimeters.getUserData().getLogin());
         return template.find(query, Card.class).map(card -> {
             log.debug("Find card {}",card.getId());
@@ -230,17 +328,11 @@ public class CardCustomRepositoryImpl implements CardCustomRepository {
 		"userRecipients",
 		"groupRecipients",
 	};
-        Aggregation agg = newAggregation( this.getFilterOperations(filter,pageableRequest, fields));
-        Aggregation countAgg = newAggregation( this.getFilterOperationsForCount(filter));
-
-        if (pageableRequest.isPaged()) {
-            return template.aggregate(agg, CARDS_COLLECTION, Card.class)
-                    .cast(Object.class).collectList()
-                    .zipWith(template.aggregate(countAgg, CARDS_COLLECTION, String.class)
-                            .defaultIfEmpty("{\"count\":0}")
-                            .single())
-                    .map(tuple -> new PageImpl<>(tuple.getT1(), pageableRequest, PaginationUtils.getCountFromJson(tuple.getT2())));
+        if (pageableRequest.isPaged() || queryFilter.continuationToken() != null) {
+            return findPage(template, List.of(CARDS_COLLECTION), filter, pageableRequest, newAggregationOptions().build(),
+                    document -> template.getConverter().read(Card.class, document), fields);
         } else {
+            Aggregation agg = newAggregation( this.getFilterOperations(filter,pageableRequest, fields));
             return template.aggregate(agg, CARDS_COLLECTION, Card.class)
                     .cast(Object.class).collectList()
                     .map(PageImpl::new);
@@ -260,18 +352,14 @@ public class CardCustomRepositoryImpl implements CardCustomRepository {
 		List<String> fieldsWithoutDuplicates = fields.stream().distinct().toList();
 		String[] selectedFields = fieldsWithoutDuplicates.toArray(String[]::new);
 
-		Aggregation agg = newAggregation(this.getFilterOperations(filter, pageableRequest, selectedFields));
-		agg = agg.withOptions(AggregationOptions.builder().strictMapping().build());
-		Aggregation countAgg = newAggregation(this.getFilterOperationsForCount(filter));
+		AggregationOptions options = AggregationOptions.builder().strictMapping().build();
 
-		if (pageableRequest.isPaged()) {
-			return template.aggregate(agg, CARDS_COLLECTION, Object.class)
-					.collectList()
-					.zipWith(template.aggregate(countAgg, CARDS_COLLECTION, String.class)
-							.defaultIfEmpty("{\"count\":0}")
-							.single())
-					.map(tuple -> new PageImpl<>(tuple.getT1(), pageableRequest, PaginationUtils.getCountFromJson(tuple.getT2())));
+		if (pageableRequest.isPaged() || queryFilter.continuationToken() != null) {
+			return findPage(template, List.of(CARDS_COLLECTION), filter, pageableRequest, options,
+					document -> template.getConverter().read(Object.class, document), selectedFields);
 		} else {
+			Aggregation agg = newAggregation(this.getFilterOperations(filter, pageableRequest, selectedFields))
+					.withOptions(options);
 			return template.aggregate(agg, CARDS_COLLECTION, Object.class)
 					.collectList()
 					.map(PageImpl::new);
@@ -0,0 +1,76 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.repositories;
+
+import org.opfab.cards.consultation.services.PerimeterSignature;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * <p>Criteria of the feed queries computed from the perimeter of the users, keyed by the perimeter signature (see
+ * {@link PerimeterSignature#ofPerimeter}).</p>
+ * <p>Operators of a same control room usually share the same groups, entities and perimeters: the criteria, with
+ * their lists of process/states, groups and entities, are computed once and shared by all these users. Only the
+ * criteria on the login are computed for each query. A change of the perimeter of a user changes its signature, so
+ * the entries never have to be invalidated; the least recently used ones are evicted above the maximum number of
+ * entries.</p>
+ */
+public class PerimeterCriteriaCache {
+
+    /**
+     * @param processStatesNotNotified criteria excluding the process/states the user does not want to be notified of
+     */
+    public record FeedCriteria(UserUtilitiesCommonToCardRepository.PerimeterCriteria perimeterCriteria,
+                               Criteria processStatesNotNotified) {
+    }
+
+    private final int maxEntries;
+
+    // Access ordered, the first entry is the least recently used one
+    private final LinkedHashMap<String, FeedCriteria> entries;
+
+    public PerimeterCriteriaCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FeedCriteria> eldest) {
+                return size() > PerimeterCriteriaCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param compute computes the criteria of a user perimeter not in the cache
+     */
+    public FeedCriteria get(CurrentUserWithPerimeters user, Function<CurrentUserWithPerimeters, FeedCriteria> compute) {
+        if (maxEntries <= 0)
+            return compute.apply(user);
+        String signature = PerimeterSignature.ofPerimeter(user);
+        synchronized (this) {
+            FeedCriteria feedCriteria = entries.get(signature);
+            if (feedCriteria != null)
+                return feedCriteria;
+        }
+        // Computed out of the lock, two users with the same new signature may both compute it
+        FeedCriteria feedCriteria = compute.apply(user);
+        synchronized (this) {
+            entries.putIfAbsent(signature, feedCriteria);
+        }
+        return feedCriteria;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -10,9 +10,14 @@
 
 package org.opfab.cards.consultation.repositories;
 
+import org.bson.Document;
+import org.opfab.cards.consultation.model.CountModeEnum;
 import org.opfab.cards.consultation.model.FilterModel;
-import org.opfab.cards.consultation.model.PublisherTypeEnum;
+import org.opfab.springtools.configuration.mongo.ContinuationPage;
+import org.opfab.springtools.configuration.mongo.ContinuationToken;
+import org.opfab.springtools.configuration.mongo.NormalizedFields;
 import org.opfab.springtools.configuration.mongo.PaginationUtils;
+import org.opfab.springtools.configuration.mongo.VisibilityKeys;
 import org.opfab.users.model.CurrentUserWithPerimeters;
 import org.opfab.users.model.PermissionEnum;
 import org.opfab.users.model.RightEnum;
@@ -29,9 +34,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import org.opfab.cards.consultation.model.CardsFilter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.aggregation.*;
@@ -39,6 +47,7 @@ import org.springframework.data.mongodb.core.aggregation.*;
 import static org.springframework.data.mongodb.core.aggregation.Aggregation.*;
 
 import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 
 import static org.springframework.data.mongodb.core.query.Criteria.where;
@@ -75,9 +84,17 @@ public interface UserUtilitiesCommonToCardRepository<T> {
     public static final String CHILD_CARDS_PARAM = "childCards";
 
     public static final String LATEST_UPDATE_ONLY = "latestUpdateOnly";
+    public static final String LATEST_VERSION_FIELD = "latestVersion";
 
     public static final String ADMIN_MODE = "adminMode";
 
+    public static final String ID_FIELD = "_id";
+    public static final String PAGE_CONTENT = "content";
+    public static final String PAGE_TOTAL = "total";
+    // Above this page size, the cards of the page and their count are read by two aggregations, as the single
+    // document returned by $facet must not exceed the 16MB limit of MongoDB
+    public static final int FACET_MAX_PAGE_SIZE = 100;
+
     public static final String PUBLISHER = "publisher";
     public static final String PUBLISHER_TYPE = "publisherType";
 
@@ -85,6 +102,10 @@ public interface UserUtilitiesCommonToCardRepository<T> {
         PUBLISH_DATE_FROM_PARAM, PUBLISH_DATE_TO_PARAM, ACTIVE_FROM_PARAM, ACTIVE_TO_PARAM,
         PAGE_PARAM, PAGE_SIZE_PARAM, CHILD_CARDS_PARAM, LATEST_UPDATE_ONLY, ADMIN_MODE));
 
+    // Filters giving the same result for all the versions of a card, or keeping its latest version if they keep one
+    public static final List<String> VERSION_INDEPENDENT_FILTERS = List.of(PROCESS_FIELD, PROCESS_INSTANCE_ID_FIELD,
+            PUBLISH_DATE_FROM_PARAM, CHILD_CARDS_PARAM, LATEST_UPDATE_ONLY, ADMIN_MODE);
+
     default Mono<T> findByIdWithUser(ReactiveMongoTemplate template, String id, CurrentUserWithPerimeters currentUserWithPerimeters, Class<T> clazz) {
         Query query = new Query();
         List<Criteria> criteria = computeCriteriaToFindCardByIdWithUser(id, currentUserWithPerimeters);
@@ -126,23 +147,36 @@ public interface UserUtilitiesCommonToCardRepository<T> {
         return user.getPermissions().stream().filter(role -> permissionsList.indexOf(role) >= 0).count() > 0;
     }
 
+    /**
+     * Criteria on the cards a user receives which do not depend on the login of the user: they are the same for all
+     * the users with the same groups, entities and perimeters
+     *
+     * @param visibilityKeys keys of the groups and entities of the user, see {@link VisibilityKeys}
+     */
+    record PerimeterCriteria(Criteria processStates, List<String> visibilityKeys) {
+    }
+
     default Criteria computeCriteriaForUser(CurrentUserWithPerimeters currentUserWithPerimeters,
                                             boolean isAdminModeForUserPerimeters) {
         String login = currentUserWithPerimeters.getUserData().getLogin();
         List<String> groups = currentUserWithPerimeters.getUserData().getGroups();
         List<String> entities = currentUserWithPerimeters.getUserData().getEntities();
-        List<String> processStateList = new ArrayList<>();
+        List<String> processStateList = getProcessStatesWithReceiveRight(currentUserWithPerimeters);
 
+        if (isAdminModeForUserPerimeters) {
+            return computeCriteriaForUserButWithoutCriteriaOnRecipients(processStateList);
+        }
+        return computeCriteriaForUser(login, groups, entities, processStateList);
+    }
+
+    default List<String> getProcessStatesWithReceiveRight(CurrentUserWithPerimeters currentUserWithPerimeters) {
+        List<String> processStateList = new ArrayList<>();
         if (currentUserWithPerimeters.getComputedPerimeters() != null)
             currentUserWithPerimeters.getComputedPerimeters().forEach(perimeter -> {
                 if ((perimeter.getRights() == RightEnum.Receive) || (perimeter.getRights() == RightEnum.ReceiveAndWrite))
                     processStateList.add(perimeter.getProcess() + "." + perimeter.getState());
             });
-
-        if (isAdminModeForUserPerimeters) {
-            return computeCriteriaForUserButWithoutCriteriaOnRecipients(processStateList);
-        }
-        return computeCriteriaForUser(login, groups, entities, processStateList);
+        return processStateList;
     }
 
     /** Rules for receiving cards :
@@ -156,22 +190,31 @@ public interface UserUtilitiesCommonToCardRepository<T> {
          - he's a member of ENTITY1 (either directly or through one of its children entities)
          - he's a member of GROUP1
          - he has the receive right for the corresponding process/state (Receive or ReceiveAndWrite)
+
+    cards-publication writes these rules in the visibilityKeys of the cards (see VisibilityKeys) : a card is received
+    if it has one of the visibility keys of the user
     **/
     default Criteria computeCriteriaForUser(String login, List<String> groups, List<String> entities, List<String> processStateList) {
-        List<String> groupsList = (groups != null ? groups : new ArrayList<>());
-        List<String> entitiesList = (entities != null ? entities : new ArrayList<>());
-
-        return  new Criteria().andOperator(where(PROCESS_STATE_KEY).in(processStateList),
-                new Criteria().orOperator(where(USER_RECIPIENTS).in(login),
-                        where(GROUP_RECIPIENTS).in(groupsList).andOperator
-                                (new Criteria().orOperator
-                                        (where(ENTITY_RECIPIENTS).exists(false), where(ENTITY_RECIPIENTS).size(0))),
-                        where(ENTITY_RECIPIENTS).in(entitiesList).andOperator
-                                (new Criteria().orOperator
-                                        (where(GROUP_RECIPIENTS).exists(false), where(GROUP_RECIPIENTS).size(0))),
-                        where(GROUP_RECIPIENTS).in(groupsList).and(ENTITY_RECIPIENTS).in(entitiesList),
-                        where(PUBLISHER_TYPE).is(PublisherTypeEnum.ENTITY.toString()).andOperator(where(PUBLISHER).in(entitiesList)),
-                        where(PUBLISHER_TYPE).is(PublisherTypeEnum.USER.toString()).andOperator(where(PUBLISHER).is(login))));
+        return computeCriteriaForUser(login, computePerimeterCriteria(groups, entities, processStateList));
+    }
+
+    default PerimeterCriteria computePerimeterCriteria(List<String> groups, List<String> entities,
+                                                       List<String> processStateList) {
+        return new PerimeterCriteria(where(PROCESS_STATE_KEY).in(processStateList),
+                VisibilityKeys.ofGroupsAndEntities(groups, entities));
+    }
+
+    /**
+     * Completes the criteria of the perimeter of a user with its login, the criteria of the perimeter are not
+     * modified so they can be shared by several users
+     */
+    default Criteria computeCriteriaForUser(String login, PerimeterCriteria perimeterCriteria) {
+        List<String> visibilityKeys = new ArrayList<>(perimeterCriteria.visibilityKeys().size() + 1);
+        visibilityKeys.add(VisibilityKeys.user(login));
+        visibilityKeys.addAll(perimeterCriteria.visibilityKeys());
+
+        return new Criteria().andOperator(perimeterCriteria.processStates(),
+                where(VisibilityKeys.FIELD).in(visibilityKeys));
     }
 
     default Criteria computeCriteriaForUserButWithoutCriteriaOnRecipients(List<String> processStateList) {
@@ -185,8 +228,48 @@ public interface UserUtilitiesCommonToCardRepository<T> {
 
     boolean checkIfInAdminMode(CurrentUserWithPerimeters currentUserWithPerimeters, CardsFilter filter);
 
+    /**
+     * True if the collection marks the latest version of each card, false if the latest versions have to be
+     * computed by grouping the cards by process instance
+     */
+    default boolean hasLatestVersionMarker() {
+        return false;
+    }
+
+    /**
+     * True if the latest versions are computed by grouping the cards matching the filter by process instance, the
+     * result cards are then wrapped in a "latestUpdateOnly" field. The latest version of a card matching the filter
+     * is the marked latest version only if the filter cannot exclude the marked version (see
+     * {@link #isLatestVersionAlwaysMatching}), otherwise an older version matching the filter must be returned.
+     */
+    default boolean groupsLatestUpdates(Tuple2<CurrentUserWithPerimeters, CardsFilter> params) {
+        return params.getT2().latestUpdateOnly()
+                && (!hasLatestVersionMarker() || !isLatestVersionAlwaysMatching(params));
+    }
+
+    /**
+     * True if the latest version of a card matches the filter whenever one of its versions does: the cards are not
+     * filtered on the user perimeter (admin mode) and the filters do not depend on the version of the card. A
+     * publishDateFrom filter does not exclude the latest version of a card if it keeps one of its versions.
+     */
+    default boolean isLatestVersionAlwaysMatching(Tuple2<CurrentUserWithPerimeters, CardsFilter> params) {
+        return checkIfInAdminMode(params.getT1(), params.getT2()) && params.getT2().filters().stream()
+                .allMatch(columnFilter -> VERSION_INDEPENDENT_FILTERS.contains(columnFilter.columnName()));
+    }
+
     default List<AggregationOperation> getFilterOperations(
             Tuple2<CurrentUserWithPerimeters, CardsFilter> params, Pageable pageableRequest, String... fields) {
+        return getFilterOperations(params, pageableRequest, null, fields);
+    }
+
+    /**
+     * Operations to find the cards matching the filter, sorted by publish date then _id descending
+     *
+     * @param after if not null, only the cards after this position are kept (keyset pagination)
+     */
+    default List<AggregationOperation> getFilterOperations(
+            Tuple2<CurrentUserWithPerimeters, CardsFilter> params, Pageable pageableRequest,
+            ContinuationToken after, String... fields) {
 
         CurrentUserWithPerimeters currentUserWithPerimeters = params.getT1();
         CardsFilter filter = params.getT2();
@@ -198,7 +281,11 @@ public interface UserUtilitiesCommonToCardRepository<T> {
 
         List<Criteria> criteria = getCriteria(filter, currentUserWithPerimeters, isAdminMode, isAdminModeForUserPerimeters);
 
-        boolean latestUpdateOnly = filter.latestUpdateOnly();
+        boolean latestUpdateOnly = groupsLatestUpdates(params);
+        if (filter.latestUpdateOnly() && !latestUpdateOnly)
+            criteria.add(where(LATEST_VERSION_FIELD).is(true));
+        if (after != null && !latestUpdateOnly)
+            criteria.add(after.after(PUBLISH_DATE_FIELD, ID_FIELD));
 
         List<AggregationOperation> operations = new ArrayList<>(Arrays.asList(
                 match(new Criteria().andOperator(criteria.toArray(new Criteria[criteria.size()]))),
@@ -208,13 +295,18 @@ public interface UserUtilitiesCommonToCardRepository<T> {
                 // and cause OutOfMemory problems or exceed mongoDB limits
                 // with the group operation (see code lines after)
                 project(fields),
-                sort(Sort.by(Sort.Order.desc(PUBLISH_DATE_FIELD)))));
+                sort(Sort.by(Sort.Order.desc(PUBLISH_DATE_FIELD), Sort.Order.desc(ID_FIELD)))));
 
         if (latestUpdateOnly) {
             operations.add(
                     group(PROCESS_FIELD, PROCESS_INSTANCE_ID_FIELD).first(Aggregation.ROOT).as(LATEST_UPDATE_ONLY));
-            operations.add(project(LATEST_UPDATE_ONLY).andExclude("_id"));
-            operations.add(sort(Sort.by(Sort.Order.desc(LATEST_UPDATE_ONLY + "." + PUBLISH_DATE_FIELD))));
+            operations.add(project(LATEST_UPDATE_ONLY).andExclude(ID_FIELD));
+            // The latest version of a card is only known after the group, the position is applied after it
+            if (after != null)
+                operations.add(match(after.after(LATEST_UPDATE_ONLY + "." + PUBLISH_DATE_FIELD,
+                        LATEST_UPDATE_ONLY + "." + ID_FIELD)));
+            operations.add(sort(Sort.by(Sort.Order.desc(LATEST_UPDATE_ONLY + "." + PUBLISH_DATE_FIELD),
+                    Sort.Order.desc(LATEST_UPDATE_ONLY + "." + ID_FIELD))));
 
         }
         if ((pageableRequest != null) && (pageableRequest.isPaged())) {
@@ -224,35 +316,118 @@ public interface UserUtilitiesCommonToCardRepository<T> {
         return operations;
     }
 
-    default List<AggregationOperation> getFilterOperationsForCount(
-            Tuple2<CurrentUserWithPerimeters, CardsFilter> params) {
+    /**
+     * <p>Finds a page of cards in a single round trip to the database.</p>
+     * <p>With count mode EXACT, a $facet stage computes the cards of the page and the total number of matching
+     * cards from the same pass on the matching cards. Pages larger than {@link #FACET_MAX_PAGE_SIZE} are read with
+     * a separate aggregation counting the matching cards instead. With count mode HAS_NEXT_PAGE, the matching cards are not
+     * counted: one card more than the page size is read to know if there is a next page.</p>
+     * <p>The page holds a continuation token pointing after its last card. When the filter holds such a token, the
+     * page starts right after this position instead of skipping the cards of the previous pages, and the matching
+     * cards are not counted.</p>
+     *
+     * @param collections collections of the cards, see {@link #unionWith(List, List)}
+     */
+    default <C> Mono<Page<C>> findPage(ReactiveMongoTemplate template, List<String> collections,
+            Tuple2<CurrentUserWithPerimeters, CardsFilter> params, Pageable pageableRequest,
+            AggregationOptions options, Function<Document, C> reader, String... fields) {
 
-        CurrentUserWithPerimeters currentUserWithPerimeters = params.getT1();
         CardsFilter filter = params.getT2();
+        ContinuationToken after;
+        try {
+            after = filter.continuationToken() != null ? ContinuationToken.decode(filter.continuationToken()) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+        List<AggregationOperation> operations = unionWith(getFilterOperations(params, null, after, fields),
+                collections.subList(1, collections.size()));
+        String collection = collections.get(0);
+        Pageable pageable = after != null
+                ? PageRequest.of(0, pageableRequest.isPaged() ? pageableRequest.getPageSize() : PaginationUtils.DEFAULT_PAGE_SIZE)
+                : pageableRequest;
+        long offset = pageable.getOffset();
+        int pageSize = pageable.getPageSize();
+        Function<Document, Document> card = groupsLatestUpdates(params)
+                ? document -> document.get(LATEST_UPDATE_ONLY, Document.class)
+                : Function.identity();
+
+        if (after != null || filter.countMode() == CountModeEnum.HAS_NEXT_PAGE) {
+            operations.add(skip(offset));
+            operations.add(limit(pageSize + 1L));
+            return template.aggregate(newAggregation(operations).withOptions(options), collection, Document.class)
+                    .collectList()
+                    .map(documents -> {
+                        boolean hasNextPage = documents.size() > pageSize;
+                        List<Document> pageDocuments = hasNextPage ? documents.subList(0, pageSize) : documents;
+                        ContinuationToken next = hasNextPage
+                                ? ContinuationToken.of(card.apply(pageDocuments.get(pageSize - 1)), PUBLISH_DATE_FIELD)
+                                : null;
+                        return new ContinuationPage<>(pageDocuments.stream().map(reader).toList(), pageable,
+                                offset + pageDocuments.size() + (hasNextPage ? 1 : 0), next);
+                    });
+        }
 
-        boolean isAdminMode = checkIfInAdminMode(currentUserWithPerimeters, filter);
-        boolean isAdminModeForUserPerimeters = (!isAdminMode &&
-                checkIfInAdminModeAndPermissionViewAllArchivedCardsForUserPerimeters(
-                        currentUserWithPerimeters, filter));
-
-        List<Criteria> criteria = this.getCriteria(filter, currentUserWithPerimeters, isAdminMode, isAdminModeForUserPerimeters);
-
-        boolean latestUpdateOnly = filter.latestUpdateOnly();
+        Mono<Tuple2<List<Document>, Long>> pageDocumentsAndCount;
+        if (pageSize > FACET_MAX_PAGE_SIZE) {
+            List<AggregationOperation> contentOperations = new ArrayList<>(operations);
+            contentOperations.add(skip(offset));
+            contentOperations.add(limit(pageSize));
+            List<AggregationOperation> countOperations = new ArrayList<>(operations);
+            countOperations.add(count().as(PaginationUtils.COUNT));
+            pageDocumentsAndCount = Mono.zip(
+                    template.aggregate(newAggregation(contentOperations).withOptions(options), collection,
+                            Document.class).collectList(),
+                    template.aggregate(newAggregation(countOperations).withOptions(options), collection,
+                            Document.class).next()
+                            .map(total -> ((Number) total.get(PaginationUtils.COUNT)).longValue())
+                            .defaultIfEmpty(0L));
+        } else {
+            operations.add(facet(skip(offset), limit(pageSize)).as(PAGE_CONTENT)
+                    .and(count().as(PaginationUtils.COUNT)).as(PAGE_TOTAL));
+            pageDocumentsAndCount = template.aggregate(newAggregation(operations).withOptions(options), collection,
+                            Document.class)
+                    .next()
+                    .map(result -> {
+                        List<Document> total = result.getList(PAGE_TOTAL, Document.class);
+                        return Tuples.of(result.getList(PAGE_CONTENT, Document.class),
+                                total.isEmpty() ? 0L : ((Number) total.get(0).get(PaginationUtils.COUNT)).longValue());
+                    });
+        }
+        return pageDocumentsAndCount.map(pageDocumentsWithCount -> {
+            List<Document> pageDocuments = pageDocumentsWithCount.getT1();
+            long count = pageDocumentsWithCount.getT2();
+            ContinuationToken next = offset + pageDocuments.size() < count
+                    ? ContinuationToken.of(card.apply(pageDocuments.get(pageDocuments.size() - 1)), PUBLISH_DATE_FIELD)
+                    : null;
+            return new ContinuationPage<>(pageDocuments.stream().map(reader).toList(), pageable, count, next);
+        });
+    }
 
-        List<AggregationOperation> operations = new ArrayList<>(Arrays.asList(
-                match(new Criteria().andOperator(criteria.toArray(new Criteria[criteria.size()]))),
-                project("uid",
-                        PROCESS_FIELD,
-                        PROCESS_INSTANCE_ID_FIELD)
+    /**
+     * Operations reading the cards of several collections in the same aggregation run on the first collection: the
+     * cards of the other collections matching the filter (first operation) are added to the cards of the first
+     * collection before they are projected and sorted. Each collection uses its own indexes for the filter.
+     */
+    default List<AggregationOperation> unionWith(List<AggregationOperation> operations,
+            List<String> otherCollections) {
+        if (otherCollections.isEmpty())
+            return operations;
+        List<AggregationOperation> unionOperations = new ArrayList<>(operations);
+        AggregationOperation filter = operations.get(0);
+        for (int i = 0; i < otherCollections.size(); i++)
+            unionOperations.add(i + 1, UnionWithOperation.unionWith(otherCollections.get(i)).pipeline(filter));
+        return unionOperations;
+    }
 
-        ));
-        if (latestUpdateOnly) {
-            operations.add(
-                    group(PROCESS_FIELD, PROCESS_INSTANCE_ID_FIELD).first(Aggregation.ROOT).as(LATEST_UPDATE_ONLY));
-            operations.add(project(LATEST_UPDATE_ONLY).andExclude("_id"));
-        }
-        operations.add(count().as(PaginationUtils.COUNT));
-        return operations;
+    /**
+     * Publish date of a "publishDateFrom" or "publishDateTo" filter, null if the filter does not have it
+     */
+    default Instant getPublishDateParam(CardsFilter filter, String param) {
+        return filter.filters().stream()
+                .filter(f -> f.columnName().equals(param))
+                .findFirst()
+                .map(f -> Instant.ofEpochMilli(Long.parseLong(f.filter().get(0))))
+                .orElse(null);
     }
 
     private List<Criteria> getCriteria(
@@ -301,7 +476,11 @@ public interface UserUtilitiesCommonToCardRepository<T> {
         Criteria criteria = null;
         switch(columnFilter.matchType()) {
             case EQUALS: 
-                criteria =  Criteria.where(columnFilter.columnName()).regex(getEqualsIgnoreCasePattern(columnFilter.filter().get(0)));
+                if (NormalizedFields.FIELDS.contains(columnFilter.columnName()))
+                    criteria = Criteria.where(NormalizedFields.FIELD + "." + columnFilter.columnName())
+                            .is(NormalizedFields.normalize(columnFilter.filter().get(0)));
+                else
+                    criteria =  Criteria.where(columnFilter.columnName()).regex(getEqualsIgnoreCasePattern(columnFilter.filter().get(0)));
                 break;
             case NOTEQUAL:
                 criteria =  Criteria.where(columnFilter.columnName()).regex(getNotEqualsIgnoreCasePattern(columnFilter.filter().get(0)));
@@ -313,7 +492,13 @@ public interface UserUtilitiesCommonToCardRepository<T> {
                 criteria =  Criteria.where(columnFilter.columnName()).exists(true);
                 break;
             case STARTSWITH:
-                criteria =  Criteria.where(columnFilter.columnName()).regex(getStartsWithIgnoreCasePattern(columnFilter.filter().get(0)));
+                if (NormalizedFields.FIELDS.contains(columnFilter.columnName()))
+                    // A case sensitive regular expression anchored at the start is an index range scan
+                    criteria = Criteria.where(NormalizedFields.FIELD + "." + columnFilter.columnName())
+                            .regex(Pattern.compile("^" + Pattern.quote(NormalizedFields.normalize(
+                                    columnFilter.filter().get(0)))));
+                else
+                    criteria =  Criteria.where(columnFilter.columnName()).regex(getStartsWithIgnoreCasePattern(columnFilter.filter().get(0)));
                 break;
             case ENDSWITH:
                 criteria =  Criteria.where(columnFilter.columnName()).regex(getEndsWithIgnoreCasePattern(columnFilter.filter().get(0)));
@@ -0,0 +1,252 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import net.minidev.json.JSONObject;
+import net.minidev.json.parser.JSONParser;
+import net.minidev.json.parser.ParseException;
+import org.opfab.cards.consultation.model.CardOperationTypeEnum;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>Immutable view of a card operation received from the event bus.</p>
+ * <p>The message is parsed only once and the payloads sent to the subscriptions are serialized only once,
+ * whatever the number of subscriptions the card is routed to. The per-user flags (hasBeenRead,
+ * hasBeenAcknowledged) are appended to the pre-serialized card instead of serializing the card again.</p>
+ */
+@Slf4j
+public final class CardEvent {
+
+    private static final String UPDATE = "UPDATE";
+    private static final String CARD = "card";
+    private static final String TYPE = "type";
+
+    private final String type;
+    private final boolean withCard;
+    private final String cardId;
+    private final String process;
+    private final String state;
+    private final String publisher;
+    private final String publisherType;
+    private final Set<String> groupRecipients;
+    private final Set<String> entityRecipients;
+    private final Set<String> userRecipients;
+    private final Set<String> usersAcks;
+    private final Set<String> usersReads;
+
+    private final String payload;
+    private final String cardPayloadPrefix;
+    private final String cardPayload;
+    private final String deletePayload;
+
+    // Payloads of an update for each combination of the user flags : none, read, acknowledged, read and acknowledged
+    private final String[] updatePayloadsWithUserFlags = new String[4];
+
+    private CardEvent(JSONObject cardOperation) {
+        Object typeValue = cardOperation.get(TYPE);
+        this.type = typeValue != null ? typeValue.toString() : "";
+
+        Object card = cardOperation.get(CARD);
+        JSONObject cardObj = card instanceof JSONObject jsonCard ? jsonCard : null;
+        this.withCard = cardObj != null;
+        if (withCard) {
+            this.cardId = cardObj.get("id") != null ? (String) cardObj.get("id") : "";
+            this.process = (String) cardObj.get("process");
+            this.state = (String) cardObj.get("state");
+            this.publisher = (String) cardObj.get("publisher");
+            this.publisherType = (String) cardObj.get("publisherType");
+            this.groupRecipients = toSet(cardObj.get("groupRecipients"));
+            this.entityRecipients = toSet(cardObj.get("entityRecipients"));
+            this.userRecipients = toSet(cardObj.get("userRecipients"));
+            this.usersAcks = toSet(cardObj.get("usersAcks"));
+            this.usersReads = toSet(cardObj.get("usersReads"));
+        } else {
+            this.cardId = "";
+            this.process = null;
+            this.state = null;
+            this.publisher = null;
+            this.publisherType = null;
+            this.groupRecipients = Collections.emptySet();
+            this.entityRecipients = Collections.emptySet();
+            this.userRecipients = Collections.emptySet();
+            this.usersAcks = Collections.emptySet();
+            this.usersReads = Collections.emptySet();
+        }
+
+        if (isUpdate() && withCard) {
+            // for the front an update is considered as an ADD
+            JSONObject operationWithoutCard = new JSONObject(cardOperation);
+            operationWithoutCard.remove(CARD);
+            operationWithoutCard.put(TYPE, "ADD");
+            String operationJson = operationWithoutCard.toJSONString();
+            this.cardPayloadPrefix = operationJson.substring(0, operationJson.length() - 1)
+                    + (operationWithoutCard.isEmpty() ? "" : ",") + "\"card\":";
+            this.cardPayload = cardObj.toJSONString();
+            this.payload = null;
+        } else {
+            this.cardPayloadPrefix = null;
+            this.cardPayload = null;
+            this.payload = cardOperation.toJSONString();
+        }
+
+        if (isUpdate()) {
+            JSONObject deleteOperation = new JSONObject(cardOperation);
+            deleteOperation.put(TYPE, "DELETE");
+            deleteOperation.put(CARD, "");
+            this.deletePayload = deleteOperation.toJSONString();
+        } else {
+            this.deletePayload = null;
+        }
+    }
+
+    /**
+     * Parses a card operation message received from the event bus
+     *
+     * @param message card operation as json
+     * @return the card event or null if the message cannot be parsed
+     */
+    public static CardEvent parse(String message) {
+        try {
+            Object parsed = new JSONParser(JSONParser.MODE_PERMISSIVE).parse(message);
+            if (parsed instanceof JSONObject cardOperation)
+                return new CardEvent(cardOperation);
+            log.error("ERROR during received message parsing, message is not a json object");
+        } catch (ParseException e) {
+            log.error("ERROR during received message parsing", e);
+        }
+        return null;
+    }
+
+    private static Set<String> toSet(Object jsonValue) {
+        if (!(jsonValue instanceof Collection<?> values) || values.isEmpty())
+            return Collections.emptySet();
+        Set<String> set = new HashSet<>(values.size() * 2);
+        values.forEach(value -> {
+            if (value != null)
+                set.add(value.toString());
+        });
+        return Collections.unmodifiableSet(set);
+    }
+
+    public boolean isUpdate() {
+        return UPDATE.equals(type);
+    }
+
+    public boolean hasCard() {
+        return withCard;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the type of the operation, or null if it is not a known operation type
+     */
+    public CardOperationTypeEnum getOperationType() {
+        for (CardOperationTypeEnum operationType : CardOperationTypeEnum.values())
+            if (operationType.name().equals(type))
+                return operationType;
+        return null;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public String getProcess() {
+        return process;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public String getPublisher() {
+        return publisher;
+    }
+
+    public String getPublisherType() {
+        return publisherType;
+    }
+
+    public Set<String> getGroupRecipients() {
+        return groupRecipients;
+    }
+
+    public Set<String> getEntityRecipients() {
+        return entityRecipients;
+    }
+
+    public Set<String> getUserRecipients() {
+        return userRecipients;
+    }
+
+    public Set<String> getUsersAcks() {
+        return usersAcks;
+    }
+
+    public Set<String> getUsersReads() {
+        return usersReads;
+    }
+
+    /**
+     * @return the message to send to a user who must receive the card
+     */
+    public String getPayloadForUser(String login) {
+        if (cardPayloadPrefix == null)
+            return payload;
+
+        boolean hasBeenRead = usersReads.contains(login);
+        boolean hasBeenAcknowledged = usersAcks.contains(login);
+        int index = (hasBeenRead ? 1 : 0) + (hasBeenAcknowledged ? 2 : 0);
+        String payloadWithUserFlags = updatePayloadsWithUserFlags[index];
+        if (payloadWithUserFlags == null) {
+            // Concurrent computations produce the same string, so there is no need to synchronize
+            payloadWithUserFlags = cardPayloadPrefix + appendUserFlags(hasBeenRead, hasBeenAcknowledged) + "}";
+            updatePayloadsWithUserFlags[index] = payloadWithUserFlags;
+        }
+        return payloadWithUserFlags;
+    }
+
+    /**
+     * @return the message to send to a user who was recipient of the previous version of the card but is not
+     * recipient of the new one, null if the operation is not an update
+     */
+    public String getDeletePayload() {
+        return deletePayload;
+    }
+
+    private String appendUserFlags(boolean hasBeenRead, boolean hasBeenAcknowledged) {
+        if (!hasBeenRead && !hasBeenAcknowledged)
+            return cardPayload;
+
+        StringBuilder flags = new StringBuilder(cardPayload.length() + 50);
+        flags.append(cardPayload, 0, cardPayload.length() - 1);
+        boolean emptyCard = cardPayload.length() <= 2;
+        if (hasBeenRead) {
+            if (!emptyCard)
+                flags.append(',');
+            flags.append("\"hasBeenRead\":\"true\"");
+            emptyCard = false;
+        }
+        if (hasBeenAcknowledged) {
+            if (!emptyCard)
+                flags.append(',');
+            flags.append("\"hasBeenAcknowledged\":\"true\"");
+        }
+        return flags.append('}').toString();
+    }
+}
@@ -0,0 +1,132 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import reactor.core.publisher.Flux;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Formats a stream of cards read from the database as lines of NDJSON (one JSON card per line) or CSV, one line
+ * at a time so that the export does not depend on the number of cards.</p>
+ * <p>Dates are written as numbers of milliseconds since epoch, as in the other routes.</p>
+ */
+public class CardExportFormatter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+
+    private static final String LINE_SEPARATOR = "\n";
+    private static final String FORMULA_FIRST_CHARACTERS = "=+-@\t\r";
+
+    private final ObjectMapper objectMapper;
+
+    public CardExportFormatter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public Flux<String> format(Flux<Document> cards, Format format, List<String> columns) {
+        if (format == Format.CSV)
+            return Flux.concat(Flux.just(toCsvLine(columns)),
+                    cards.map(card -> toCsvLine(columns.stream().map(column -> csvValue(valueAt(card, column))).toList())));
+        return cards.map(card -> toJson(toJsonValue(card)) + LINE_SEPARATOR);
+    }
+
+    /**
+     * Value of a field, the path of a field of a sub document being separated by dots (e.g. data.comment)
+     */
+    static Object valueAt(Document card, String path) {
+        Object value = card;
+        for (String field : path.split("\\.")) {
+            if (!(value instanceof Map<?, ?> document))
+                return null;
+            value = document.get(field);
+        }
+        return value;
+    }
+
+    private String csvValue(Object value) {
+        if (value == null)
+            return "";
+        if (value instanceof Date date)
+            return Long.toString(date.getTime());
+        if (value instanceof Number || value instanceof Boolean)
+            return value.toString();
+        if (value instanceof String text)
+            return neutralizeFormula(text);
+        if (value instanceof List<?> list && list.stream().allMatch(String.class::isInstance))
+            return neutralizeFormula(list.stream().map(String.class::cast).collect(Collectors.joining(",")));
+        return toJson(toJsonValue(value));
+    }
+
+    /**
+     * Texts of the cards are written by the publishers: a text starting like a formula is prefixed with a quote so
+     * that a spreadsheet opening the export displays it instead of evaluating it
+     */
+    static String neutralizeFormula(String value) {
+        if (!value.isEmpty() && FORMULA_FIRST_CHARACTERS.indexOf(value.charAt(0)) >= 0)
+            return "'" + value;
+        return value;
+    }
+
+    static String toCsvLine(List<String> values) {
+        return values.stream().map(CardExportFormatter::escapeCsv).collect(Collectors.joining(",")) + LINE_SEPARATOR;
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r"))
+            return '"' + value.replace("\"", "\"\"") + '"';
+        return value;
+    }
+
+    /**
+     * Same field names and date format as the cards of the other routes: "id" instead of "_id", dates as numbers
+     */
+    private static Object toJsonValue(Object value) {
+        if (value instanceof Map<?, ?> document) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            document.forEach((key, fieldValue) ->
+                    json.put("_id".equals(key) ? "id" : String.valueOf(key), toJsonValue(fieldValue)));
+            return json;
+        }
+        if (value instanceof List<?> list)
+            return list.stream().map(CardExportFormatter::toJsonValue).toList();
+        if (value instanceof Date date)
+            return date.getTime();
+        return value;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write card as JSON", e);
+        }
+    }
+}
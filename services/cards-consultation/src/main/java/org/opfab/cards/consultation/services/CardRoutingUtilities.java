@@ -13,7 +13,6 @@ import lombok.extern.slf4j.Slf4j;
 import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.opfab.users.model.CurrentUserWithPerimeters;
-import org.opfab.users.model.RightEnum;
 import org.opfab.cards.consultation.model.PublisherTypeEnum;
 
 import java.util.*;
@@ -33,14 +32,24 @@ public class CardRoutingUtilities {
             JSONObject card = (JSONObject) cardOperation.get("card");
             String process = (String) card.get("process");
             String state = (String) card.get("state");
-            if (isReceiveRightsForProcessAndState(process, state,
-                    loadUserRightsPerProcessAndState(currentUserWithPerimeters))
-                    && checkIfUserMustBeNotifiedForThisProcessState(process, state, currentUserWithPerimeters))
+            UserRights userRights = new UserRights(currentUserWithPerimeters);
+            if (userRights.hasReceiveRight(process, state) && userRights.mustBeNotified(process, state))
                 return true;
         }
         return false;
     }
 
+    public static boolean checkIfUserNeedToReceiveADeleteCardOperation(CardEvent cardEvent, UserRights userRights) {
+        // In case of an UPDATE, we need to send a delete card operation to delete the
+        // card from the feed in case user was recipient of the previous version
+        if (cardEvent.isUpdate() && cardEvent.hasCard()) {
+            String process = cardEvent.getProcess();
+            String state = cardEvent.getState();
+            return userRights.hasReceiveRight(process, state) && userRights.mustBeNotified(process, state);
+        }
+        return false;
+    }
+
     public static boolean checkIfUserMustBeNotifiedForThisProcessState(String process, String state,
             CurrentUserWithPerimeters currentUserWithPerimeters) {
         Map<String, List<String>> processesStatesNotNotified = currentUserWithPerimeters
@@ -49,22 +58,6 @@ public class CardRoutingUtilities {
                 (processesStatesNotNotified.get(process).contains(state)));
     }
 
-    private static Map<String, RightEnum> loadUserRightsPerProcessAndState(
-            CurrentUserWithPerimeters currentUserWithPerimeters) {
-        Map<String, RightEnum> userRightsPerProcessAndState = new HashMap<>();
-        if (currentUserWithPerimeters.getComputedPerimeters() != null)
-            currentUserWithPerimeters.getComputedPerimeters()
-                    .forEach(perimeter -> userRightsPerProcessAndState
-                            .put(perimeter.getProcess() + "." + perimeter.getState(), perimeter.getRights()));
-        return userRightsPerProcessAndState;
-    }
-
-    private static boolean isReceiveRightsForProcessAndState(String processId, String stateId,
-            Map<String, RightEnum> userRightsPerProcessAndState) {
-        final RightEnum rights = userRightsPerProcessAndState.get(processId + '.' + stateId);
-        return rights == RightEnum.Receive || rights == RightEnum.ReceiveAndWrite;
-    }
-
     /**
      * Rules for receiving cards :
      * 1) If the card is sent to user1, the card is received and visible for user1
@@ -109,7 +102,7 @@ public class CardRoutingUtilities {
         } else
             return false;
 
-        return checkIfUserMustReceiveTheCard(currentUserWithPerimeters,
+        return checkIfUserMustReceiveTheCard(new UserRights(currentUserWithPerimeters),
                 idCard,
                 process,
                 state,
@@ -120,6 +113,21 @@ public class CardRoutingUtilities {
                 entityRecipientsArray);
     }
 
+    public static boolean checkIfUserMustReceiveTheCard(CardEvent cardEvent, UserRights userRights) {
+        if (!cardEvent.hasCard())
+            return false;
+
+        return checkIfUserMustReceiveTheCard(userRights,
+                cardEvent.getCardId(),
+                cardEvent.getProcess(),
+                cardEvent.getState(),
+                cardEvent.getPublisher(),
+                cardEvent.getPublisherType(),
+                cardEvent.getGroupRecipients(),
+                cardEvent.getUserRecipients(),
+                cardEvent.getEntityRecipients());
+    }
+
     public static boolean checkIfUserMustReceiveTheCard(CurrentUserWithPerimeters currentUserWithPerimeters,
             String idCard,
             String process,
@@ -129,23 +137,33 @@ public class CardRoutingUtilities {
             Collection<?> groupRecipientsArray,
             Collection<?> userRecipientsArray,
             Collection<?> entityRecipientsArray) {
+        return checkIfUserMustReceiveTheCard(new UserRights(currentUserWithPerimeters), idCard, process, state,
+                publisher, publisherType, groupRecipientsArray, userRecipientsArray, entityRecipientsArray);
+    }
 
-        String processStateKey = process + "." + state;
+    public static boolean checkIfUserMustReceiveTheCard(UserRights userRights,
+            String idCard,
+            String process,
+            String state,
+            String publisher,
+            String publisherType,
+            Collection<?> groupRecipientsArray,
+            Collection<?> userRecipientsArray,
+            Collection<?> entityRecipientsArray) {
+
+        CurrentUserWithPerimeters currentUserWithPerimeters = userRights.getUser();
         List<String> userGroups = currentUserWithPerimeters.getUserData().getGroups();
         List<String> userEntities = currentUserWithPerimeters.getUserData().getEntities();
 
-        if (!checkIfUserMustBeNotifiedForThisProcessState(process, state, currentUserWithPerimeters))
+        if (!userRights.mustBeNotified(process, state))
             return false;
 
-        log.debug("Check if user {} shall receive card {} for processStateKey {}",
-                currentUserWithPerimeters.getUserData().getLogin(), idCard, processStateKey);
+        log.debug("Check if user {} shall receive card {} for process {} and state {}",
+                currentUserWithPerimeters.getUserData().getLogin(), idCard, process, state);
 
         // First, we check if the user has the right for receiving this card (Receive or
         // ReceiveAndWrite)
-
-        Map<String, RightEnum> userRightsPerProcessAndState = loadUserRightsPerProcessAndState(
-                currentUserWithPerimeters);
-        if (!isReceiveRightsForProcessAndState(process, state, userRightsPerProcessAndState))
+        if (!userRights.hasReceiveRight(process, state))
             return false;
 
         // Now, we check if the user is member of the group and/or entity (or the
@@ -0,0 +1,328 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>In memory snapshots of the cards already published sent to a subscription, keyed by the perimeter signature of
+ * the user and the range requested, so that a client reconnecting with the same range is answered without querying
+ * the database.</p>
+ * <p>A snapshot is evicted as soon as a card event or an acknowledgment concerns one of its cards or a card the user
+ * must receive, when the user reads or unreads a card, and after a time to live as some changes are not notified.
+ * Snapshots are evicted in least recently used order when their total size exceeds the byte budget.</p>
+ * <p>Snapshots and loads are indexed by card id, by process/state with receive right and by login, so that a card
+ * event only evaluates the routing rules on the snapshots of the users receiving its process/state.</p>
+ * <p>A snapshot is stored only if no card event has concerned it while it was loaded from the database.</p>
+ */
+@Component
+@Slf4j
+public class CardSnapshotCache {
+
+    public record Key(String perimeterSignature, Instant rangeStart, Instant rangeEnd) {
+    }
+
+    /**
+     * Snapshot being loaded from the database
+     */
+    public final class Load {
+        private final Key key;
+        private final UserRights userRights;
+        private final String login;
+        private final List<String> processStatesWithReceiveRight;
+        private final List<String> cardOperations = new ArrayList<>();
+        private final Set<String> cardIds = new HashSet<>();
+        private long sizeInBytes;
+        private boolean stale;
+
+        private Load(Key key, CurrentUserWithPerimeters user) {
+            this.key = key;
+            this.userRights = new UserRights(user);
+            this.login = user.getUserData().getLogin();
+            this.processStatesWithReceiveRight = processStatesWithReceiveRight(user);
+        }
+
+        /**
+         * Adds a serialized card operation to the snapshot, the snapshot is dropped if it exceeds the byte budget
+         */
+        public void add(String cardId, String cardOperation) {
+            synchronized (CardSnapshotCache.this) {
+                if (stale)
+                    return;
+                sizeInBytes += estimateSize(cardOperation);
+                if (sizeInBytes > maxSizeInBytes) {
+                    abort(this);
+                    return;
+                }
+                cardOperations.add(cardOperation);
+                if (cardId != null && cardIds.add(cardId))
+                    loadIndex.addCard(this, cardId);
+            }
+        }
+    }
+
+    private record Snapshot(Key key, UserRights userRights, String login, List<String> processStatesWithReceiveRight,
+                            List<String> cardOperations, Set<String> cardIds, long sizeInBytes,
+                            long expirationEpochMilli) {
+    }
+
+    private static final int SNAPSHOT_OVERHEAD_IN_BYTES = 256;
+    private static final int CARD_OPERATION_OVERHEAD_IN_BYTES = 64;
+
+    private final long maxSizeInBytes;
+    private final long timeToLiveInMillis;
+    private final Clock clock;
+
+    // Access ordered, the first snapshot is the least recently used one
+    private final LinkedHashMap<Key, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private final Index<Snapshot> snapshotIndex = new Index<>();
+    private final Set<Load> loads = new HashSet<>();
+    private final Index<Load> loadIndex = new Index<>();
+    private long sizeInBytes;
+
+    public CardSnapshotCache(@Value("${operatorfabric.subscription.snapshotCache.maxSizeInBytes:0}") long maxSizeInBytes,
+                             @Value("${operatorfabric.subscription.snapshotCache.timeToLiveInSeconds:60}") long timeToLiveInSeconds) {
+        this(maxSizeInBytes, timeToLiveInSeconds, Clock.systemUTC());
+    }
+
+    CardSnapshotCache(long maxSizeInBytes, long timeToLiveInSeconds, Clock clock) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.timeToLiveInMillis = timeToLiveInSeconds * 1000;
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return maxSizeInBytes > 0 && timeToLiveInMillis > 0;
+    }
+
+    /**
+     * @return the serialized card operations of the snapshot, or null if there is no valid snapshot for this key
+     */
+    public synchronized List<String> get(Key key) {
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null)
+            return null;
+        if (snapshot.expirationEpochMilli() < clock.millis()) {
+            remove(snapshot);
+            return null;
+        }
+        return snapshot.cardOperations();
+    }
+
+    public synchronized Load startLoad(Key key, CurrentUserWithPerimeters user) {
+        Load load = new Load(key, user);
+        loads.add(load);
+        loadIndex.addUser(load, load.login, load.processStatesWithReceiveRight);
+        return load;
+    }
+
+    /**
+     * Stores the snapshot loaded if no card event has concerned it in the meantime
+     */
+    public synchronized void completeLoad(Load load) {
+        if (!loads.remove(load) || load.stale)
+            return;
+        loadIndex.remove(load, load.login, load.processStatesWithReceiveRight, load.cardIds);
+        Snapshot previous = snapshots.get(load.key);
+        if (previous != null)
+            remove(previous);
+        long snapshotSize = load.sizeInBytes + SNAPSHOT_OVERHEAD_IN_BYTES;
+        Snapshot snapshot = new Snapshot(load.key, load.userRights, load.login, load.processStatesWithReceiveRight,
+                Collections.unmodifiableList(load.cardOperations), load.cardIds, snapshotSize,
+                clock.millis() + timeToLiveInMillis);
+        snapshots.put(load.key, snapshot);
+        snapshotIndex.addUser(snapshot, snapshot.login(), snapshot.processStatesWithReceiveRight());
+        snapshot.cardIds().forEach(cardId -> snapshotIndex.addCard(snapshot, cardId));
+        sizeInBytes += snapshotSize;
+        evictLeastRecentlyUsed();
+    }
+
+    public synchronized void abort(Load load) {
+        if (loads.remove(load))
+            loadIndex.remove(load, load.login, load.processStatesWithReceiveRight, load.cardIds);
+        load.stale = true;
+        load.cardOperations.clear();
+        load.cardIds.clear();
+    }
+
+    /**
+     * Evicts the snapshots, loaded or being loaded, concerned by a card event: the ones containing the card and the
+     * ones of the users with receive right on its process/state which must receive the card or a delete operation
+     */
+    public synchronized void onCardEvent(CardEvent cardEvent) {
+        if (snapshots.isEmpty() && loads.isEmpty())
+            return;
+        List<Snapshot> concernedSnapshots = new ArrayList<>(snapshotIndex.withCard(cardEvent.getCardId()));
+        List<Load> concernedLoads = new ArrayList<>(loadIndex.withCard(cardEvent.getCardId()));
+        if (cardEvent.hasCard()) {
+            String processState = cardEvent.getProcess() + "." + cardEvent.getState();
+            snapshotIndex.withReceiveRight(processState).stream()
+                    .filter(snapshot -> mustReceive(cardEvent, snapshot.userRights()))
+                    .forEach(concernedSnapshots::add);
+            loadIndex.withReceiveRight(processState).stream()
+                    .filter(load -> mustReceive(cardEvent, load.userRights))
+                    .forEach(concernedLoads::add);
+        }
+        concernedSnapshots.forEach(this::remove);
+        concernedLoads.forEach(this::abort);
+    }
+
+    /**
+     * Evicts the snapshots, loaded or being loaded, containing a card
+     */
+    public synchronized void onCardChange(String cardId) {
+        if (cardId == null)
+            return;
+        new ArrayList<>(snapshotIndex.withCard(cardId)).forEach(this::remove);
+        new ArrayList<>(loadIndex.withCard(cardId)).forEach(this::abort);
+    }
+
+    /**
+     * Evicts the snapshots, loaded or being loaded, of a user who has read or unread a card, as they hold the read
+     * status of the cards
+     */
+    public synchronized void onUserRead(String login) {
+        if (login == null)
+            return;
+        new ArrayList<>(snapshotIndex.ofUser(login)).forEach(this::remove);
+        new ArrayList<>(loadIndex.ofUser(login)).forEach(this::abort);
+    }
+
+    public synchronized void clear() {
+        snapshots.clear();
+        snapshotIndex.clear();
+        new ArrayList<>(loads).forEach(this::abort);
+        sizeInBytes = 0;
+    }
+
+    public synchronized int size() {
+        return snapshots.size();
+    }
+
+    public synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    private static boolean mustReceive(CardEvent cardEvent, UserRights userRights) {
+        return CardRoutingUtilities.checkIfUserMustReceiveTheCard(cardEvent, userRights)
+                || CardRoutingUtilities.checkIfUserNeedToReceiveADeleteCardOperation(cardEvent, userRights);
+    }
+
+    private static List<String> processStatesWithReceiveRight(CurrentUserWithPerimeters user) {
+        List<String> processStates = new ArrayList<>();
+        if (user.getComputedPerimeters() != null)
+            user.getComputedPerimeters().forEach(perimeter -> {
+                if (perimeter.getRights() == RightEnum.Receive || perimeter.getRights() == RightEnum.ReceiveAndWrite)
+                    processStates.add(perimeter.getProcess() + "." + perimeter.getState());
+            });
+        return processStates;
+    }
+
+    private void remove(Snapshot snapshot) {
+        if (snapshots.remove(snapshot.key()) == null)
+            return;
+        snapshotIndex.remove(snapshot, snapshot.login(), snapshot.processStatesWithReceiveRight(),
+                snapshot.cardIds());
+        sizeInBytes -= snapshot.sizeInBytes();
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Snapshot> iterator = snapshots.values().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            Snapshot leastRecentlyUsed = iterator.next();
+            log.debug("Evict card snapshot of range {} - {}", leastRecentlyUsed.key().rangeStart(),
+                    leastRecentlyUsed.key().rangeEnd());
+            iterator.remove();
+            snapshotIndex.remove(leastRecentlyUsed, leastRecentlyUsed.login(),
+                    leastRecentlyUsed.processStatesWithReceiveRight(), leastRecentlyUsed.cardIds());
+            sizeInBytes -= leastRecentlyUsed.sizeInBytes();
+        }
+    }
+
+    private static long estimateSize(String cardOperation) {
+        // Strings of json are mostly latin1, stored with one byte per character
+        return cardOperation.length() + (long) CARD_OPERATION_OVERHEAD_IN_BYTES;
+    }
+
+    /**
+     * Snapshots or loads by card id, by process/state with receive right and by login, compared by identity as
+     * their content is large
+     */
+    private static final class Index<T> {
+        private final Map<String, Set<T>> byCardId = new HashMap<>();
+        private final Map<String, Set<T>> byProcessState = new HashMap<>();
+        private final Map<String, Set<T>> byLogin = new HashMap<>();
+
+        void addUser(T entry, String login, Collection<String> processStates) {
+            add(byLogin, login, entry);
+            processStates.forEach(processState -> add(byProcessState, processState, entry));
+        }
+
+        void addCard(T entry, String cardId) {
+            add(byCardId, cardId, entry);
+        }
+
+        void remove(T entry, String login, Collection<String> processStates, Collection<String> cardIds) {
+            remove(byLogin, login, entry);
+            processStates.forEach(processState -> remove(byProcessState, processState, entry));
+            cardIds.forEach(cardId -> remove(byCardId, cardId, entry));
+        }
+
+        Set<T> withCard(String cardId) {
+            return cardId != null ? byCardId.getOrDefault(cardId, Collections.emptySet()) : Collections.emptySet();
+        }
+
+        Set<T> withReceiveRight(String processState) {
+            return byProcessState.getOrDefault(processState, Collections.emptySet());
+        }
+
+        Set<T> ofUser(String login) {
+            return byLogin.getOrDefault(login, Collections.emptySet());
+        }
+
+        void clear() {
+            byCardId.clear();
+            byProcessState.clear();
+            byLogin.clear();
+        }
+
+        private static <T> void add(Map<String, Set<T>> index, String key, T entry) {
+            if (key != null)
+                index.computeIfAbsent(key, k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(entry);
+        }
+
+        private static <T> void remove(Map<String, Set<T>> index, String key, T entry) {
+            Set<T> entries = index.get(key);
+            if (entries != null) {
+                entries.remove(entry);
+                if (entries.isEmpty())
+                    index.remove(key);
+            }
+        }
+    }
+}
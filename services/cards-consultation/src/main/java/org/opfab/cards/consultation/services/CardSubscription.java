@@ -14,14 +14,15 @@ package org.opfab.cards.consultation.services;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import io.micrometer.core.instrument.Counter;
 import lombok.extern.slf4j.Slf4j;
+import org.opfab.cards.consultation.model.CardOperationTypeEnum;
 
 import java.time.Instant;
 
 import org.opfab.springtools.configuration.oauth.UserServiceCache;
 import org.opfab.users.model.CurrentUserWithPerimeters;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
 
 
 @Slf4j
@@ -30,11 +31,12 @@ public class CardSubscription {
 
     private Instant lastHearbeatReceptionDate;
     private CurrentUserWithPerimeters currentUserWithPerimeters;
+    private UserRights userRights;
     @Getter
     private String id;
     @Getter
     private Flux<String> publisher;
-    private FluxSink<String> messageSink;
+    private final SubscriptionBuffer buffer;
 
     private String userLogin;
 
@@ -43,16 +45,22 @@ public class CardSubscription {
 
     /**
      * Constructs a card subscription and init access to AMQP exchanges
+     *
+     * @param bufferSize maximum number of messages waiting to be sent to the client, default size is used if not set
+     * @param slowConsumerPolicy what to do when the client does not consume its messages fast enough
+     * @param coalesceCardOperations if true, an operation on a card replaces the one not yet sent to the client
      */
     @Builder
     public CardSubscription(UserServiceCache userServiceCache, CurrentUserWithPerimeters currentUserWithPerimeters,
-                            String clientId) {
+                            String clientId, int bufferSize, SlowConsumerPolicy slowConsumerPolicy,
+                            boolean coalesceCardOperations, Counter overflowCounter, Counter droppedMessagesCounter) {
         userLogin = currentUserWithPerimeters.getUserData().getLogin();
         this.id = computeSubscriptionId(userLogin, clientId);
         this.currentUserWithPerimeters = currentUserWithPerimeters;
         this.lastHearbeatReceptionDate = Instant.now();
         this.userServiceCache = userServiceCache;
-
+        this.buffer = new SubscriptionBuffer(id, bufferSize, slowConsumerPolicy, coalesceCardOperations,
+                overflowCounter, droppedMessagesCounter);
     }
 
     public String getUserLogin()
@@ -83,6 +91,19 @@ public class CardSubscription {
         return currentUserWithPerimeters;
     }
  
+    /**
+     * Returns the rights of the user, they are computed again only when new perimeters have been fetched for the user
+     */
+    public UserRights getUserRights() {
+        CurrentUserWithPerimeters user = getCurrentUserWithPerimeters();
+        UserRights rights = userRights;
+        if (rights == null || rights.getUser() != user) {
+            rights = new UserRights(user);
+            userRights = rights;
+        }
+        return rights;
+    }
+
     public static String computeSubscriptionId(String prefix, String clientId) {
         return prefix + "#" + clientId;
     }
@@ -91,15 +112,19 @@ public class CardSubscription {
     public void initSubscription(boolean sendReload, Runnable doOnCancel) {
         this.publisher = Flux.create(emitter -> {
             log.info("Create subscription for user {}", userLogin);
-            this.messageSink = emitter;
-            emitter.onRequest(v -> log.debug("Starting subscription for user {}", userLogin));
+            buffer.attach(emitter);
+            emitter.onRequest(v -> {
+                log.debug("Client of user {} requests {} messages", userLogin, v);
+                buffer.drain();
+            });
             emitter.onDispose(() -> {
                 log.info("Disposing subscription for user {}", userLogin);
+                buffer.dispose();
                 doOnCancel.run();
             });
-            emitter.next("INIT");
+            buffer.publish("INIT");
             if (sendReload)
-                emitter.next("RELOAD");
+                buffer.publish(SubscriptionBuffer.RELOAD);
         });
 
     }
@@ -107,12 +132,25 @@ public class CardSubscription {
     
     public void publishDataIntoSubscription(String message)
     {
-        if (this.messageSink != null) this.messageSink.next(message);
+        buffer.publish(message);
     }
 
+    /**
+     * Publishes an operation on a card, pending operations on the same card may be coalesced if the client is too slow
+     */
+    public void publishCardIntoSubscription(String cardId, CardOperationTypeEnum operationType, String message) {
+        buffer.publish(cardId == null || cardId.isEmpty() ? null : cardId, operationType, message);
+    }
+
+    /**
+     * Old cards are read from the source only when there is room for them in the subscription buffer
+     */
     public void publishOldCardsIntoSubscription(Flux<String> messageFlux) {
-        messageFlux.doOnComplete(() -> this.messageSink.next("OLD_CARDS_LOADING_END"))
-            .subscribe(next -> this.messageSink.next(next));
+        buffer.publishWithBackpressure(messageFlux, "OLD_CARDS_LOADING_END");
+    }
+
+    public int getNumberOfPendingMessages() {
+        return buffer.size();
     }
     public void setHeartbeatReceptionDate(Instant date){
         this.lastHearbeatReceptionDate = date;
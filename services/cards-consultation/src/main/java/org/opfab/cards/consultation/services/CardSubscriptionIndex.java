@@ -0,0 +1,201 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opfab.cards.consultation.model.PublisherTypeEnum;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Inverted index of the card subscriptions by user login, group, entity and process/state with receive right.</p>
+ * <p>It is used to find the subscriptions which may be concerned by a card event without evaluating the routing
+ * rules for every subscription. The candidates returned are a superset of the subscriptions really concerned,
+ * the routing rules of {@link CardRoutingUtilities} must still be applied on them.</p>
+ * <p>When the configuration of a user changes, his subscriptions are marked as stale : they are returned as
+ * candidates for every card until they are indexed again with the new perimeters of the user.</p>
+ */
+@Slf4j
+public class CardSubscriptionIndex {
+
+    private record IndexedSubscription(CurrentUserWithPerimeters indexedUser, String login, List<String> groups,
+                                       List<String> entities, List<String> processStateKeys) {
+    }
+
+    private final Map<String, Set<CardSubscription>> subscriptionsByLogin = new HashMap<>();
+    private final Map<String, Set<CardSubscription>> subscriptionsByGroup = new HashMap<>();
+    private final Map<String, Set<CardSubscription>> subscriptionsByEntity = new HashMap<>();
+    private final Map<String, Set<CardSubscription>> subscriptionsByProcessState = new HashMap<>();
+
+    // CardSubscription equality depends on mutable fields, so subscriptions are compared by identity
+    private final Map<CardSubscription, IndexedSubscription> indexedSubscriptions = new IdentityHashMap<>();
+    private final Set<CardSubscription> staleSubscriptions = newSubscriptionSet();
+
+    public synchronized void add(CardSubscription subscription, CurrentUserWithPerimeters currentUserWithPerimeters) {
+        removeFromIndex(subscription);
+        staleSubscriptions.remove(subscription);
+
+        String login = subscription.getUserLogin();
+        List<String> groups = new ArrayList<>();
+        List<String> entities = new ArrayList<>();
+        List<String> processStateKeys = new ArrayList<>();
+
+        if (currentUserWithPerimeters != null && currentUserWithPerimeters.getUserData() != null) {
+            if (currentUserWithPerimeters.getUserData().getGroups() != null)
+                groups.addAll(currentUserWithPerimeters.getUserData().getGroups());
+            if (currentUserWithPerimeters.getUserData().getEntities() != null)
+                entities.addAll(currentUserWithPerimeters.getUserData().getEntities());
+        }
+        if (currentUserWithPerimeters != null && currentUserWithPerimeters.getComputedPerimeters() != null)
+            currentUserWithPerimeters.getComputedPerimeters().forEach(perimeter -> {
+                if (perimeter.getRights() == RightEnum.Receive || perimeter.getRights() == RightEnum.ReceiveAndWrite)
+                    processStateKeys.add(perimeter.getProcess() + "." + perimeter.getState());
+            });
+
+        addToIndex(subscriptionsByLogin, login, subscription);
+        groups.forEach(group -> addToIndex(subscriptionsByGroup, group, subscription));
+        entities.forEach(entity -> addToIndex(subscriptionsByEntity, entity, subscription));
+        processStateKeys.forEach(key -> addToIndex(subscriptionsByProcessState, key, subscription));
+
+        indexedSubscriptions.put(subscription,
+                new IndexedSubscription(currentUserWithPerimeters, login, groups, entities, processStateKeys));
+    }
+
+    public synchronized void remove(CardSubscription subscription) {
+        removeFromIndex(subscription);
+        staleSubscriptions.remove(subscription);
+    }
+
+    /**
+     * Indexes again the subscription if the perimeters of the user are not the ones which have been indexed
+     */
+    public void refresh(CardSubscription subscription, CurrentUserWithPerimeters currentUserWithPerimeters) {
+        synchronized (this) {
+            IndexedSubscription indexedSubscription = indexedSubscriptions.get(subscription);
+            if (indexedSubscription == null || indexedSubscription.indexedUser() == currentUserWithPerimeters)
+                return;
+        }
+        log.debug("Perimeters of user {} have changed, index subscription {} again", subscription.getUserLogin(),
+                subscription.getId());
+        add(subscription, currentUserWithPerimeters);
+    }
+
+    /**
+     * Marks the subscriptions of the user as stale, they will be indexed again on next refresh.
+     * A change not related to a single user (empty login, e.g. a change of entity or of configuration) marks all the
+     * subscriptions as stale.
+     */
+    public synchronized void markAsStale(String login) {
+        if (login == null || login.isEmpty()) {
+            staleSubscriptions.addAll(indexedSubscriptions.keySet());
+            return;
+        }
+        Set<CardSubscription> subscriptions = subscriptionsByLogin.get(login);
+        if (subscriptions != null)
+            staleSubscriptions.addAll(subscriptions);
+    }
+
+    public synchronized void clear() {
+        subscriptionsByLogin.clear();
+        subscriptionsByGroup.clear();
+        subscriptionsByEntity.clear();
+        subscriptionsByProcessState.clear();
+        indexedSubscriptions.clear();
+        staleSubscriptions.clear();
+    }
+
+    /**
+     * Returns the subscriptions which may receive the card or a delete operation for this card
+     */
+    public synchronized Set<CardSubscription> findCandidates(CardEvent cardEvent) {
+        Set<CardSubscription> candidates = newSubscriptionSet();
+        candidates.addAll(staleSubscriptions);
+        if (!cardEvent.hasCard())
+            return candidates;
+
+        Set<CardSubscription> subscriptionsWithReceiveRight = subscriptionsByProcessState
+                .getOrDefault(cardEvent.getProcess() + "." + cardEvent.getState(), Collections.emptySet());
+        if (subscriptionsWithReceiveRight.isEmpty())
+            return candidates;
+
+        // In case of an update, every user with receive right gets either the card or a delete operation
+        if (cardEvent.isUpdate()) {
+            candidates.addAll(subscriptionsWithReceiveRight);
+            return candidates;
+        }
+
+        Set<CardSubscription> recipients = newSubscriptionSet();
+        collect(subscriptionsByLogin, cardEvent.getUserRecipients(), recipients);
+        collect(subscriptionsByGroup, cardEvent.getGroupRecipients(), recipients);
+        collect(subscriptionsByEntity, cardEvent.getEntityRecipients(), recipients);
+        if (cardEvent.getPublisher() != null) {
+            if (PublisherTypeEnum.ENTITY.toString().equals(cardEvent.getPublisherType()))
+                collect(subscriptionsByEntity, List.of(cardEvent.getPublisher()), recipients);
+            else if (PublisherTypeEnum.USER.toString().equals(cardEvent.getPublisherType()))
+                collect(subscriptionsByLogin, List.of(cardEvent.getPublisher()), recipients);
+        }
+        recipients.retainAll(subscriptionsWithReceiveRight);
+        candidates.addAll(recipients);
+        return candidates;
+    }
+
+    public synchronized boolean isStale(CardSubscription subscription) {
+        return staleSubscriptions.contains(subscription);
+    }
+
+    private static Set<CardSubscription> newSubscriptionSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
+
+    private static void collect(Map<String, Set<CardSubscription>> index, Collection<String> keys,
+                                Set<CardSubscription> result) {
+        keys.forEach(key -> {
+            Set<CardSubscription> subscriptions = index.get(key);
+            if (subscriptions != null)
+                result.addAll(subscriptions);
+        });
+    }
+
+    private static void addToIndex(Map<String, Set<CardSubscription>> index, String key,
+                                   CardSubscription subscription) {
+        if (key != null)
+            index.computeIfAbsent(key, k -> newSubscriptionSet()).add(subscription);
+    }
+
+    private static void removeFromIndex(Map<String, Set<CardSubscription>> index, String key,
+                                        CardSubscription subscription) {
+        Set<CardSubscription> subscriptions = index.get(key);
+        if (subscriptions != null) {
+            subscriptions.remove(subscription);
+            if (subscriptions.isEmpty())
+                index.remove(key);
+        }
+    }
+
+    private void removeFromIndex(CardSubscription subscription) {
+        IndexedSubscription indexedSubscription = indexedSubscriptions.remove(subscription);
+        if (indexedSubscription == null)
+            return;
+        removeFromIndex(subscriptionsByLogin, indexedSubscription.login(), subscription);
+        indexedSubscription.groups().forEach(group -> removeFromIndex(subscriptionsByGroup, group, subscription));
+        indexedSubscription.entities().forEach(entity -> removeFromIndex(subscriptionsByEntity, entity, subscription));
+        indexedSubscription.processStateKeys()
+                .forEach(key -> removeFromIndex(subscriptionsByProcessState, key, subscription));
+    }
+}
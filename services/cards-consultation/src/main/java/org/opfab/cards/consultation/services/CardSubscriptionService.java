@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -9,23 +9,36 @@
 
 package org.opfab.cards.consultation.services;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import net.minidev.json.parser.JSONParser;
 import net.minidev.json.parser.ParseException;
+import org.opfab.cards.consultation.model.CardOperationTypeEnum;
 import org.opfab.useractiontracing.model.UserActionEnum;
 import org.opfab.useractiontracing.services.UserActionLogService;
 import org.opfab.springtools.configuration.oauth.UserServiceCache;
 import org.opfab.users.model.CurrentUserWithPerimeters;
 import org.opfab.utilities.eventbus.EventBus;
+import org.opfab.utilities.eventbus.EventKeys;
 import org.opfab.utilities.eventbus.EventListener;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
@@ -34,12 +47,20 @@ public class CardSubscriptionService implements EventListener {
     @Value("${operatorfabric.checkIfUserIsAlreadyConnected:true}")
     private boolean checkIfUserIsAlreadyConnected;
 
-    private static final String ERROR_MESSAGE_PARSING = "ERROR during received message parsing";
-    private final long heartbeatDelay;
     private final long heartbeatDelayInSecondsToConsiderUserDisconnected;
+    private final SubscriptionLivenessTracker livenessTracker;
+    private final Disposable heartbeat;
+    private final Disposable heartbeatCheck;
 
-    private final long heartbeatCheckIntervalInSeconds;
     private Map<String, CardSubscription> cache = new ConcurrentHashMap<>();
+    // Ids of the subscriptions of each user, updated under the lock of the login entry together with the cache
+    private final Map<String, Set<String>> subscriptionIdsByLogin = new ConcurrentHashMap<>();
+    private final CardSubscriptionIndex subscriptionIndex = new CardSubscriptionIndex();
+    private final CardSnapshotCache cardSnapshotCache;
+
+    // When activated, every card is also routed using the full scan of the subscriptions to check the index
+    @Value("${operatorfabric.cardRouting.checkIndex:false}")
+    private boolean checkRoutingIndex;
 
 
     protected UserServiceCache userServiceCache;
@@ -47,11 +68,25 @@ public class CardSubscriptionService implements EventListener {
 
     private @Value("${operatorfabric.userActionLogActivated:true}") boolean userActionLogActivated;
 
+    @Value("${operatorfabric.subscription.bufferSize:5000}")
+    private int subscriptionBufferSize;
+    @Value("${operatorfabric.subscription.slowConsumerPolicy:RELOAD}")
+    private SlowConsumerPolicy slowConsumerPolicy;
+    @Value("${operatorfabric.subscription.coalesceCardOperations:false}")
+    private boolean coalesceCardOperations;
+
+    private final Counter subscriptionOverflowCounter;
+    private final Counter droppedMessagesCounter;
+    private final Timer livenessSweepTimer;
+    private final Counter heartbeatEvictionsCounter;
+
 
     public CardSubscriptionService(
                                     UserServiceCache userServiceCache,
                                     UserActionLogService userActionLogService,
                                     EventBus eventBus,
+                                    ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                    CardSnapshotCache cardSnapshotCache,
                                     @Value("${operatorfabric.heartbeat.checkIntervalInSeconds:10}")
                                     long heartbeatCheckIntervalInSeconds,
                                     @Value("${operatorfabric.heartbeat.delayInSecondsToConsiderUserDisconnected:100}")
@@ -60,87 +95,80 @@ public class CardSubscriptionService implements EventListener {
                                     long heartbeatDelay) {
         this.userServiceCache = userServiceCache;
         this.userActionLogService = userActionLogService;
+        this.cardSnapshotCache = cardSnapshotCache;
 
         eventBus.addListener("card",this);
         eventBus.addListener("process",this);
         eventBus.addListener("user",this);
         eventBus.addListener("ack",this);
-        
-        this.heartbeatDelay = heartbeatDelay;
-        this.heartbeatDelayInSecondsToConsiderUserDisconnected = heartbeatDelayInSecondsToConsiderUserDisconnected;
-        this.heartbeatCheckIntervalInSeconds = heartbeatCheckIntervalInSeconds;
-        Thread heartbeat = new Thread(){
-            @Override
-            public void run(){
-                sendHeartbeatMessageInAllSubscriptions();
-            }
-          };
-        Thread heartbeatFromFront = new Thread(){
-        @Override
-        public void run(){
-            compareLastHeartbeatReceived();
-        }
-        };
-        
-        heartbeat.start();
-        heartbeatFromFront.start();
+        eventBus.addListener(EventKeys.USER_READ, this);
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        Gauge.builder("opfab.subscriptions.pendingMessages", this, service -> service.getNumberOfPendingMessages(false))
+                .description("Number of messages waiting to be sent in all the subscriptions")
+                .register(meterRegistry);
+        Gauge.builder("opfab.subscriptions.pendingMessages.max", this, service -> service.getNumberOfPendingMessages(true))
+                .description("Maximum number of messages waiting to be sent in one subscription")
+                .register(meterRegistry);
+        subscriptionOverflowCounter = Counter.builder("opfab.subscriptions.overflows")
+                .description("Number of times a subscription buffer has been full")
+                .register(meterRegistry);
+        droppedMessagesCounter = Counter.builder("opfab.subscriptions.droppedMessages")
+                .description("Number of messages dropped because a subscription buffer was full")
+                .register(meterRegistry);
+
+        livenessSweepTimer = Timer.builder("opfab.subscriptions.heartbeatCheck")
+                .description("Duration of the check of the heartbeats received from the subscriptions")
+                .register(meterRegistry);
+        heartbeatEvictionsCounter = Counter.builder("opfab.subscriptions.heartbeatEvictions")
+                .description("Number of subscriptions evicted because no heartbeat has been received")
+                .register(meterRegistry);
 
+        this.heartbeatDelayInSecondsToConsiderUserDisconnected = heartbeatDelayInSecondsToConsiderUserDisconnected;
+        this.livenessTracker = new SubscriptionLivenessTracker(heartbeatDelayInSecondsToConsiderUserDisconnected);
+
+        this.heartbeat = Flux.interval(Duration.ofMillis(heartbeatDelay), Schedulers.parallel())
+                .onBackpressureDrop()
+                .subscribe(tick -> sendHeartbeatMessageInAllSubscriptions());
+        // Heartbeat check evicts subscriptions and logs user actions, so it runs on a scheduler allowing blocking calls
+        this.heartbeatCheck = Flux.interval(Duration.ofSeconds(heartbeatCheckIntervalInSeconds), Schedulers.boundedElastic())
+                .onBackpressureDrop()
+                .subscribe(tick -> evictSubscriptionsWithoutHeartbeat());
     }
 
+    @PreDestroy
+    public void stopHeartbeat() {
+        heartbeat.dispose();
+        heartbeatCheck.dispose();
+    }
 
-    private void sendHeartbeatMessageInAllSubscriptions()
-    {
-        for(;;)
-        {
-            try
-                {
-                Thread.sleep(heartbeatDelay);
-                }
-                catch (InterruptedException ex)
-                {
-                    log.error("Impossible to launch heartbeat ",ex);
-                    Thread.currentThread().interrupt(); // Cf sonar java:S2142 "InterruptedException" should not be ignored
-                    return; 
-                }
-            log.debug("Send heartbeat to all subscription");
-            cache.keySet().forEach(key -> {
-                CardSubscription sub = cache.get(key); 
-                if (sub != null) // subscription can be null if it has been evicted during the process of going throw the keys
-                {
-                    log.debug("Send heartbeat to {}",key);
-                    sub.publishDataIntoSubscription("HEARTBEAT");
-                }
-            });
-        }
+    private void sendHeartbeatMessageInAllSubscriptions() {
+        log.debug("Send heartbeat to all subscription");
+        cache.values().forEach(sub -> {
+            try {
+                sub.publishDataIntoSubscription(SubscriptionBuffer.HEARTBEAT);
+            } catch (Exception exc) {
+                // an exception must neither stop the periodic heartbeat nor the heartbeat of the other subscriptions
+                log.error("Error when sending heartbeat to subscription {}", sub.getId(), exc);
+            }
+        });
     }
 
-    private void compareLastHeartbeatReceived()
-    {
-        for(;;)
-        {
-            try
-                {
-                Thread.sleep(heartbeatCheckIntervalInSeconds*1000);
-                }
-                catch (InterruptedException ex)
-                {
-                    log.error("Impossible to read receiving heartbeats",ex);
-                    Thread.currentThread().interrupt(); // Cf sonar java:S2142 "InterruptedException" should not be ignored
-                    return; 
-                }
-            log.debug("Comparing last heartbeat received");
-            cache.keySet().forEach(key -> {
-                CardSubscription sub = cache.get(key); 
-                if (sub != null) // subscription can be null if it has been evicted during the process of going throw the keys
-                {
-                    log.debug("Time since last heart beat : {}", Instant.now().getEpochSecond() - sub.getHeartbeatReceptionDate().getEpochSecond());
-                    if (Instant.now().getEpochSecond() - sub.getHeartbeatReceptionDate().getEpochSecond()  > heartbeatDelayInSecondsToConsiderUserDisconnected) {
-                        log.info("User with subscription id  {}  has not sent heartbeat for more than {} seconds and got disconnected", sub.getId(), heartbeatDelayInSecondsToConsiderUserDisconnected) ; 
-                        this.evictSubscription(sub.getId());                
-                    }
-                }
+    private void evictSubscriptionsWithoutHeartbeat() {
+        try {
+            List<CardSubscription> expiredSubscriptions = livenessSweepTimer
+                    .record(() -> livenessTracker.pollExpiredSubscriptions(Instant.now()));
+            expiredSubscriptions.forEach(sub -> {
+                // subscription may have been already evicted or replaced by a new one with the same id
+                if (cache.get(sub.getId()) != sub)
+                    return;
+                log.info("User with subscription id  {}  has not sent heartbeat for more than {} seconds and got disconnected", sub.getId(), heartbeatDelayInSecondsToConsiderUserDisconnected);
+                heartbeatEvictionsCounter.increment();
+                this.evictSubscription(sub.getId());
             });
-
+        } catch (Exception exc) {
+            // an exception must not stop the periodic check
+            log.error("Error when checking heartbeats of subscriptions", exc);
         }
     }
 
@@ -176,12 +204,21 @@ public class CardSubscriptionService implements EventListener {
         CardSubscription.CardSubscriptionBuilder cardSubscriptionBuilder = CardSubscription.builder()
                 .currentUserWithPerimeters(currentUserWithPerimeters)
                 .userServiceCache(userServiceCache)
-                .clientId(clientId);
+                .clientId(clientId)
+                .bufferSize(subscriptionBufferSize)
+                .slowConsumerPolicy(slowConsumerPolicy)
+                .coalesceCardOperations(coalesceCardOperations)
+                .overflowCounter(subscriptionOverflowCounter)
+                .droppedMessagesCounter(droppedMessagesCounter);
         CardSubscription cardSubscription;
         cardSubscription = cardSubscriptionBuilder.build();
 
         cardSubscription.initSubscription(sendReload, () -> evictSubscription(subId));
-        cache.put(subId, cardSubscription);
+        CardSubscription previousSubscription = putInCache(cardSubscription);
+        if (previousSubscription != null)
+            subscriptionIndex.remove(previousSubscription);
+        subscriptionIndex.add(cardSubscription, cardSubscription.getCurrentUserWithPerimeters());
+        livenessTracker.track(cardSubscription);
         log.info("Subscription created with id {} for user {} ", cardSubscription.getId(), cardSubscription.getUserLogin());
 
         String cardSubscriptionId = cardSubscription.getId().split("#")[1];
@@ -193,11 +230,9 @@ public class CardSubscriptionService implements EventListener {
 
 
     private void disconnectAllUsersWithSameLogin(String userLogin) {
-        cache.keySet().forEach(key -> {
+        getSubscriptionIds(userLogin).forEach(key -> {
             CardSubscription sub = cache.get(key);
-            boolean isSameLogin = sub != null && userLogin.equals(sub.getUserLogin());
-
-            if (isSameLogin)  {
+            if (sub != null)  {
                 log.info("Send disconnection request message to {}",key);
                 sub.publishDataIntoSubscription("DISCONNECT_USER_DUE_TO_NEW_CONNECTION");
             }
@@ -206,8 +241,35 @@ public class CardSubscriptionService implements EventListener {
     }
 
     private boolean isUserAlreadyConnected(String userLogin) {
-        Optional<CardSubscription> userSubscription = cache.values().stream().filter(sub -> sub.getUserLogin().equals(userLogin)).findFirst();
-        return userSubscription.isPresent();
+        return subscriptionIdsByLogin.containsKey(userLogin);
+    }
+
+    public Set<String> getSubscriptionIds(String userLogin) {
+        return subscriptionIdsByLogin.getOrDefault(userLogin, Collections.emptySet());
+    }
+
+    private CardSubscription putInCache(CardSubscription subscription) {
+        AtomicReference<CardSubscription> previousSubscription = new AtomicReference<>();
+        subscriptionIdsByLogin.compute(subscription.getUserLogin(), (login, ids) -> {
+            previousSubscription.set(cache.put(subscription.getId(), subscription));
+            Set<String> newIds = ids != null ? new HashSet<>(ids) : new HashSet<>();
+            newIds.add(subscription.getId());
+            return Set.copyOf(newIds);
+        });
+        return previousSubscription.get();
+    }
+
+    private CardSubscription removeFromCache(String login, String subId) {
+        AtomicReference<CardSubscription> removedSubscription = new AtomicReference<>();
+        subscriptionIdsByLogin.compute(login, (key, ids) -> {
+            removedSubscription.set(cache.remove(subId));
+            if (ids == null)
+                return null;
+            Set<String> newIds = new HashSet<>(ids);
+            newIds.remove(subId);
+            return newIds.isEmpty() ? null : Set.copyOf(newIds);
+        });
+        return removedSubscription.get();
     }
 
     public void deleteSubscription(String login, String clientId) {
@@ -217,11 +279,13 @@ public class CardSubscriptionService implements EventListener {
     public void evictSubscription(String subId) {
         
         CardSubscription sub = cache.get(subId);
+        if (sub != null)
+            sub = removeFromCache(sub.getUserLogin(), subId);
         if (sub == null) {
             log.info("Subscription with id {} already evicted , as it is not existing anymore ", subId);
             return;
         }
-        cache.remove(subId); 
+        subscriptionIndex.remove(sub);
         log.info("Subscription with id {} evicted (user {})", subId , sub.getUserLogin());
 
         String cardSubscriptionId = subId.split("#")[1];
@@ -247,51 +311,60 @@ public class CardSubscriptionService implements EventListener {
     // only use for testing purpose
     public void clearSubscriptions() {
         this.cache.clear();
+        this.subscriptionIdsByLogin.clear();
+        this.subscriptionIndex.clear();
+        this.livenessTracker.clear();
     }
 
     public Collection<CardSubscription> getSubscriptions() {
         return cache.values();
     }
 
-    private void processNewCard(String cardOperationAsString, CardSubscription subscription) {
-        JSONObject cardOperation;
-        try {
-            cardOperation = (JSONObject) (new JSONParser(JSONParser.MODE_PERMISSIVE)).parse(cardOperationAsString);
-        } catch (ParseException e) {
-            log.error(ERROR_MESSAGE_PARSING, e);
-            return;
+    private double getNumberOfPendingMessages(boolean maxPerSubscription) {
+        int result = 0;
+        for (CardSubscription subscription : cache.values()) {
+            int pendingMessages = subscription.getNumberOfPendingMessages();
+            result = maxPerSubscription ? Math.max(result, pendingMessages) : result + pendingMessages;
         }
+        return result;
+    }
 
-        if (CardRoutingUtilities.checkIfUserMustReceiveTheCard(cardOperation,
-                subscription.getCurrentUserWithPerimeters())) {
-            publishCard(cardOperation, subscription);
-        }
-        else {
-            publishCardDelete(cardOperation, subscription);
-        }
+    private void processNewCard(String cardOperationAsString) {
+        CardEvent cardEvent = CardEvent.parse(cardOperationAsString);
+        if (cardEvent == null)
+            return;
+        cardSnapshotCache.onCardEvent(cardEvent);
+        Set<CardSubscription> candidates = subscriptionIndex.findCandidates(cardEvent);
+        log.debug("Card {} routed to {} candidate subscriptions out of {}", cardEvent.getCardId(), candidates.size(), cache.size());
+        candidates.forEach(subscription -> processNewCard(cardEvent, subscription));
+        if (checkRoutingIndex)
+            checkSubscriptionsNotInCandidates(cardEvent, candidates);
     }
 
-    private void publishCard(JSONObject cardOperation, CardSubscription subscription) {
-        if (cardOperation.get("type").equals("UPDATE")) { //for the front an update is considered as an ADD
-            cardOperation.put("type", "ADD");
-
-            JSONObject cardObj = (JSONObject) cardOperation.get("card");
-            JSONArray usersAcks =(JSONArray) cardObj.get("usersAcks");
-            JSONArray usersReads =(JSONArray) cardObj.get("usersReads");
-            if (usersReads != null && usersReads.contains(subscription.getUserLogin()))
-                cardObj.put("hasBeenRead", "true");
-            if (usersAcks != null && usersAcks.contains(subscription.getUserLogin()))
-                cardObj.put("hasBeenAcknowledged", "true");
-        }
-        subscription.publishDataIntoSubscription(cardOperation.toJSONString());
+    private void checkSubscriptionsNotInCandidates(CardEvent cardEvent, Set<CardSubscription> candidates) {
+        cache.values().forEach(subscription -> {
+            if (candidates.contains(subscription))
+                return;
+            UserRights userRights = subscription.getUserRights();
+            if (CardRoutingUtilities.checkIfUserMustReceiveTheCard(cardEvent, userRights)
+                    || CardRoutingUtilities.checkIfUserNeedToReceiveADeleteCardOperation(cardEvent, userRights)) {
+                log.error("Card routing index has not selected subscription {} for card {}", subscription.getId(), cardEvent.getCardId());
+                processNewCard(cardEvent, subscription);
+            }
+        });
     }
 
-    private void publishCardDelete(JSONObject cardOperation, CardSubscription subscription) {
-        if (CardRoutingUtilities.checkIfUserNeedToReceiveADeleteCardOperation(cardOperation,subscription.getCurrentUserWithPerimeters())) { 
-            cardOperation.replace("type", "DELETE");
-            cardOperation.replace("card","");
-            subscription.publishDataIntoSubscription(cardOperation.toJSONString());
-        } 
+    private void processNewCard(CardEvent cardEvent, CardSubscription subscription) {
+        UserRights userRights = subscription.getUserRights();
+        subscriptionIndex.refresh(subscription, userRights.getUser());
+        if (CardRoutingUtilities.checkIfUserMustReceiveTheCard(cardEvent, userRights)) {
+            subscription.publishCardIntoSubscription(cardEvent.getCardId(), cardEvent.getOperationType(),
+                    cardEvent.getPayloadForUser(subscription.getUserLogin()));
+        }
+        else if (CardRoutingUtilities.checkIfUserNeedToReceiveADeleteCardOperation(cardEvent, userRights)) {
+            subscription.publishCardIntoSubscription(cardEvent.getCardId(), CardOperationTypeEnum.DELETE,
+                    cardEvent.getDeletePayload());
+        }
     }
 
     public void postMessageToSubscriptions(String message) {
@@ -301,6 +374,17 @@ public class CardSubscriptionService implements EventListener {
         });
     }
 
+    private static String extractCardId(String cardOperation) {
+        try {
+            Object parsed = new JSONParser(JSONParser.MODE_PERMISSIVE).parse(cardOperation);
+            if (parsed instanceof JSONObject operation && operation.get("cardId") != null)
+                return operation.get("cardId").toString();
+        } catch (ParseException e) {
+            log.error("ERROR during received message parsing", e);
+        }
+        return null;
+    }
+
     private void logUserAction(String login, UserActionEnum actionType, List<String> entities, String cardUid, String comment) {
         if (userActionLogActivated) userActionLogService.insertUserActionLog(login,  actionType, entities, cardUid, comment);
     }
@@ -310,14 +394,22 @@ public class CardSubscriptionService implements EventListener {
     public void onEvent(String eventKey, String message) {
         log.debug("receive event {} with message {}", eventKey, message);
         switch (eventKey) {
-            case "process","ack":
+            case "process":
                 cache.values().forEach(subscription -> subscription.publishDataIntoSubscription(message));
                 break;
+            case "ack":
+                cardSnapshotCache.onCardChange(extractCardId(message));
+                cache.values().forEach(subscription -> subscription.publishDataIntoSubscription(message));
+                break;
+            case EventKeys.USER_READ:
+                cardSnapshotCache.onUserRead(message);
+                break;
             case "user":
+                subscriptionIndex.markAsStale(message);
                 cache.values().forEach(subscription -> subscription.publishDataIntoSubscription("USER_CONFIG_CHANGE"));
                 break;
             case "card":
-                cache.values().forEach(subscription -> processNewCard(message, subscription));
+                processNewCard(message);
                 break;
             default:
                 log.info("unrecognized event {}" , eventKey);
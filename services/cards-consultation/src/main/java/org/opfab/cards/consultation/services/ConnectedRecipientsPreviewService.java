@@ -36,9 +36,10 @@ public class ConnectedRecipientsPreviewService {
         cardTotalRecipients.addAll(cardRecipientsForInformation);
         Collection<CardSubscription> connections = this.cardSubscriptionService.getSubscriptions();
         for (CardSubscription cardSubscription : connections) {
-            CurrentUserWithPerimeters userWithPerimeters = cardSubscription.getCurrentUserWithPerimeters();
+            UserRights userRights = cardSubscription.getUserRights();
+            CurrentUserWithPerimeters userWithPerimeters = userRights.getUser();
             if (CardRoutingUtilities.checkIfUserMustReceiveTheCard(
-                    userWithPerimeters,
+                    userRights,
                     lightcard.getId(),
                     lightcard.getProcess(),
                     lightcard.getState(),
@@ -0,0 +1,89 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * <p>Signature of the data of a user used to select the cards of the feed : login, groups, entities, process/states
+ * with receive right and process/states not notified.</p>
+ * <p>Two users with the same signature see the same cards, whatever the order of their groups or perimeters.</p>
+ * <p>The perimeter signature leaves out the login: users with the same perimeter signature receive the same cards
+ * sent to groups and entities.</p>
+ */
+public final class PerimeterSignature {
+
+    private static final char SEPARATOR = '\u001f';
+
+    private PerimeterSignature() {
+    }
+
+    public static String of(CurrentUserWithPerimeters currentUserWithPerimeters) {
+        StringBuilder canonicalForm = new StringBuilder();
+        canonicalForm.append(currentUserWithPerimeters.getUserData().getLogin()).append(SEPARATOR);
+        appendPerimeter(canonicalForm, currentUserWithPerimeters);
+        return hash(canonicalForm.toString());
+    }
+
+    public static String ofPerimeter(CurrentUserWithPerimeters currentUserWithPerimeters) {
+        StringBuilder canonicalForm = new StringBuilder();
+        appendPerimeter(canonicalForm, currentUserWithPerimeters);
+        return hash(canonicalForm.toString());
+    }
+
+    private static void appendPerimeter(StringBuilder canonicalForm,
+                                        CurrentUserWithPerimeters currentUserWithPerimeters) {
+        appendSorted(canonicalForm, currentUserWithPerimeters.getUserData().getGroups());
+        appendSorted(canonicalForm, currentUserWithPerimeters.getUserData().getEntities());
+
+        List<String> processStatesWithReceiveRight = new ArrayList<>();
+        if (currentUserWithPerimeters.getComputedPerimeters() != null)
+            currentUserWithPerimeters.getComputedPerimeters().forEach(perimeter -> {
+                if (perimeter.getRights() == RightEnum.Receive || perimeter.getRights() == RightEnum.ReceiveAndWrite)
+                    processStatesWithReceiveRight.add(perimeter.getProcess() + "." + perimeter.getState());
+            });
+        appendSorted(canonicalForm, processStatesWithReceiveRight);
+
+        Map<String, List<String>> processesStatesNotNotified = currentUserWithPerimeters.getProcessesStatesNotNotified();
+        if (processesStatesNotNotified != null)
+            new TreeMap<>(processesStatesNotNotified).forEach((process, states) -> {
+                canonicalForm.append(process).append(SEPARATOR);
+                appendSorted(canonicalForm, states);
+            });
+    }
+
+    private static void appendSorted(StringBuilder canonicalForm, Collection<String> values) {
+        if (values != null)
+            new TreeSet<>(values).forEach(value -> canonicalForm.append(value).append(SEPARATOR));
+        canonicalForm.append(SEPARATOR);
+    }
+
+    private static String hash(String canonicalForm) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonicalForm.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available in every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+/**
+ * Behavior of a subscription when its buffer is full because the client does not consume its messages fast enough
+ */
+public enum SlowConsumerPolicy {
+    /** Drop the pending messages and ask the client to reload */
+    RELOAD,
+    /** Replace the pending operations of the same card by the new one, reload if it is not enough */
+    COALESCE,
+    /** Close the subscription */
+    DISCONNECT
+}
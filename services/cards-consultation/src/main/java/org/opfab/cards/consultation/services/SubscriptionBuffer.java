@@ -0,0 +1,388 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.opfab.cards.consultation.model.CardOperationTypeEnum;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Bounded buffer of the messages waiting to be sent to the client of a subscription.</p>
+ * <p>Messages are emitted in the subscription sink only when the client has requested them. When the client does
+ * not consume its messages fast enough and the buffer is full, the {@link SlowConsumerPolicy} is applied.</p>
+ * <p>Messages coming from a finite source (e.g. the loading of the cards already published) are pulled from this
+ * source only when there is room in the buffer, so they never trigger the slow consumer policy.</p>
+ * <p>When coalescing of card operations is activated, a new operation on a card replaces the operation on the same
+ * card still waiting in the buffer, and the creation of a card followed by its deletion are both dropped. The
+ * operations keep the order in which their last version has been published, and a message not related to a card
+ * (e.g. an acknowledgment) is never overtaken by an operation published after it. Heartbeats have no order
+ * relative to the card operations and do not prevent coalescing.</p>
+ */
+@Slf4j
+public class SubscriptionBuffer {
+
+    public static final String RELOAD = "RELOAD";
+    public static final String HEARTBEAT = "HEARTBEAT";
+    public static final int DEFAULT_MAX_SIZE = 5000;
+
+    private static final class PendingMessage {
+        private final String cardId;
+        private final String payload;
+        // the card has been created after the last message sent to the client
+        private final boolean cardUnknownByClient;
+        private boolean cancelled;
+
+        private PendingMessage(String cardId, String payload, boolean cardUnknownByClient) {
+            this.cardId = cardId;
+            this.payload = payload;
+            this.cardUnknownByClient = cardUnknownByClient;
+        }
+    }
+
+    private final String subscriptionId;
+    private final int maxSize;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final boolean coalesceCardOperations;
+    private final Counter overflowCounter;
+    private final Counter droppedMessagesCounter;
+
+    // Cancelled messages are kept in the queue until they are polled, pendingMessagesCount does not include them
+    private final Deque<PendingMessage> queue = new ArrayDeque<>();
+    private final Map<String, PendingMessage> coalescableCardOperations = new HashMap<>();
+    private int pendingMessagesCount;
+    private final List<SourceSubscriber> sources = new ArrayList<>();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile FluxSink<String> sink;
+    private boolean reloadPending;
+    private boolean closed;
+    private boolean completed;
+
+    /**
+     * @param coalesceCardOperations if true, pending operations on a card are replaced by the newer ones
+     * @param overflowCounter        counter of the slow consumer policy activations, may be null
+     * @param droppedMessagesCounter counter of the messages dropped, may be null
+     */
+    public SubscriptionBuffer(String subscriptionId, int maxSize, SlowConsumerPolicy slowConsumerPolicy,
+                              boolean coalesceCardOperations, Counter overflowCounter, Counter droppedMessagesCounter) {
+        this.subscriptionId = subscriptionId;
+        this.maxSize = maxSize > 0 ? Math.max(2, maxSize) : DEFAULT_MAX_SIZE;
+        this.slowConsumerPolicy = slowConsumerPolicy != null ? slowConsumerPolicy : SlowConsumerPolicy.RELOAD;
+        this.coalesceCardOperations = coalesceCardOperations;
+        this.overflowCounter = overflowCounter;
+        this.droppedMessagesCounter = droppedMessagesCounter;
+    }
+
+    public void attach(FluxSink<String> sink) {
+        this.sink = sink;
+    }
+
+    public synchronized int size() {
+        return pendingMessagesCount;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void publish(String message) {
+        publish(null, null, message);
+    }
+
+    /**
+     * Adds an operation on a card to the buffer
+     *
+     * @param cardId        id of the card, used to coalesce the operations on the same card
+     * @param operationType type of the operation published to the event bus
+     */
+    public void publish(String cardId, CardOperationTypeEnum operationType, String message) {
+        synchronized (this) {
+            if (sink == null || closed)
+                return;
+            if (reloadPending) {
+                countDroppedMessages(1);
+                return;
+            }
+            boolean cardUnknownByClient = operationType == CardOperationTypeEnum.ADD;
+            if (coalesceCardOperations && cardId != null) {
+                PendingMessage previousOperation = coalescableCardOperations.get(cardId);
+                if (previousOperation != null) {
+                    cancel(previousOperation);
+                    cardUnknownByClient = previousOperation.cardUnknownByClient;
+                    // The client does not need to know about a card created and deleted in the meantime
+                    if (cardUnknownByClient && operationType == CardOperationTypeEnum.DELETE) {
+                        countDroppedMessages(1);
+                        return;
+                    }
+                }
+            }
+            if (pendingMessagesCount >= maxSize && !handleOverflow(cardId, message))
+                return;
+            append(cardId, message, cardUnknownByClient);
+        }
+        drain();
+    }
+
+    /**
+     * Sends the messages of a finite source, pulling them only when there is room in the buffer
+     *
+     * @param endMessage message sent when the source completes
+     */
+    public void publishWithBackpressure(Flux<String> messages, String endMessage) {
+        messages.subscribe(new SourceSubscriber(endMessage));
+    }
+
+    /**
+     * Emits the buffered messages as long as the client requests them
+     */
+    public void drain() {
+        if (wip.getAndIncrement() != 0)
+            return;
+        int missed = 1;
+        for (;;) {
+            FluxSink<String> currentSink = sink;
+            if (currentSink != null) {
+                while (currentSink.requestedFromDownstream() > 0) {
+                    String payload = poll();
+                    if (payload == null)
+                        break;
+                    currentSink.next(payload);
+                }
+                requestFromSources();
+                if (mustComplete())
+                    currentSink.complete();
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0)
+                break;
+        }
+    }
+
+    /**
+     * Releases the buffered messages when the subscription is disposed
+     */
+    public void dispose() {
+        List<SourceSubscriber> sourcesToCancel;
+        synchronized (this) {
+            closed = true;
+            completed = true;
+            queue.clear();
+            coalescableCardOperations.clear();
+            pendingMessagesCount = 0;
+            sourcesToCancel = new ArrayList<>(sources);
+            sources.clear();
+        }
+        sourcesToCancel.forEach(BaseSubscriber::dispose);
+    }
+
+    private void append(String cardId, String message, boolean cardUnknownByClient) {
+        PendingMessage pendingMessage = new PendingMessage(cardId, message, cardUnknownByClient);
+        queue.add(pendingMessage);
+        pendingMessagesCount++;
+        if (queue.size() > 2 * maxSize)
+            queue.removeIf(pending -> pending.cancelled);
+        if (!coalesceCardOperations)
+            return;
+        if (cardId != null)
+            coalescableCardOperations.put(cardId, pendingMessage);
+        else if (!HEARTBEAT.equals(message))
+            // Operations published before a message not related to a card must stay before it
+            coalescableCardOperations.clear();
+    }
+
+    private void cancel(PendingMessage pendingMessage) {
+        pendingMessage.cancelled = true;
+        pendingMessagesCount--;
+        if (pendingMessage.cardId != null)
+            coalescableCardOperations.remove(pendingMessage.cardId, pendingMessage);
+        countDroppedMessages(1);
+    }
+
+    private void clearPendingMessages() {
+        countDroppedMessages(pendingMessagesCount);
+        queue.clear();
+        coalescableCardOperations.clear();
+        pendingMessagesCount = 0;
+    }
+
+    private synchronized String poll() {
+        PendingMessage message = queue.poll();
+        while (message != null && message.cancelled)
+            message = queue.poll();
+        if (message != null) {
+            pendingMessagesCount--;
+            if (message.cardId != null)
+                coalescableCardOperations.remove(message.cardId, message);
+        }
+        if (pendingMessagesCount == 0)
+            reloadPending = false;
+        return message != null ? message.payload : null;
+    }
+
+    private synchronized boolean mustComplete() {
+        if (closed && !completed && pendingMessagesCount == 0) {
+            completed = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the new message must still be added to the buffer
+     */
+    private boolean handleOverflow(String cardId, String message) {
+        if (overflowCounter != null)
+            overflowCounter.increment();
+        switch (slowConsumerPolicy) {
+            case COALESCE:
+                if (coalesce(cardId, message))
+                    return true;
+                log.warn("Subscription {} is full and cannot be coalesced, request client to reload", subscriptionId);
+                requestReload();
+                return false;
+            case DISCONNECT:
+                log.warn("Subscription {} is full, client is disconnected", subscriptionId);
+                closeAfterOverflow();
+                return false;
+            default:
+                log.warn("Subscription {} is full, request client to reload", subscriptionId);
+                requestReload();
+                return false;
+        }
+    }
+
+    private boolean coalesce(String cardId, String message) {
+        int sizeBeforeCoalescing = pendingMessagesCount;
+        for (PendingMessage pending : queue) {
+            boolean sameMessage = cardId != null ? cardId.equals(pending.cardId)
+                    : pending.cardId == null && message.equals(pending.payload);
+            if (sameMessage && !pending.cancelled)
+                cancel(pending);
+        }
+        return pendingMessagesCount < sizeBeforeCoalescing;
+    }
+
+    private void requestReload() {
+        clearPendingMessages();
+        cancelSources();
+        append(null, RELOAD, false);
+        reloadPending = true;
+    }
+
+    private void closeAfterOverflow() {
+        clearPendingMessages();
+        cancelSources();
+        closed = true;
+    }
+
+    private void cancelSources() {
+        sources.forEach(BaseSubscriber::dispose);
+        sources.clear();
+    }
+
+    private void countDroppedMessages(int count) {
+        if (droppedMessagesCounter != null && count > 0)
+            droppedMessagesCounter.increment(count);
+    }
+
+    private void requestFromSources() {
+        List<SourceSubscriber> sourcesToRequest;
+        int room;
+        synchronized (this) {
+            if (sources.isEmpty())
+                return;
+            sourcesToRequest = new ArrayList<>(sources);
+            // Half of the buffer is kept for the real time messages
+            room = maxSize / 2 - pendingMessagesCount;
+        }
+        for (SourceSubscriber source : sourcesToRequest) {
+            long toRequest = room - source.outstanding.get();
+            if (toRequest > 0)
+                source.requestMessages(toRequest);
+        }
+    }
+
+    private synchronized void addSource(SourceSubscriber source) {
+        if (closed || reloadPending)
+            source.dispose();
+        else
+            sources.add(source);
+    }
+
+    private void publishFromSource(SourceSubscriber source, String message) {
+        synchronized (this) {
+            if (sink == null || closed || !sources.contains(source))
+                return;
+            append(null, message, false);
+        }
+        drain();
+    }
+
+    private void completeSource(SourceSubscriber source, String endMessage) {
+        synchronized (this) {
+            if (!sources.remove(source))
+                return;
+            if (sink != null && !closed && endMessage != null)
+                append(null, endMessage, false);
+        }
+        drain();
+    }
+
+    private class SourceSubscriber extends BaseSubscriber<String> {
+
+        private final String endMessage;
+        private final AtomicLong outstanding = new AtomicLong();
+
+        SourceSubscriber(String endMessage) {
+            this.endMessage = endMessage;
+        }
+
+        void requestMessages(long count) {
+            outstanding.addAndGet(count);
+            request(count);
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            addSource(this);
+            drain();
+        }
+
+        @Override
+        protected void hookOnNext(String message) {
+            outstanding.decrementAndGet();
+            publishFromSource(this, message);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completeSource(this, endMessage);
+        }
+
+        @Override
+        protected void hookOnError(Throwable throwable) {
+            log.error("Error when sending messages to subscription {}", subscriptionId, throwable);
+            completeSource(this, null);
+        }
+    }
+}
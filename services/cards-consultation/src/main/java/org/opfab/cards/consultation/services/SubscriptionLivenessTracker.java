@@ -0,0 +1,72 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>Deadlines of the card subscriptions, ordered by date, to find the subscriptions whose client has not sent
+ * heartbeat for too long.</p>
+ * <p>Receiving a heartbeat only updates the reception date in the subscription. A deadline is checked again
+ * against this date only when it has passed, so finding the expired subscriptions costs the number of deadlines
+ * passed and not the number of subscriptions.</p>
+ */
+public class SubscriptionLivenessTracker {
+
+    private record Deadline(long epochMilli, CardSubscription subscription) {
+    }
+
+    private final long timeoutInMillis;
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>(Comparator.comparingLong(Deadline::epochMilli));
+
+    public SubscriptionLivenessTracker(long timeoutInSeconds) {
+        this.timeoutInMillis = timeoutInSeconds * 1000;
+    }
+
+    public synchronized void track(CardSubscription subscription) {
+        deadlines.add(new Deadline(computeDeadline(subscription), subscription));
+    }
+
+    /**
+     * Returns the subscriptions without heartbeat since more than the timeout, they are not tracked anymore.
+     * The subscriptions which have been evicted by other means may be returned, it is up to the caller to check it.
+     */
+    public List<CardSubscription> pollExpiredSubscriptions(Instant now) {
+        long nowInMillis = now.toEpochMilli();
+        List<CardSubscription> expiredSubscriptions = new ArrayList<>();
+        synchronized (this) {
+            while (!deadlines.isEmpty() && deadlines.peek().epochMilli() < nowInMillis) {
+                CardSubscription subscription = deadlines.poll().subscription();
+                long deadline = computeDeadline(subscription);
+                if (deadline < nowInMillis)
+                    expiredSubscriptions.add(subscription);
+                else
+                    deadlines.add(new Deadline(deadline, subscription));
+            }
+        }
+        return expiredSubscriptions;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    public synchronized void clear() {
+        deadlines.clear();
+    }
+
+    private long computeDeadline(CardSubscription subscription) {
+        return subscription.getHeartbeatReceptionDate().toEpochMilli() + timeoutInMillis;
+    }
+}
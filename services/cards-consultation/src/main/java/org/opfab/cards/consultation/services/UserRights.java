@@ -0,0 +1,70 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Immutable lookup table of the rights of a user per process and state.</p>
+ * <p>It is built once from the computed perimeters of a {@link CurrentUserWithPerimeters} and then used for all
+ * the routing checks, without building keys or maps for each card.</p>
+ */
+public final class UserRights {
+
+    private final CurrentUserWithPerimeters user;
+    private final Map<String, Map<String, RightEnum>> rightsPerProcessAndState;
+    private final Map<String, Set<String>> statesNotNotifiedPerProcess;
+
+    public UserRights(CurrentUserWithPerimeters user) {
+        this.user = user;
+
+        Map<String, Map<String, RightEnum>> rights = new HashMap<>();
+        if (user.getComputedPerimeters() != null)
+            user.getComputedPerimeters().forEach(perimeter -> rights
+                    .computeIfAbsent(perimeter.getProcess(), process -> new HashMap<>())
+                    .put(perimeter.getState(), perimeter.getRights()));
+        this.rightsPerProcessAndState = rights;
+
+        Map<String, Set<String>> statesNotNotified = new HashMap<>();
+        Map<String, List<String>> processesStatesNotNotified = user.getProcessesStatesNotNotified();
+        if (processesStatesNotNotified != null)
+            processesStatesNotNotified.forEach((process, states) -> {
+                if (states != null)
+                    statesNotNotified.put(process, new HashSet<>(states));
+            });
+        this.statesNotNotifiedPerProcess = statesNotNotified;
+    }
+
+    public CurrentUserWithPerimeters getUser() {
+        return user;
+    }
+
+    public RightEnum getRight(String process, String state) {
+        return rightsPerProcessAndState.getOrDefault(process, Collections.emptyMap()).get(state);
+    }
+
+    public boolean hasReceiveRight(String process, String state) {
+        RightEnum right = getRight(process, state);
+        return right == RightEnum.Receive || right == RightEnum.ReceiveAndWrite;
+    }
+
+    public boolean mustBeNotified(String process, String state) {
+        Set<String> statesNotNotified = statesNotNotifiedPerProcess.get(process);
+        return statesNotNotified == null || !statesNotNotified.contains(state);
+    }
+}
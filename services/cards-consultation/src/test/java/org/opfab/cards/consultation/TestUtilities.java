@@ -14,6 +14,7 @@ package org.opfab.cards.consultation;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.opfab.cards.consultation.model.*;
+import org.opfab.springtools.configuration.mongo.NormalizedFields;
 import org.springframework.data.domain.Page;
 
 import java.io.IOException;
@@ -22,6 +23,7 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.UUID;
 import java.util.function.Predicate;
 
@@ -201,6 +203,12 @@ public class TestUtilities {
         card.setLastUpdate(publishDate);
         card.setId(card.getProcess() + "." + card.getProcessInstanceId());
         card.setProcessStateKey(card.getProcess() + "." + card.getState());
+        card.setNormalized(normalizedFields(card.getProcessInstanceId(), card.getPublisher()));
+    }
+
+    // Lower case copies of the fields written by cards-publication
+    public static Map<String, String> normalizedFields(String processInstanceId, String publisher) {
+        return NormalizedFields.ofCard(null, null, processInstanceId, publisher);
     }
 
 
@@ -254,6 +262,7 @@ public class TestUtilities {
                 .title(new I18n("title",null))
                 .summary(new I18n("summary",null))
                 .publisherType(PublisherTypeEnum.EXTERNAL)
+                .normalized(normalizedFields("PROCESS" + processSuffix, publisher))
                 ;
 
         if (groups != null && groups.length > 0)
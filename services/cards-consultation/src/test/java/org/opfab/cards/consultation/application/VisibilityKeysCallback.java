@@ -0,0 +1,42 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.application;
+
+import org.bson.Document;
+import org.opfab.springtools.configuration.mongo.VisibilityKeys;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeSaveCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Writes the visibility keys of the cards saved by the tests, as cards-publication does when it saves a card
+ */
+@Component
+public class VisibilityKeysCallback implements ReactiveBeforeSaveCallback<Object> {
+
+    @Override
+    public Publisher<Object> onBeforeSave(Object entity, Document document, String collection) {
+        if (document.containsKey("processStateKey") && !document.containsKey(VisibilityKeys.FIELD))
+            document.put(VisibilityKeys.FIELD, VisibilityKeys.ofCard(
+                    stringList(document, "userRecipients"),
+                    stringList(document, "groupRecipients"),
+                    stringList(document, "entityRecipients"),
+                    document.get("publisherType") != null ? document.get("publisherType").toString() : null,
+                    document.getString("publisher")));
+        return Mono.just(entity);
+    }
+
+    private static List<String> stringList(Document document, String field) {
+        return document.get(field) instanceof List<?> values ? values.stream().map(String::valueOf).toList() : null;
+    }
+}
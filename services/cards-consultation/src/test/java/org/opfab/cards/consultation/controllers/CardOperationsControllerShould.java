@@ -27,6 +27,7 @@ import org.opfab.users.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -237,6 +238,34 @@ class CardOperationsControllerShould {
 
     }
 
+    @Test
+    void receiveOlderCardsByBatches() throws Exception {
+        ReflectionTestUtils.setField(controller, "oldCardsBatchSize", 3);
+        try {
+            Flux<String> publisher = controller.registerSubscriptionAndPublish(Mono.just(
+                    CardOperationsGetParameters.builder()
+                            .currentUserWithPerimeters(currentUserWithPerimeters)
+                            .clientId(TEST_ID)
+                            .test(false)
+                            .rangeStart(now)
+                            .rangeEnd(nowPlusThree)
+                            .notification(false).build()
+            ));
+            List<String> messages = publisher.collectList().block();
+
+            assertThat(messages).hasSize(3);
+            List<CardOperation> cardOperations = new ArrayList<>();
+            for (String message : messages)
+                cardOperations.addAll(Arrays.asList(mapper.readValue(message, CardOperation[].class)));
+            assertThat(cardOperations).hasSize(8);
+            assertThat(cardOperations).extracting(op -> op.card().getProcessInstanceId())
+                    .containsExactlyInAnyOrder("PROCESS2", "PROCESS3", "PROCESS4", "PROCESS5", "PROCESS6",
+                            "PROCESS8", "PROCESS9", "PROCESS10");
+        } finally {
+            ReflectionTestUtils.setField(controller, "oldCardsBatchSize", 1);
+        }
+    }
+
     @Test
     void receiveCardsCheckUserAcks() {
         Flux<String> publisher = controller.registerSubscriptionAndPublish(Mono.just(
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -15,15 +15,21 @@ import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.opfab.cards.consultation.application.IntegrationTestApplication;
 import org.opfab.cards.consultation.model.ArchivedCard;
+import org.opfab.cards.consultation.model.Card;
 import org.opfab.cards.consultation.model.CardsFilter;
+import org.opfab.cards.consultation.model.CountModeEnum;
 import org.opfab.cards.consultation.model.FilterMatchTypeEnum;
 import org.opfab.cards.consultation.model.FilterModel;
+import org.opfab.cards.consultation.model.PublisherTypeEnum;
+import org.opfab.springtools.configuration.mongo.ContinuationPage;
 import org.opfab.users.model.ComputedPerimeter;
 import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.PermissionEnum;
 import org.opfab.users.model.RightEnum;
 import org.opfab.users.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import reactor.test.StepVerifier;
 import reactor.util.function.Tuple2;
@@ -31,8 +37,10 @@ import reactor.util.function.Tuple2;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import java.util.function.Predicate;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -235,6 +243,35 @@ public class ArchivedCardRepositoryShould {
                 .verify();
     }
 
+    @Test
+    void fetchArchivedCardsWithCaseInsensitiveEqualsAndStartsWithFilters() {
+
+        FilterModel filter1 = FilterModel.builder()
+            .columnName("publisher")
+            .matchType(FilterMatchTypeEnum.STARTSWITH)
+            .filter(List.of(secondPublisher.toLowerCase()))
+            .build();
+        FilterModel filter2 = FilterModel.builder()
+            .columnName("processInstanceId")
+            .matchType(FilterMatchTypeEnum.EQUALS)
+            .filter(List.of("process1"))
+            .build();
+
+        CardsFilter filters = CardsFilter.builder()
+            .filters(List.of(filter1, filter2)).build();
+
+        Tuple2<CurrentUserWithPerimeters, CardsFilter> filterParams = of(currentUser1, filters);
+
+        StepVerifier.create(repository.findWithUserAndFilter(filterParams))
+                .assertNext(page -> {
+                    assertThat(page.getTotalElements()).isEqualTo(1);
+                    assertThat(page.getContent().get(0).getPublisher()).isEqualTo(secondPublisher);
+                    assertThat(page.getContent().get(0).getProcessInstanceId()).isEqualTo("PROCESS1");
+                })
+                .expectComplete()
+                .verify();
+    }
+
     @Test
     void fetchArchivedCardsWithRegularParams() {
 
@@ -563,6 +600,234 @@ public class ArchivedCardRepositoryShould {
 
     }
 
+    @Test
+    void fetchArchivedCardsActiveFromWithPagesLargerThanTheFacetLimit() {
+
+        FilterModel filter1 = FilterModel.builder()
+            .columnName("activeFrom")
+            .filter(List.of(Long.toString(nowPlusTwo.toEpochMilli())))
+            .build();
+
+        CardsFilter filters = CardsFilter.builder()
+            .size(BigDecimal.valueOf(UserUtilitiesCommonToCardRepository.FACET_MAX_PAGE_SIZE + 1L))
+            .page(BigDecimal.ZERO)
+            .filters(List.of(filter1)).build();
+
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .assertNext(page -> {
+                    assertThat(page.getTotalElements()).isEqualTo(5);
+                    assertThat(page.getContent()).hasSize(5);
+                    assertThat(page.hasNext()).isFalse();
+                    assertTrue(checkIfPageIsSorted(page));
+                })
+                .expectComplete()
+                .verify();
+
+        filters = CardsFilter.builder()
+            .size(BigDecimal.valueOf(UserUtilitiesCommonToCardRepository.FACET_MAX_PAGE_SIZE + 1L))
+            .page(BigDecimal.ONE)
+            .filters(List.of(filter1)).build();
+
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .assertNext(page -> {
+                    assertThat(page.getTotalElements()).isEqualTo(5);
+                    assertThat(page.getContent()).isEmpty();
+                })
+                .expectComplete()
+                .verify();
+
+        FilterModel noMatch = FilterModel.builder()
+            .columnName("process")
+            .filter(List.of("UNKNOWN_PROCESS"))
+            .matchType(FilterMatchTypeEnum.EQUALS)
+            .build();
+        filters = CardsFilter.builder()
+            .size(BigDecimal.valueOf(UserUtilitiesCommonToCardRepository.FACET_MAX_PAGE_SIZE + 1L))
+            .page(BigDecimal.ZERO)
+            .filters(List.of(noMatch)).build();
+
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .assertNext(page -> {
+                    assertThat(page.getTotalElements()).isZero();
+                    assertThat(page.getContent()).isEmpty();
+                })
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void fetchArchivedCardsActiveFromWithPagingWithoutCounting() {
+
+        Instant start = nowPlusTwo;
+
+        FilterModel filter1 = FilterModel.builder()
+            .columnName("activeFrom")
+            .filter(List.of(Long.toString(start.toEpochMilli())))
+            .build();
+
+        //Page 1 : there is a next page, the total is only a lower bound
+        CardsFilter filters = CardsFilter.builder()
+            .size(BigDecimal.valueOf(2))
+            .page(BigDecimal.ZERO)
+            .countMode(CountModeEnum.HAS_NEXT_PAGE)
+            .filters(List.of(filter1)).build();
+
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .assertNext(page -> {
+                    assertThat(page.getContent()).hasSize(2);
+                    assertThat(page.hasNext()).isTrue();
+                    assertThat(page.getTotalElements()).isEqualTo(3);
+                    assertTrue(checkIfPageIsSorted(page));
+                })
+                .expectComplete()
+                .verify();
+
+        //Page 3 : last page
+        filters = CardsFilter.builder()
+            .size(BigDecimal.valueOf(2))
+            .page(BigDecimal.valueOf(2))
+            .countMode(CountModeEnum.HAS_NEXT_PAGE)
+            .filters(List.of(filter1)).build();
+
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .assertNext(page -> {
+                    assertThat(page.getContent()).hasSize(1);
+                    assertThat(page.hasNext()).isFalse();
+                    assertThat(page.getTotalElements()).isEqualTo(5);
+                })
+                .expectComplete()
+                .verify();
+    }
+
+
+    @Test
+    void fetchArchivedCardsActiveFromWithContinuationTokens() {
+
+        Instant start = nowPlusTwo;
+
+        FilterModel filter1 = FilterModel.builder()
+            .columnName("activeFrom")
+            .filter(List.of(Long.toString(start.toEpochMilli())))
+            .build();
+
+        List<String> allUids = repository.findWithUserAndFilter(of(currentUser1,
+                        CardsFilter.builder().filters(List.of(filter1)).build())).block()
+                .getContent().stream().map(Card::getUid).toList();
+
+        //First page with its number, next pages with the token of the previous page
+        List<String> uidsReadByPage = new ArrayList<>();
+        CardsFilter filters = CardsFilter.builder()
+            .size(BigDecimal.valueOf(2))
+            .page(BigDecimal.ZERO)
+            .filters(List.of(filter1)).build();
+        int nbOfPages = 0;
+        String nextPageToken;
+        do {
+            Page<Card> page = repository.findWithUserAndFilter(of(currentUser1, filters)).block();
+            assertTrue(checkIfPageIsSorted(page));
+            page.getContent().forEach(card -> uidsReadByPage.add(card.getUid()));
+            nbOfPages++;
+            nextPageToken = ((ContinuationPage<Card>) page).getNextPageToken();
+            filters = CardsFilter.builder()
+                .size(BigDecimal.valueOf(2))
+                .continuationToken(nextPageToken)
+                .filters(List.of(filter1)).build();
+        } while (nextPageToken != null);
+
+        assertThat(nbOfPages).isEqualTo(3);
+        assertThat(uidsReadByPage).containsExactlyElementsOf(allUids);
+    }
+
+    @Test
+    void refuseAnInvalidContinuationToken() {
+        CardsFilter filters = CardsFilter.builder()
+            .size(BigDecimal.valueOf(2))
+            .continuationToken("invalid")
+            .filters(List.of()).build();
+
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+    }
+
+    @Test
+    void fetchOnlyTheLatestVersionOfEachArchivedCard() {
+        repository.deleteAll().block();
+        persistCard(archivedCardVersion("PROCESS_A", nowMinusThree, false));
+        persistCard(archivedCardVersion("PROCESS_A", nowMinusTwo, true));
+        persistCard(archivedCardVersion("PROCESS_B", nowMinusThree, false));
+        persistCard(archivedCardVersion("PROCESS_B", nowMinusOne, true));
+
+        CardsFilter filters = CardsFilter.builder().latestUpdateOnly(true).filters(List.of()).build();
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .assertNext(page -> {
+                    assertThat(page.getContent()).extracting(Card::getProcessInstanceId)
+                            .containsExactly("PROCESS_B", "PROCESS_A");
+                    assertThat(page.getContent()).extracting(Card::getPublishDate)
+                            .containsExactly(nowMinusOne, nowMinusTwo);
+                })
+                .expectComplete()
+                .verify();
+
+        filters = CardsFilter.builder().latestUpdateOnly(true).size(BigDecimal.ONE).page(BigDecimal.ZERO)
+                .filters(List.of()).build();
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .assertNext(page -> {
+                    assertThat(page.getTotalElements()).isEqualTo(2);
+                    assertThat(page.getContent()).extracting(Card::getProcessInstanceId).containsExactly("PROCESS_B");
+                })
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void fetchTheLatestVersionMatchingTheFilterWhenTheMarkedVersionDoesNotMatch() {
+        repository.deleteAll().block();
+        persistCard(archivedCardVersion("PROCESS_A", nowMinusThree, false));
+        persistCard(archivedCardVersion("PROCESS_A", nowMinusOne, true));
+
+        FilterModel publishDateTo = FilterModel.builder().columnName("publishDateTo")
+                .filter(List.of(Long.toString(nowMinusTwo.toEpochMilli()))).build();
+        CardsFilter filters = CardsFilter.builder().latestUpdateOnly(true).filters(List.of(publishDateTo)).build();
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser1, filters)))
+                .assertNext(page -> assertThat(page.getContent()).extracting(Card::getPublishDate)
+                        .containsExactly(nowMinusThree))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void fetchTheMarkedLatestVersionsWhenTheFilterCannotExcludeThem() {
+        repository.deleteAll().block();
+        // The marker is trusted: the marked version is returned even if it is not the most recent one
+        persistCard(archivedCardVersion("PROCESS_A", nowMinusThree, true));
+        persistCard(archivedCardVersion("PROCESS_A", nowMinusTwo, false));
+        CurrentUserWithPerimeters adminUser = new CurrentUserWithPerimeters();
+        adminUser.setUserData(user1);
+        adminUser.setPermissions(List.of(PermissionEnum.ADMIN));
+
+        CardsFilter filters = CardsFilter.builder().latestUpdateOnly(true).adminMode(true).filters(List.of()).build();
+        StepVerifier.create(repository.findWithUserAndFilter(of(adminUser, filters)))
+                .assertNext(page -> assertThat(page.getContent()).extracting(Card::getPublishDate)
+                        .containsExactly(nowMinusThree))
+                .expectComplete()
+                .verify();
+    }
+
+    private ArchivedCard archivedCardVersion(String processInstanceId, Instant publishDate, boolean latestVersion) {
+        return ArchivedCard.builder()
+                .id(UUID.randomUUID().toString())
+                .process("PROCESS")
+                .processInstanceId(processInstanceId)
+                .state("anyState")
+                .processStateKey("PROCESS.anyState")
+                .publishDate(publishDate)
+                .publisher(firstPublisher)
+                .publisherType(PublisherTypeEnum.EXTERNAL)
+                .userRecipient(LOGIN_1)
+                .latestVersion(latestVersion)
+                .build();
+    }
 
     @Test
     void fetchArchivedCardsActiveTo() {
@@ -853,4 +1118,45 @@ public class ArchivedCardRepositoryShould {
 
     }
 
+    private ArchivedCard archivedCardVersion(String uid, String processInstanceId, String parentCardId,
+                                             Instant publishDate, Instant deletionDate) {
+        return ArchivedCard.builder()
+                .uid(uid)
+                .id(UUID.randomUUID().toString())
+                .process("PROCESS")
+                .processInstanceId(processInstanceId)
+                .parentCardId(parentCardId)
+                .publishDate(publishDate)
+                .deletionDate(deletionDate)
+                .publisher(firstPublisher)
+                .state("anyState")
+                .processStateKey("PROCESS.anyState")
+                .build();
+    }
+
+    @Test
+    void fetchChildCardsOfEachParentVersion() {
+        ArchivedCard deletedParent = archivedCardVersion("parentV1", "PARENT", null, nowMinusThree, nowMinusOne);
+        ArchivedCard currentParent = archivedCardVersion("parentV2", "PARENT", null, nowMinusOne, null);
+        ArchivedCard childOfDeletedParent = archivedCardVersion("child1", "CHILD1", "PROCESS.PARENT", nowMinusTwo, nowMinusOne);
+        ArchivedCard childOfCurrentParent = archivedCardVersion("child2", "CHILD2", "PROCESS.PARENT", now, null);
+        ArchivedCard childOfAnotherParent = archivedCardVersion("child3", "CHILD3", "PROCESS.OTHER", now, null);
+        ArchivedCard cardArchivedBeforeChildCards = archivedCardVersion("oldParent", "OTHER", null, nowMinusThree,
+                Instant.EPOCH);
+        List.of(deletedParent, currentParent, childOfDeletedParent, childOfCurrentParent, childOfAnotherParent,
+                cardArchivedBeforeChildCards).forEach(this::persistCard);
+
+        StepVerifier.create(repository.findByParentCard(deletedParent).map(ArchivedCard::uid))
+                .expectNext("child1")
+                .expectComplete()
+                .verify();
+        StepVerifier.create(repository.findByParentCard(currentParent).map(ArchivedCard::uid))
+                .expectNext("child2")
+                .expectComplete()
+                .verify();
+        StepVerifier.create(repository.findByParentCard(cardArchivedBeforeChildCards))
+                .expectComplete()
+                .verify();
+    }
+
 }
@@ -21,14 +21,17 @@ import org.opfab.users.model.RightEnum;
 import org.opfab.users.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import org.bson.Document;
 import reactor.test.StepVerifier;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.function.Predicate;
@@ -53,6 +56,9 @@ class CardRepositoryShould {
     @Autowired
     private CardRepository repository;
 
+    @Autowired
+    private ReactiveMongoTemplate template;
+
     private CurrentUserWithPerimeters rteUserEntity1, rteUserEntity2, adminUser;
 
     public CardRepositoryShould() {
@@ -103,6 +109,7 @@ class CardRepositoryShould {
     @AfterEach
     public void clean() {
         repository.deleteAll().subscribe();
+        template.dropCollection("cardTombstones").block();
     }
 
     private void assertCard(CardOperation op, Object processName, Object publisher, Object processVersion) {
@@ -280,6 +287,82 @@ class CardRepositoryShould {
 
     }
 
+    @Test
+    void getDeletionsThenCardsModifiedAfterSequence() {
+        Card card1 = createSimpleCard("1", now, now, nowPlusOne, LOGIN, null, null);
+        card1.setSequence(1L);
+        persistCard(card1);
+        Card card2 = createSimpleCard("2", now, now, nowPlusTwo, LOGIN, null, null);
+        card2.setSequence(4L);
+        persistCard(card2);
+        Card card3 = createSimpleCard("3", now, nowPlusTwo, nowPlusThree, LOGIN, null, null);
+        card3.setSequence(5L);
+        persistCard(card3);
+        StepVerifier.create(template.insert(new Document("_id", "PROCESS.PROCESS4")
+                        .append("sequence", 3L)
+                        .append("processStateKey", "PROCESS.anyState")
+                        .append("userRecipients", List.of(LOGIN))
+                        .append("visibilityKeys", List.of("u:" + LOGIN)), "cardTombstones")
+                        .then(template.insert(new Document("_id", "PROCESS.PROCESS5")
+                                .append("sequence", 2L)
+                                .append("processStateKey", "PROCESS.anyState")
+                                .append("userRecipients", List.of("otherUser"))
+                                .append("visibilityKeys", List.of("u:otherUser")), "cardTombstones")))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+
+        StepVerifier.create(repository.getCardOperationsAfterSequence(1, null, null, adminUser, null)
+                .doOnNext(TestUtilities::logCardOperation))
+                .assertNext(op -> {
+                    assertThat(op.type()).isEqualTo(CardOperationTypeEnum.DELETE);
+                    assertThat(op.cardId()).isEqualTo("PROCESS.PROCESS4");
+                })
+                .assertNext(op -> assertCard(op, "PROCESS.PROCESS2", "PUBLISHER", "0"))
+                .assertNext(op -> assertCard(op, "PROCESS.PROCESS3", "PUBLISHER", "0"))
+                .expectComplete()
+                .verify();
+
+        StepVerifier.create(repository.getCardOperationsAfterSequence(4, nowPlusTwo, nowPlusThree, adminUser, null))
+                .assertNext(op -> assertCard(op, "PROCESS.PROCESS3", "PUBLISHER", "0"))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void getAgainCardsCommittedLateWithALowerSequence() {
+        Card card1 = createSimpleCard("1", nowMinusThree, now, nowPlusOne, LOGIN, null, null);
+        card1.setSequence(1L);
+        persistCard(card1);
+        // Sequence 2 taken before sequence 3 but committed after it
+        Card card2 = createSimpleCard("2", now, now, nowPlusTwo, LOGIN, null, null);
+        card2.setSequence(3L);
+        persistCard(card2);
+        Card card3 = createSimpleCard("3", now.minusSeconds(1), now, nowPlusThree, LOGIN, null, null);
+        card3.setSequence(2L);
+        persistCard(card3);
+        StepVerifier.create(template.insert(new Document("_id", "PROCESS.PROCESS4")
+                        .append("sequence", 4L)
+                        .append("processStateKey", "PROCESS.anyState")
+                        .append("visibilityKeys", List.of("u:" + LOGIN))
+                        .append("deletionDate", Date.from(now.minusSeconds(2))), "cardTombstones"))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+
+        CardCustomRepositoryImpl repositoryWithSafetyLag = new CardCustomRepositoryImpl(template, 1000, 60);
+        StepVerifier.create(repositoryWithSafetyLag.getCardOperationsAfterSequence(3, null, null, adminUser, null)
+                        .map(op -> op.type() == CardOperationTypeEnum.DELETE ? op.cardId() : op.card().getId())
+                        .collectList())
+                .assertNext(cardIds -> {
+                    assertThat(cardIds.get(0)).isEqualTo("PROCESS.PROCESS4");
+                    assertThat(cardIds.subList(1, cardIds.size()))
+                            .containsExactlyInAnyOrder("PROCESS.PROCESS2", "PROCESS.PROCESS3");
+                })
+                .expectComplete()
+                .verify();
+    }
+
     @Test
     void getZeroCardAfterPublishDate() {
         persistCard(createSimpleCard("1", now, now, nowPlusOne, LOGIN, null, null));
@@ -0,0 +1,172 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.repositories;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.opfab.cards.consultation.application.IntegrationTestApplication;
+import org.opfab.cards.consultation.model.ArchivedCard;
+import org.opfab.cards.consultation.model.Card;
+import org.opfab.cards.consultation.model.CardsFilter;
+import org.opfab.cards.consultation.model.FilterModel;
+import org.opfab.users.model.ComputedPerimeter;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+import org.opfab.users.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.opfab.cards.consultation.TestUtilities.createSimpleArchivedCard;
+import static reactor.util.function.Tuples.of;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = IntegrationTestApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "operatorfabric.archives.partitionByMonth=true")
+@Tag("end-to-end")
+@Tag("mongo")
+class PartitionedArchivedCardRepositoryShould {
+
+    private static final String LOGIN = "user1Login";
+    private static final Instant JANUARY = Instant.parse("2025-01-15T10:00:00Z");
+    private static final Instant FEBRUARY = Instant.parse("2025-02-15T10:00:00Z");
+    private static final Instant MARCH = Instant.parse("2025-03-15T10:00:00Z");
+    private static final Instant BEFORE_PARTITIONING = Instant.parse("2025-02-01T10:00:00Z");
+
+    private static final CurrentUserWithPerimeters currentUser = new CurrentUserWithPerimeters();
+
+    @Autowired
+    private ArchivedCardRepository repository;
+
+    @Autowired
+    private ReactiveMongoTemplate template;
+
+    private ArchivedCard januaryCard;
+
+    @BeforeAll
+    static void initUser() {
+        ComputedPerimeter perimeter = new ComputedPerimeter();
+        perimeter.setProcess("PROCESS");
+        perimeter.setState("anyState");
+        perimeter.setRights(RightEnum.ReceiveAndWrite);
+        User user = new User();
+        user.setLogin(LOGIN);
+        currentUser.setUserData(user);
+        currentUser.setComputedPerimeters(List.of(perimeter));
+    }
+
+    @BeforeEach
+    void initCardData() {
+        januaryCard = archive(1, JANUARY, "archivedCards_202501");
+        archive(2, FEBRUARY, "archivedCards_202502");
+        archive(3, MARCH, "archivedCards_202503");
+        // Archived before partitioning was activated
+        archive(4, BEFORE_PARTITIONING, "archivedCards");
+    }
+
+    @AfterEach
+    void clean() {
+        template.getCollectionNames()
+                .filter(collection -> collection.startsWith("archivedCards_"))
+                .concatMap(template::dropCollection)
+                .blockLast();
+        repository.deleteAll().block();
+    }
+
+    private ArchivedCard archive(int processSuffix, Instant publishDate, String collection) {
+        ArchivedCard card = createSimpleArchivedCard(processSuffix, "PUBLISHER", publishDate, publishDate, null,
+                LOGIN, null, null);
+        StepVerifier.create(template.insert(card, collection))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+        return card;
+    }
+
+    @Test
+    void fetchArchivedCardsOfThePartitionsOfThePublishDateRangeOnly() {
+        CardsFilter filter = CardsFilter.builder().filters(List.of(
+                FilterModel.builder().columnName("publishDateFrom")
+                        .filter(List.of(Long.toString(Instant.parse("2025-02-01T00:00:00Z").toEpochMilli()))).build(),
+                FilterModel.builder().columnName("publishDateTo")
+                        .filter(List.of(Long.toString(Instant.parse("2025-02-28T00:00:00Z").toEpochMilli()))).build()))
+                .build();
+
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser, filter)))
+                .assertNext(page -> assertThat(page.getContent()).extracting(Card::getPublishDate)
+                        .containsExactly(FEBRUARY, BEFORE_PARTITIONING))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void fetchPagesOfArchivedCardsSortedAcrossPartitions() {
+        CardsFilter filter = CardsFilter.builder().page(BigDecimal.ZERO).size(BigDecimal.valueOf(2))
+                .filters(List.of()).build();
+
+        StepVerifier.create(repository.findWithUserAndFilter(of(currentUser, filter)))
+                .assertNext(page -> {
+                    assertThat(page.getTotalElements()).isEqualTo(4);
+                    assertThat(page.getContent()).extracting(Card::getPublishDate).containsExactly(MARCH, FEBRUARY);
+                })
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void fetchArchivedCardByIdInAnOlderPartition() {
+        StepVerifier.create(repository.findByIdWithUser(januaryCard.id(), currentUser))
+                .assertNext(card -> assertThat(card.publishDate()).isEqualTo(JANUARY))
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void fetchChildCardsInAnOlderPartition() {
+        ArchivedCard childCard = ArchivedCard.builder().id("childCardUid").uid("childCardUid").process("PROCESS")
+                .processInstanceId("CHILD").parentCardId("PROCESS.PARENT").initialParentCardUid("parentCardUid")
+                .publishDate(JANUARY).build();
+        StepVerifier.create(template.insert(childCard, "archivedCards_202501"))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify();
+
+        StepVerifier.create(repository.findByParentCardId("PROCESS.PARENT").map(ArchivedCard::uid))
+                .expectNext("childCardUid")
+                .expectComplete()
+                .verify();
+        StepVerifier.create(repository.findByInitialParentCardUid("parentCardUid").map(ArchivedCard::uid))
+                .expectNext("childCardUid")
+                .expectComplete()
+                .verify();
+    }
+
+    @Test
+    void exportArchivedCardsOfAllPartitions() {
+        CardsFilter filter = CardsFilter.builder().filters(List.of()).build();
+
+        StepVerifier.create(repository.exportWithUserAndFilter(of(currentUser, filter))
+                        .map(card -> card.getDate("publishDate").toInstant()))
+                .expectNext(MARCH, FEBRUARY, BEFORE_PARTITIONING, JANUARY)
+                .expectComplete()
+                .verify();
+    }
+}
@@ -0,0 +1,99 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.repositories;
+
+import org.junit.jupiter.api.Test;
+import org.opfab.users.model.ComputedPerimeter;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+import org.opfab.users.model.User;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PerimeterCriteriaCacheShould {
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    private final Function<CurrentUserWithPerimeters, PerimeterCriteriaCache.FeedCriteria> compute = user -> {
+        computations.incrementAndGet();
+        return new PerimeterCriteriaCache.FeedCriteria(
+                new UserUtilitiesCommonToCardRepository.PerimeterCriteria(
+                        Criteria.where("processStateKey").in("process1.state1"), List.of()),
+                Criteria.where("processStateKey").not().in(List.of()));
+    };
+
+    private CurrentUserWithPerimeters createUser(String login, String... groups) {
+        User user = new User();
+        user.setLogin(login);
+        user.setGroups(List.of(groups));
+        ComputedPerimeter perimeter = new ComputedPerimeter();
+        perimeter.setProcess("process1");
+        perimeter.setState("state1");
+        perimeter.setRights(RightEnum.Receive);
+        CurrentUserWithPerimeters currentUserWithPerimeters = new CurrentUserWithPerimeters();
+        currentUserWithPerimeters.setUserData(user);
+        currentUserWithPerimeters.setComputedPerimeters(List.of(perimeter));
+        return currentUserWithPerimeters;
+    }
+
+    @Test
+    void shareTheCriteriaOfUsersWithTheSamePerimeter() {
+        PerimeterCriteriaCache cache = new PerimeterCriteriaCache(10);
+
+        PerimeterCriteriaCache.FeedCriteria first = cache.get(createUser("operator1", "group1", "group2"), compute);
+        PerimeterCriteriaCache.FeedCriteria second = cache.get(createUser("operator2", "group2", "group1"), compute);
+
+        assertThat(second).isSameAs(first);
+        assertThat(computations).hasValue(1);
+    }
+
+    @Test
+    void computeTheCriteriaOfAnotherPerimeter() {
+        PerimeterCriteriaCache cache = new PerimeterCriteriaCache(10);
+
+        cache.get(createUser("operator1", "group1"), compute);
+        cache.get(createUser("operator1", "group1", "group2"), compute);
+
+        assertThat(computations).hasValue(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void evictTheLeastRecentlyUsedPerimeterAboveTheMaximumNumberOfEntries() {
+        PerimeterCriteriaCache cache = new PerimeterCriteriaCache(2);
+
+        cache.get(createUser("operator1", "group1"), compute);
+        cache.get(createUser("operator2", "group2"), compute);
+        cache.get(createUser("operator1", "group1"), compute);
+        cache.get(createUser("operator3", "group3"), compute);
+        assertThat(cache.size()).isEqualTo(2);
+
+        cache.get(createUser("operator1", "group1"), compute);
+        assertThat(computations).hasValue(3);
+        cache.get(createUser("operator2", "group2"), compute);
+        assertThat(computations).hasValue(4);
+    }
+
+    @Test
+    void computeTheCriteriaForEachQueryWhenDisabled() {
+        PerimeterCriteriaCache cache = new PerimeterCriteriaCache(0);
+
+        cache.get(createUser("operator1", "group1"), compute);
+        cache.get(createUser("operator1", "group1"), compute);
+
+        assertThat(computations).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -19,9 +19,11 @@ import org.opfab.cards.consultation.application.IntegrationTestApplication;
 import org.opfab.cards.consultation.configuration.webflux.ArchivedCardRoutesConfig;
 import org.opfab.cards.consultation.model.ArchivedCard;
 import org.opfab.cards.consultation.model.ArchivedCardWithChildCards;
+import org.opfab.cards.consultation.model.CardsFilter;
 import org.opfab.cards.consultation.repositories.ArchivedCardRepository;
 import org.opfab.springtools.configuration.test.WithMockOpFabUserReactive;
 import org.opfab.test.EmptyListComparator;
+import org.opfab.users.model.PermissionEnum;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -32,6 +34,7 @@ import org.springframework.web.reactive.function.server.ServerResponse;
 import reactor.test.StepVerifier;
 
 import java.time.Instant;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.opfab.cards.consultation.TestUtilities.createSimpleArchivedCard;
@@ -217,4 +220,59 @@ class ArchivedCardRoutesShould {
                     .expectStatus().isNotFound();
         }
     }
+
+    @Nested
+    @WithMockOpFabUserReactive(login="adminUser", groups = {"ADMIN"}, permissions = {PermissionEnum.ADMIN})
+    class GivenAdminUserArchivedCardRoutesShould {
+
+        @Test
+        void exportArchivedCardsAsCsvWithSelectedFields() {
+            Instant now = roundingToMillis(Instant.now());
+            ArchivedCard olderCard = createSimpleArchivedCard(1, publisher, now.minusSeconds(60), now, null, "someUser", null, null);
+            ArchivedCard newerCard = createSimpleArchivedCard(2, "PUBLISHER,WITH,COMMAS", now, now, null, "someUser", null, null);
+            StepVerifier.create(repository.saveAll(List.of(olderCard, newerCard)))
+                    .expectNextCount(2)
+                    .expectComplete()
+                    .verify();
+
+            CardsFilter filter = CardsFilter.builder().adminMode(true).filters(List.of())
+                    .selectedFields(List.of("processInstanceId", "publisher", "publishDate")).build();
+            webTestClient.post().uri("/archives/export?format=csv").bodyValue(filter).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith("text/csv")
+                    .expectBody(String.class).value(csv -> assertThat(csv.split("\n")).containsExactly(
+                            "processInstanceId,publisher,publishDate",
+                            "PROCESS2,\"PUBLISHER,WITH,COMMAS\"," + now.toEpochMilli(),
+                            "PROCESS1,PUBLISHER," + now.minusSeconds(60).toEpochMilli()));
+        }
+
+        @Test
+        void exportArchivedCardsAsNdjson() {
+            Instant now = roundingToMillis(Instant.now());
+            ArchivedCard card = createSimpleArchivedCard(1, publisher, now, now, null, "someUser", null, null);
+            StepVerifier.create(repository.save(card))
+                    .expectNextCount(1)
+                    .expectComplete()
+                    .verify();
+
+            CardsFilter filter = CardsFilter.builder().adminMode(true).filters(List.of()).build();
+            webTestClient.post().uri("/archives/export").bodyValue(filter).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentTypeCompatibleWith("application/x-ndjson")
+                    .expectBody(String.class).value(ndjson -> {
+                        String[] lines = ndjson.split("\n");
+                        assertThat(lines).hasSize(1);
+                        assertThat(lines[0]).contains("\"id\":\"" + card.id() + "\"")
+                                .contains("\"publishDate\":" + now.toEpochMilli())
+                                .doesNotContain("\"data\"");
+                    });
+        }
+
+        @Test
+        void refuseAnUnknownExportFormat() {
+            CardsFilter filter = CardsFilter.builder().adminMode(true).filters(List.of()).build();
+            webTestClient.post().uri("/archives/export?format=xml").bodyValue(filter).exchange()
+                    .expectStatus().isBadRequest();
+        }
+    }
 }
@@ -120,6 +120,25 @@ class ConnectionRoutesShould {
                         Assertions.assertFalse(subscriptionSpy.willDisconnectAnExistingSubscriptionWhenLoggingIn(USER_LOGIN));
                 }
 
+                @Test
+                void shouldDetectThatAUserIsStillConnectedWhenOneOfHisSessionsIsClosed() {
+                        CardSubscriptionService subscriptionSpy = Mockito.spy(service);
+                        Mockito.when(subscriptionSpy.mustCheckIfUserIsAlreadyConnected()).thenReturn(true);
+
+                        subscriptionSpy.subscribe(currentUserWithPerimeters, "test");
+                        subscriptionSpy.subscribe(currentUserWithPerimeters, "test2");
+                        assertThat(subscriptionSpy.getSubscriptionIds(USER_LOGIN)).containsExactlyInAnyOrder(
+                                CardSubscription.computeSubscriptionId(USER_LOGIN, "test"),
+                                CardSubscription.computeSubscriptionId(USER_LOGIN, "test2"));
+
+                        subscriptionSpy.evictSubscription(CardSubscription.computeSubscriptionId(USER_LOGIN, "test"));
+                        Assertions.assertTrue(subscriptionSpy.willDisconnectAnExistingSubscriptionWhenLoggingIn(USER_LOGIN));
+
+                        subscriptionSpy.evictSubscription(CardSubscription.computeSubscriptionId(USER_LOGIN, "test2"));
+                        Assertions.assertFalse(subscriptionSpy.willDisconnectAnExistingSubscriptionWhenLoggingIn(USER_LOGIN));
+                        assertThat(subscriptionSpy.getSubscriptionIds(USER_LOGIN)).isEmpty();
+                }
+
                 @Test
                 void shouldNotDetectThatAUserIsAlreadyConnectedWhenOptionIsDisabled() {
                         // Force the service not to check whether a user is already connected
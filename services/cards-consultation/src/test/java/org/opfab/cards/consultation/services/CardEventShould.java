@@ -0,0 +1,87 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import net.minidev.json.JSONObject;
+import net.minidev.json.JSONValue;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class CardEventShould {
+
+    private static final String UPDATE_MESSAGE = "{\"type\":\"UPDATE\",\"cardId\":\"process1.id1\",\"card\":{\"id\":\"process1.id1\","
+            + "\"process\":\"process1\",\"state\":\"state1\",\"publisher\":\"publisher1\",\"publisherType\":\"EXTERNAL\","
+            + "\"groupRecipients\":[\"group1\"],\"usersReads\":[\"user1\",\"user2\"],\"usersAcks\":[\"user2\"]}}";
+
+    private static final String ADD_MESSAGE = "{\"type\":\"ADD\",\"cardId\":\"process1.id1\",\"card\":{\"id\":\"process1.id1\","
+            + "\"process\":\"process1\",\"state\":\"state1\",\"entityRecipients\":[\"entity1\",\"entity2\"]}}";
+
+    private JSONObject parse(String payload) {
+        return (JSONObject) JSONValue.parse(payload);
+    }
+
+    @Test
+    void extractRoutingInformation() {
+        CardEvent cardEvent = CardEvent.parse(ADD_MESSAGE);
+
+        Assertions.assertThat(cardEvent.hasCard()).isTrue();
+        Assertions.assertThat(cardEvent.isUpdate()).isFalse();
+        Assertions.assertThat(cardEvent.getCardId()).isEqualTo("process1.id1");
+        Assertions.assertThat(cardEvent.getProcess()).isEqualTo("process1");
+        Assertions.assertThat(cardEvent.getState()).isEqualTo("state1");
+        Assertions.assertThat(cardEvent.getEntityRecipients()).containsExactlyInAnyOrder("entity1", "entity2");
+        Assertions.assertThat(cardEvent.getGroupRecipients()).isEmpty();
+        Assertions.assertThat(cardEvent.getDeletePayload()).isNull();
+    }
+
+    @Test
+    void sendUpdateAsAddWithUserFlags() {
+        CardEvent cardEvent = CardEvent.parse(UPDATE_MESSAGE);
+
+        JSONObject forUser1 = parse(cardEvent.getPayloadForUser("user1"));
+        JSONObject cardForUser1 = (JSONObject) forUser1.get("card");
+        Assertions.assertThat(forUser1.get("type")).isEqualTo("ADD");
+        Assertions.assertThat(forUser1.get("cardId")).isEqualTo("process1.id1");
+        Assertions.assertThat(cardForUser1.get("hasBeenRead")).isEqualTo("true");
+        Assertions.assertThat(cardForUser1.get("hasBeenAcknowledged")).isNull();
+        Assertions.assertThat(cardForUser1.get("process")).isEqualTo("process1");
+
+        JSONObject cardForUser2 = (JSONObject) parse(cardEvent.getPayloadForUser("user2")).get("card");
+        Assertions.assertThat(cardForUser2.get("hasBeenRead")).isEqualTo("true");
+        Assertions.assertThat(cardForUser2.get("hasBeenAcknowledged")).isEqualTo("true");
+
+        JSONObject cardForUser3 = (JSONObject) parse(cardEvent.getPayloadForUser("user3")).get("card");
+        Assertions.assertThat(cardForUser3.get("hasBeenRead")).isNull();
+        Assertions.assertThat(cardForUser3.get("hasBeenAcknowledged")).isNull();
+    }
+
+    @Test
+    void reuseSerializedPayloadForUsersWithSameFlags() {
+        CardEvent cardEvent = CardEvent.parse(UPDATE_MESSAGE);
+
+        Assertions.assertThat(cardEvent.getPayloadForUser("user3")).isSameAs(cardEvent.getPayloadForUser("user4"));
+    }
+
+    @Test
+    void buildDeletePayloadForUpdate() {
+        CardEvent cardEvent = CardEvent.parse(UPDATE_MESSAGE);
+
+        JSONObject deleteOperation = parse(cardEvent.getDeletePayload());
+        Assertions.assertThat(deleteOperation.get("type")).isEqualTo("DELETE");
+        Assertions.assertThat(deleteOperation.get("card")).isEqualTo("");
+        Assertions.assertThat(deleteOperation.get("cardId")).isEqualTo("process1.id1");
+    }
+
+    @Test
+    void returnNullWhenMessageIsNotAJsonObject() {
+        Assertions.assertThat(CardEvent.parse("HEARTBEAT")).isNull();
+    }
+}
@@ -0,0 +1,79 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardExportFormatterShould {
+
+    private final CardExportFormatter formatter = new CardExportFormatter(new ObjectMapper());
+
+    @Test
+    void writeCsvHeaderThenOneEscapedLinePerCard() {
+        Document card = new Document("_id", "id1")
+                .append("titleTranslated", "Title, with \"quotes\"")
+                .append("publishDate", new Date(1000L))
+                .append("entityRecipients", List.of("ENTITY1", "ENTITY2"))
+                .append("data", new Document("comment", "a comment"));
+
+        StepVerifier.create(formatter.format(Flux.just(card), CardExportFormatter.Format.CSV,
+                        List.of("titleTranslated", "publishDate", "entityRecipients", "data.comment", "severity")))
+                .expectNext("titleTranslated,publishDate,entityRecipients,data.comment,severity\n")
+                .expectNext("\"Title, with \"\"quotes\"\"\",1000,\"ENTITY1,ENTITY2\",a comment,\n")
+                .verifyComplete();
+    }
+
+    @Test
+    void prefixCsvTextsStartingLikeAFormula() {
+        Document card = new Document("titleTranslated", "=HYPERLINK(\"http://example.com\")")
+                .append("summaryTranslated", "@SUM(A1:A2)")
+                .append("entityRecipients", List.of("+ENTITY1", "ENTITY2"))
+                .append("severity", "-1")
+                .append("data", new Document("comment", "\tcomment").append("value", -1));
+
+        StepVerifier.create(formatter.format(Flux.just(card), CardExportFormatter.Format.CSV,
+                        List.of("titleTranslated", "summaryTranslated", "entityRecipients", "severity", "data.comment",
+                                "data.value")))
+                .expectNext("titleTranslated,summaryTranslated,entityRecipients,severity,data.comment,data.value\n")
+                .expectNext("\"'=HYPERLINK(\"\"http://example.com\"\")\",'@SUM(A1:A2),\"'+ENTITY1,ENTITY2\",'-1,'\tcomment,-1\n")
+                .verifyComplete();
+        assertThat(CardExportFormatter.neutralizeFormula("\rcomment")).isEqualTo("'\rcomment");
+        assertThat(CardExportFormatter.neutralizeFormula("a comment")).isEqualTo("a comment");
+        assertThat(CardExportFormatter.neutralizeFormula("")).isEmpty();
+    }
+
+    @Test
+    void writeOneJsonCardPerLineWithIdAndDatesAsInTheOtherRoutes() {
+        Document card = new Document("_id", "id1")
+                .append("publishDate", new Date(1000L))
+                .append("timeSpans", List.of(new Document("start", new Date(2000L))));
+
+        StepVerifier.create(formatter.format(Flux.just(card), CardExportFormatter.Format.NDJSON, List.of()))
+                .expectNext("{\"id\":\"id1\",\"publishDate\":1000,\"timeSpans\":[{\"start\":2000}]}\n")
+                .verifyComplete();
+    }
+
+    @Test
+    void returnNullForAMissingFieldOfASubDocument() {
+        Document card = new Document("data", "not a document");
+
+        assertThat(CardExportFormatter.valueAt(card, "data.comment")).isNull();
+        assertThat(CardExportFormatter.valueAt(card, "data")).isEqualTo("not a document");
+    }
+}
@@ -0,0 +1,185 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opfab.users.model.ComputedPerimeter;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+import org.opfab.users.model.User;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+
+class CardSnapshotCacheShould {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant END = Instant.parse("2025-01-02T00:00:00Z");
+
+    private CurrentUserWithPerimeters createUser(String login, String... groups) {
+        User user = new User();
+        user.setLogin(login);
+        user.setGroups(List.of(groups));
+        ComputedPerimeter perimeter = new ComputedPerimeter();
+        perimeter.setProcess("process1");
+        perimeter.setState("state1");
+        perimeter.setRights(RightEnum.Receive);
+        CurrentUserWithPerimeters currentUserWithPerimeters = new CurrentUserWithPerimeters();
+        currentUserWithPerimeters.setUserData(user);
+        currentUserWithPerimeters.setComputedPerimeters(List.of(perimeter));
+        return currentUserWithPerimeters;
+    }
+
+    private CardEvent cardEvent(String cardId, String group) {
+        return CardEvent.parse("{\"type\":\"ADD\",\"card\":{\"id\":\"" + cardId
+                + "\",\"process\":\"process1\",\"state\":\"state1\",\"groupRecipients\":[\"" + group + "\"]}}");
+    }
+
+    private CardSnapshotCache.Key load(CardSnapshotCache cache, CurrentUserWithPerimeters user, String... cardIds) {
+        CardSnapshotCache.Key key = new CardSnapshotCache.Key(PerimeterSignature.of(user), START, END);
+        CardSnapshotCache.Load load = cache.startLoad(key, user);
+        for (String cardId : cardIds)
+            load.add(cardId, "operation-" + cardId);
+        cache.completeLoad(load);
+        return key;
+    }
+
+    @Test
+    void returnSnapshotOfTheSamePerimeterAndRange() {
+        CardSnapshotCache cache = new CardSnapshotCache(100_000, 60, Clock.systemUTC());
+        load(cache, createUser("user1", "group1", "group2"), "card1", "card2");
+
+        CardSnapshotCache.Key sameUser = new CardSnapshotCache.Key(
+                PerimeterSignature.of(createUser("user1", "group2", "group1")), START, END);
+        Assertions.assertThat(cache.get(sameUser)).containsExactly("operation-card1", "operation-card2");
+
+        CardSnapshotCache.Key otherUser = new CardSnapshotCache.Key(
+                PerimeterSignature.of(createUser("user2", "group1", "group2")), START, END);
+        Assertions.assertThat(cache.get(otherUser)).isNull();
+        CardSnapshotCache.Key otherRange = new CardSnapshotCache.Key(sameUser.perimeterSignature(), START, START);
+        Assertions.assertThat(cache.get(otherRange)).isNull();
+    }
+
+    @Test
+    void evictSnapshotConcernedByACardEvent() {
+        CardSnapshotCache cache = new CardSnapshotCache(100_000, 60, Clock.systemUTC());
+        CardSnapshotCache.Key keyUser1 = load(cache, createUser("user1", "group1"), "card1");
+        CardSnapshotCache.Key keyUser2 = load(cache, createUser("user2", "group2"), "card2");
+
+        cache.onCardEvent(cardEvent("card3", "group1"));
+        Assertions.assertThat(cache.get(keyUser1)).isNull();
+        Assertions.assertThat(cache.get(keyUser2)).isNotNull();
+
+        cache.onCardChange("card2");
+        Assertions.assertThat(cache.get(keyUser2)).isNull();
+        Assertions.assertThat(cache.getSizeInBytes()).isZero();
+    }
+
+    @Test
+    void keepSnapshotOfUsersWithoutReceiveRightOnTheProcessStateOfTheCard() {
+        CardSnapshotCache cache = new CardSnapshotCache(100_000, 60, Clock.systemUTC());
+        CardSnapshotCache.Key key = load(cache, createUser("user1", "group1"), "card1");
+
+        cache.onCardEvent(CardEvent.parse("{\"type\":\"ADD\",\"card\":{\"id\":\"card3\",\"process\":\"process2\","
+                + "\"state\":\"state1\",\"groupRecipients\":[\"group1\"]}}"));
+        Assertions.assertThat(cache.get(key)).isNotNull();
+
+        cache.onCardEvent(CardEvent.parse("{\"type\":\"UPDATE\",\"card\":{\"id\":\"card1\",\"process\":\"process2\","
+                + "\"state\":\"state1\"}}"));
+        Assertions.assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    void evictSnapshotsOfAUserReadingACard() {
+        CardSnapshotCache cache = new CardSnapshotCache(100_000, 60, Clock.systemUTC());
+        CardSnapshotCache.Key keyUser1 = load(cache, createUser("user1", "group1"), "card1");
+        CardSnapshotCache.Key keyUser2 = load(cache, createUser("user2", "group1"), "card1");
+        CurrentUserWithPerimeters user1 = createUser("user1", "group1");
+        CardSnapshotCache.Load loadingUser1 = cache.startLoad(
+                new CardSnapshotCache.Key(PerimeterSignature.of(user1), START, START), user1);
+
+        cache.onUserRead("user1");
+        cache.completeLoad(loadingUser1);
+
+        Assertions.assertThat(cache.get(keyUser1)).isNull();
+        Assertions.assertThat(cache.get(keyUser2)).isNotNull();
+        Assertions.assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void notStoreSnapshotConcernedByACardEventWhileLoading() {
+        CardSnapshotCache cache = new CardSnapshotCache(100_000, 60, Clock.systemUTC());
+        CurrentUserWithPerimeters user = createUser("user1", "group1");
+        CardSnapshotCache.Key key = new CardSnapshotCache.Key(PerimeterSignature.of(user), START, END);
+        CardSnapshotCache.Load load = cache.startLoad(key, user);
+        load.add("card1", "operation-card1");
+        cache.onCardEvent(cardEvent("card2", "group1"));
+        load.add("card3", "operation-card3");
+        cache.completeLoad(load);
+
+        Assertions.assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    void evictLeastRecentlyUsedSnapshotWhenBudgetIsExceeded() {
+        CardSnapshotCache cache = new CardSnapshotCache(1000, 60, Clock.systemUTC());
+        CardSnapshotCache.Key keyUser1 = load(cache, createUser("user1", "group1"), "card1");
+        CardSnapshotCache.Key keyUser2 = load(cache, createUser("user2", "group1"), "card1");
+        cache.get(keyUser1);
+        CardSnapshotCache.Key keyUser3 = load(cache, createUser("user3", "group1"), "card1");
+
+        Assertions.assertThat(cache.size()).isEqualTo(2);
+        Assertions.assertThat(cache.get(keyUser2)).isNull();
+        Assertions.assertThat(cache.get(keyUser1)).isNotNull();
+        Assertions.assertThat(cache.get(keyUser3)).isNotNull();
+        Assertions.assertThat(cache.getSizeInBytes()).isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    void expireSnapshotAfterTimeToLive() {
+        MutableClock clock = new MutableClock(START);
+        CardSnapshotCache cache = new CardSnapshotCache(100_000, 60, clock);
+        CardSnapshotCache.Key key = load(cache, createUser("user1", "group1"), "card1");
+
+        clock.now = START.plusSeconds(59);
+        Assertions.assertThat(cache.get(key)).isNotNull();
+        clock.now = START.plusSeconds(61);
+        Assertions.assertThat(cache.get(key)).isNull();
+        Assertions.assertThat(cache.size()).isZero();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
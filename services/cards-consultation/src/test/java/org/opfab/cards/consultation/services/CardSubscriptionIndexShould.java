@@ -0,0 +1,128 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opfab.users.model.ComputedPerimeter;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+import org.opfab.users.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+class CardSubscriptionIndexShould {
+
+    private CardSubscriptionIndex index;
+    private CardSubscription subscriptionUser1;
+    private CardSubscription subscriptionUser2;
+    private CardSubscription subscriptionUser3;
+
+    private CurrentUserWithPerimeters createUser(String login, List<String> groups, List<String> entities, RightEnum right) {
+        User user = new User();
+        user.setLogin(login);
+        user.setGroups(new ArrayList<>(groups));
+        user.setEntities(new ArrayList<>(entities));
+
+        ComputedPerimeter perimeter = new ComputedPerimeter();
+        perimeter.setProcess("process1");
+        perimeter.setState("state1");
+        perimeter.setRights(right);
+
+        CurrentUserWithPerimeters currentUserWithPerimeters = new CurrentUserWithPerimeters();
+        currentUserWithPerimeters.setUserData(user);
+        currentUserWithPerimeters.setComputedPerimeters(List.of(perimeter));
+        return currentUserWithPerimeters;
+    }
+
+    private CardSubscription subscribe(CurrentUserWithPerimeters user) {
+        CardSubscription subscription = CardSubscription.builder()
+                .currentUserWithPerimeters(user)
+                .clientId("client")
+                .build();
+        index.add(subscription, user);
+        return subscription;
+    }
+
+    private CardEvent card(String type, String recipients, String publisher, String publisherType) {
+        return CardEvent.parse("{\"type\":\"" + type + "\",\"card\":{\"id\":\"process1.id1\",\"process\":\"process1\","
+                + "\"state\":\"state1\",\"publisher\":\"" + publisher + "\",\"publisherType\":\"" + publisherType + "\","
+                + recipients + "}}");
+    }
+
+    @BeforeEach
+    void init() {
+        index = new CardSubscriptionIndex();
+        subscriptionUser1 = subscribe(createUser("user1", List.of("group1"), List.of("entity1"), RightEnum.Receive));
+        subscriptionUser2 = subscribe(createUser("user2", List.of("group2"), List.of("entity2"), RightEnum.ReceiveAndWrite));
+        subscriptionUser3 = subscribe(createUser("user3", List.of("group1"), List.of("entity2"), RightEnum.Write));
+    }
+
+    @Test
+    void findSubscriptionsByGroupEntityAndLogin() {
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group1\"]", "publisher", "EXTERNAL")))
+                .containsExactly(subscriptionUser1);
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"entityRecipients\":[\"entity2\"]", "publisher", "EXTERNAL")))
+                .containsExactly(subscriptionUser2);
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"userRecipients\":[\"user1\",\"user2\"]", "publisher", "EXTERNAL")))
+                .containsExactlyInAnyOrder(subscriptionUser1, subscriptionUser2);
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group3\"]", "publisher", "EXTERNAL")))
+                .isEmpty();
+    }
+
+    @Test
+    void findSubscriptionsOfPublisher() {
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group3\"]", "entity1", "ENTITY")))
+                .containsExactly(subscriptionUser1);
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group3\"]", "user2", "USER")))
+                .containsExactly(subscriptionUser2);
+    }
+
+    @Test
+    void findAllSubscriptionsWithReceiveRightForUpdate() {
+        Assertions.assertThat(index.findCandidates(card("UPDATE", "\"groupRecipients\":[\"group3\"]", "publisher", "EXTERNAL")))
+                .containsExactlyInAnyOrder(subscriptionUser1, subscriptionUser2);
+    }
+
+    @Test
+    void notFindRemovedSubscription() {
+        index.remove(subscriptionUser1);
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group1\"]", "publisher", "EXTERNAL")))
+                .isEmpty();
+    }
+
+    @Test
+    void returnStaleSubscriptionsUntilTheyAreIndexedAgain() {
+        index.markAsStale("user3");
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group3\"]", "publisher", "EXTERNAL")))
+                .containsExactly(subscriptionUser3);
+
+        index.refresh(subscriptionUser3, createUser("user3", List.of("group3"), List.of("entity2"), RightEnum.Receive));
+
+        Assertions.assertThat(index.isStale(subscriptionUser3)).isFalse();
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group3\"]", "publisher", "EXTERNAL")))
+                .containsExactly(subscriptionUser3);
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group1\"]", "publisher", "EXTERNAL")))
+                .containsExactly(subscriptionUser1);
+    }
+
+    @Test
+    void markAllSubscriptionsAsStaleWhenTheChangeIsNotRelatedToAUser() {
+        index.markAsStale("");
+        Assertions.assertThat(index.isStale(subscriptionUser1)).isTrue();
+        Assertions.assertThat(index.isStale(subscriptionUser2)).isTrue();
+        Assertions.assertThat(index.isStale(subscriptionUser3)).isTrue();
+        Assertions.assertThat(index.findCandidates(card("ADD", "\"groupRecipients\":[\"group4\"]", "publisher", "EXTERNAL")))
+                .containsExactlyInAnyOrder(subscriptionUser1, subscriptionUser2, subscriptionUser3);
+    }
+}
@@ -0,0 +1,176 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opfab.cards.consultation.model.CardOperationTypeEnum;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+class SubscriptionBufferShould {
+
+    private Flux<String> createFlux(SubscriptionBuffer buffer) {
+        return Flux.create(emitter -> {
+            buffer.attach(emitter);
+            emitter.onRequest(n -> buffer.drain());
+        });
+    }
+
+    @Test
+    void sendMessagesOnlyWhenRequested() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 10, SlowConsumerPolicy.RELOAD, false, null, null);
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> {
+                    buffer.publish("message1");
+                    buffer.publish("message2");
+                })
+                .expectNoEvent(Duration.ofMillis(10))
+                .then(() -> Assertions.assertThat(buffer.size()).isEqualTo(2))
+                .thenRequest(1)
+                .expectNext("message1")
+                .thenRequest(1)
+                .expectNext("message2")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void requestReloadWhenBufferIsFull() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 3, SlowConsumerPolicy.RELOAD, false, null, null);
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> {
+                    for (int i = 0; i < 5; i++)
+                        buffer.publish("message" + i);
+                })
+                .thenRequest(10)
+                .expectNext("RELOAD")
+                .then(() -> buffer.publish("messageAfterReload"))
+                .expectNext("messageAfterReload")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void coalesceOperationsOnTheSameCardWhenBufferIsFull() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 3, SlowConsumerPolicy.COALESCE, false, null, null);
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> {
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v1");
+                    buffer.publish("card2", CardOperationTypeEnum.UPDATE, "card2-v1");
+                    buffer.publish("card3", CardOperationTypeEnum.UPDATE, "card3-v1");
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v2");
+                })
+                .thenRequest(10)
+                .expectNext("card2-v1", "card3-v1", "card1-v2")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void completeSubscriptionWhenBufferIsFullAndPolicyIsDisconnect() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 2, SlowConsumerPolicy.DISCONNECT, false, null, null);
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> {
+                    for (int i = 0; i < 3; i++)
+                        buffer.publish("message" + i);
+                })
+                .thenRequest(10)
+                .verifyComplete();
+    }
+
+    @Test
+    void pullMessagesFromSourceOnlyWhenThereIsRoomInBuffer() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 4, SlowConsumerPolicy.RELOAD, false, null, null);
+        AtomicInteger requested = new AtomicInteger();
+        Flux<String> oldCards = Flux.range(0, 10).map(i -> "card" + i)
+                .doOnRequest(n -> requested.addAndGet((int) n));
+
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> buffer.publishWithBackpressure(oldCards, "END"))
+                .then(() -> Assertions.assertThat(requested.get()).isEqualTo(2))
+                .then(() -> Assertions.assertThat(buffer.size()).isEqualTo(2))
+                .thenRequest(11)
+                .expectNextCount(10)
+                .expectNext("END")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void keepOnlyLastPendingOperationOfACardInPublicationOrder() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 10, SlowConsumerPolicy.RELOAD, true, null, null);
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> {
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v1");
+                    buffer.publish("card2", CardOperationTypeEnum.UPDATE, "card2-v1");
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v2");
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v3");
+                })
+                .then(() -> Assertions.assertThat(buffer.size()).isEqualTo(2))
+                .thenRequest(10)
+                .expectNext("card2-v1", "card1-v3")
+                .then(() -> buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v4"))
+                .expectNext("card1-v4")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void dropCardCreatedAndDeletedBeforeBeingSent() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 10, SlowConsumerPolicy.RELOAD, true, null, null);
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> {
+                    buffer.publish("card1", CardOperationTypeEnum.ADD, "card1-add");
+                    buffer.publish("card2", CardOperationTypeEnum.UPDATE, "card2-update");
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-update");
+                    buffer.publish("card1", CardOperationTypeEnum.DELETE, "card1-delete");
+                    buffer.publish("card2", CardOperationTypeEnum.DELETE, "card2-delete");
+                })
+                .thenRequest(10)
+                .expectNext("card2-delete")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void notCoalesceOperationsAcrossAMessageNotRelatedToACard() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 10, SlowConsumerPolicy.RELOAD, true, null, null);
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> {
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v1");
+                    buffer.publish("ack-card1");
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v2");
+                })
+                .thenRequest(10)
+                .expectNext("card1-v1", "ack-card1", "card1-v2")
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void coalesceOperationsAcrossAHeartbeat() {
+        SubscriptionBuffer buffer = new SubscriptionBuffer("sub", 10, SlowConsumerPolicy.RELOAD, true, null, null);
+        StepVerifier.create(createFlux(buffer), 0)
+                .then(() -> {
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v1");
+                    buffer.publish(SubscriptionBuffer.HEARTBEAT);
+                    buffer.publish("card1", CardOperationTypeEnum.UPDATE, "card1-v2");
+                })
+                .thenRequest(10)
+                .expectNext(SubscriptionBuffer.HEARTBEAT, "card1-v2")
+                .thenCancel()
+                .verify();
+    }
+}
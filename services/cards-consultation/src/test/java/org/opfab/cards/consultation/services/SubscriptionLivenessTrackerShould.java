@@ -0,0 +1,55 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.User;
+
+import java.time.Instant;
+
+
+class SubscriptionLivenessTrackerShould {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private CardSubscription createSubscription(String login) {
+        User user = new User();
+        user.setLogin(login);
+        CurrentUserWithPerimeters currentUserWithPerimeters = new CurrentUserWithPerimeters();
+        currentUserWithPerimeters.setUserData(user);
+        CardSubscription subscription = CardSubscription.builder()
+                .currentUserWithPerimeters(currentUserWithPerimeters)
+                .clientId("client")
+                .build();
+        subscription.setHeartbeatReceptionDate(START);
+        return subscription;
+    }
+
+    @Test
+    void returnSubscriptionsWithoutHeartbeatSinceMoreThanTimeout() {
+        SubscriptionLivenessTracker tracker = new SubscriptionLivenessTracker(100);
+        CardSubscription subscription1 = createSubscription("user1");
+        CardSubscription subscription2 = createSubscription("user2");
+        tracker.track(subscription1);
+        tracker.track(subscription2);
+
+        Assertions.assertThat(tracker.pollExpiredSubscriptions(START.plusSeconds(50))).isEmpty();
+
+        subscription2.setHeartbeatReceptionDate(START.plusSeconds(60));
+        Assertions.assertThat(tracker.pollExpiredSubscriptions(START.plusSeconds(101))).containsExactly(subscription1);
+        Assertions.assertThat(tracker.size()).isEqualTo(1);
+
+        Assertions.assertThat(tracker.pollExpiredSubscriptions(START.plusSeconds(150))).isEmpty();
+        Assertions.assertThat(tracker.pollExpiredSubscriptions(START.plusSeconds(161))).containsExactly(subscription2);
+        Assertions.assertThat(tracker.size()).isZero();
+    }
+}
@@ -0,0 +1,56 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.consultation.services;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opfab.users.model.ComputedPerimeter;
+import org.opfab.users.model.CurrentUserWithPerimeters;
+import org.opfab.users.model.RightEnum;
+import org.opfab.users.model.User;
+
+import java.util.List;
+import java.util.Map;
+
+
+class UserRightsShould {
+
+    private ComputedPerimeter perimeter(String process, String state, RightEnum right) {
+        ComputedPerimeter perimeter = new ComputedPerimeter();
+        perimeter.setProcess(process);
+        perimeter.setState(state);
+        perimeter.setRights(right);
+        return perimeter;
+    }
+
+    @Test
+    void giveRightsPerProcessAndState() {
+        User user = new User();
+        user.setLogin("user1");
+        CurrentUserWithPerimeters currentUserWithPerimeters = new CurrentUserWithPerimeters();
+        currentUserWithPerimeters.setUserData(user);
+        currentUserWithPerimeters.setComputedPerimeters(List.of(
+                perimeter("process1", "state1", RightEnum.Receive),
+                perimeter("process1", "state2", RightEnum.Write),
+                perimeter("process2", "state1", RightEnum.ReceiveAndWrite)));
+        currentUserWithPerimeters.setProcessesStatesNotNotified(Map.of("process2", List.of("state1")));
+
+        UserRights userRights = new UserRights(currentUserWithPerimeters);
+
+        Assertions.assertThat(userRights.getUser()).isSameAs(currentUserWithPerimeters);
+        Assertions.assertThat(userRights.getRight("process1", "state2")).isEqualTo(RightEnum.Write);
+        Assertions.assertThat(userRights.hasReceiveRight("process1", "state1")).isTrue();
+        Assertions.assertThat(userRights.hasReceiveRight("process1", "state2")).isFalse();
+        Assertions.assertThat(userRights.hasReceiveRight("process2", "state1")).isTrue();
+        Assertions.assertThat(userRights.hasReceiveRight("process3", "state1")).isFalse();
+        Assertions.assertThat(userRights.mustBeNotified("process1", "state1")).isTrue();
+        Assertions.assertThat(userRights.mustBeNotified("process2", "state1")).isFalse();
+    }
+}
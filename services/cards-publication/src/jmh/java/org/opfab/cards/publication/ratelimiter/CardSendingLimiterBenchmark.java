@@ -0,0 +1,94 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.ratelimiter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of the sending checks from 64 threads, compared with the previous implementation
+ * ({@link ListCardSendingLimiter}), with all the threads sending for the same publisher or each thread for its own
+ * publisher. Launched with: ./gradlew :services:cards-publication:jmh
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class CardSendingLimiterBenchmark {
+
+    private static final int LIMIT_PERIOD_IN_SEC = 3600;
+
+    @State(Scope.Benchmark)
+    public static class Limiters {
+
+        @Param({"1", "64"})
+        int publisherCount;
+
+        @Param({"10", "1000"})
+        int limitCardCount;
+
+        String[] logins;
+        CardSendingLimiter limiter;
+        ListCardSendingLimiter listLimiter;
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            CustomClock clock = new DefaultClock();
+            limiter = new CardSendingLimiter(limitCardCount, LIMIT_PERIOD_IN_SEC, clock);
+            listLimiter = new ListCardSendingLimiter(limitCardCount, LIMIT_PERIOD_IN_SEC, clock);
+            logins = new String[publisherCount];
+            for (int i = 0; i < publisherCount; i++) {
+                logins[i] = "publisher" + i;
+                // Registered before the concurrent sendings as the previous implementation does not support
+                // concurrent registrations
+                limiter.isNewSendingAllowed(logins[i]);
+                listLimiter.isNewSendingAllowed(logins[i]);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Publisher {
+
+        String login;
+
+        @Setup(Level.Trial)
+        public void setUp(Limiters limiters) {
+            login = limiters.logins[limiters.threadCount.getAndIncrement() % limiters.publisherCount];
+        }
+    }
+
+    @Benchmark
+    public boolean ringBuffer(Limiters limiters, Publisher publisher) {
+        return limiters.limiter.isNewSendingAllowed(publisher.login);
+    }
+
+    @Benchmark
+    public boolean list(Limiters limiters, Publisher publisher) {
+        return limiters.listLimiter.isNewSendingAllowed(publisher.login);
+    }
+}
@@ -10,6 +10,8 @@
 
 package org.opfab.cards.publication.configuration;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.Optional;
 
 import org.opfab.cards.publication.repositories.CardRepository;
@@ -56,18 +58,25 @@ public class Services {
             @Value("${operatorfabric.cards-publication.cardSendingLimitPeriod:3600}") int cardSendingLimitPeriod,
             @Value("${operatorfabric.cards-publication.activateCardSendingLimiter:true}") boolean activateCardSendingLimiter,
             @Value("${operatorfabric.servicesUrls.businessconfig:http://businessconfig:2100}") String businessconfigUrl,
+            @Value("${operatorfabric.cards-publication.businessconfigCacheMaxEntries:1000}") int businessconfigCacheMaxEntries,
             CustomScreenDataFields customScreenDataFields) {
 
+        // One client for all the calls to businessconfig, so the connections are reused
+        HttpClient businessconfigHttpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
         if (!i18nRepository.isPresent()) {
             this.cardTranslationService = new CardTranslationService(
-                    new I18NRepositoryImpl(eventBus, businessconfigUrl));
+                    new I18NRepositoryImpl(eventBus, businessconfigUrl, businessconfigHttpClient,
+                            businessconfigCacheMaxEntries));
         } else {
             this.cardTranslationService = new CardTranslationService(i18nRepository.get());
         }
         this.userActionLogService = userActionLogService;
         CardNotificationService cardNotificationService = new CardNotificationService(eventBus, objectMapper, customScreenDataFields);
         cardValidationService = new CardValidationService(cardRepository,
-                new ProcessRepositoryImpl(businessconfigUrl, eventBus));
+                new ProcessRepositoryImpl(businessconfigUrl, businessconfigHttpClient, eventBus,
+                        businessconfigCacheMaxEntries));
         cardDeletionService = new CardDeletionService(cardNotificationService, cardRepository, externalAppService,
                 checkAuthenticationForCardSending);
         cardProcessingService = new CardProcessingService(cardDeletionService, cardNotificationService,
@@ -1,5 +1,5 @@
 /* Copyright (c) 2020, Alliander (http://www.alliander.com)
- * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * Copyright (c) 2021-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -14,6 +14,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.opfab.avro.CardCommand;
 import org.opfab.cards.publication.kafka.command.CommandHandler;
+import org.opfab.cards.publication.kafka.consumer.CardCommandBatchConsumerListener;
 import org.opfab.cards.publication.kafka.consumer.CardCommandConsumerListener;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
@@ -34,6 +35,8 @@ import java.util.List;
 @Configuration
 public class KafkaListenerContainerFactoryConfiguration {
 
+    private static final String BATCH_LISTENER_PROPERTY = "operatorfabric.cards-publication.kafka.batchListener";
+
     private final KafkaProperties kafkaProperties;
 
     private final ConsumerFactory<String, CardCommand> consumerFactory;
@@ -56,6 +59,10 @@ public class KafkaListenerContainerFactoryConfiguration {
 
     @Bean
     public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, CardCommand>> kafkaListenerContainerFactory() {
+        return createContainerFactory();
+    }
+
+    private ConcurrentKafkaListenerContainerFactory<String, CardCommand> createContainerFactory() {
         KafkaProperties.Listener listener = kafkaProperties.getListener();
         Integer concurrency = getConcurrency(listener);
         Long pollTimeOut = getPollTimeout(listener);
@@ -68,9 +75,27 @@ public class KafkaListenerContainerFactoryConfiguration {
         return factory;
     }
 
+    /**
+     * Container factory delivering the records by batch of at most spring.kafka.consumer.max-poll-records records
+     */
+    @Bean
+    @ConditionalOnProperty(name = BATCH_LISTENER_PROPERTY, havingValue = "true")
+    public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, CardCommand>> kafkaBatchListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, CardCommand> factory = createContainerFactory();
+        factory.setBatchListener(true);
+        return factory;
+    }
+
     @Bean
+    @ConditionalOnProperty(name = BATCH_LISTENER_PROPERTY, havingValue = "false", matchIfMissing = true)
     CardCommandConsumerListener createCardCommandConsumerListener(List<CommandHandler> commandHandlerList) {
         return new CardCommandConsumerListener(commandHandlerList);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = BATCH_LISTENER_PROPERTY, havingValue = "true")
+    CardCommandBatchConsumerListener createCardCommandBatchConsumerListener(List<CommandHandler> commandHandlerList) {
+        return new CardCommandBatchConsumerListener(commandHandlerList);
+    }
+
 }
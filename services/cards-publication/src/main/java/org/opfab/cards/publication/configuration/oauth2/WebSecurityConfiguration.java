@@ -74,6 +74,7 @@ public class WebSecurityConfiguration {
                         .requestMatchers("/cards/resetReadAndAcks/**").access(hasAnyUsername("opfab"))
                         .requestMatchers(HttpMethod.DELETE, "/cards").access(hasAnyRole(ADMIN_ROLE))
                         .requestMatchers("/cards/rateLimiter").access(hasAnyRole(ADMIN_ROLE))
+                        .requestMatchers("/cards/queryPlans").access(hasAnyRole(ADMIN_ROLE))
                         .requestMatchers("/**").access(authenticated())
                     );
         } else {
@@ -87,6 +88,7 @@ public class WebSecurityConfiguration {
                         .requestMatchers("/cards/translateCardField").access(authenticated())
                         .requestMatchers("/cards/resetReadAndAcks/**").access(hasAnyUsername("opfab"))
                         .requestMatchers("/cards/rateLimiter").access(hasAnyRole(ADMIN_ROLE))
+                        .requestMatchers("/cards/queryPlans").access(hasAnyRole(ADMIN_ROLE))
                         .requestMatchers("/**").permitAll()
                     );
         }
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -13,6 +13,7 @@ import org.opfab.useractiontracing.model.UserActionEnum;
 import org.opfab.useractiontracing.services.UserActionLogService;
 import org.opfab.cards.publication.configuration.Services;
 import org.opfab.cards.publication.model.CardCreationReport;
+import org.opfab.cards.publication.model.CardCreationResult;
 import org.opfab.cards.publication.model.Card;
 import org.opfab.cards.publication.model.FieldToTranslate;
 import org.opfab.cards.publication.model.TranslatedField;
@@ -80,6 +81,36 @@ public class CardController {
         return new CardCreationReport(card.getId(), card.getUid());
     }
 
+    /**
+     * POST several cards, each card being published as if it was sent alone to POST /cards
+     *
+     * @return the result of the publication of each card, in the order of the cards
+     */
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public List<CardCreationResult> createCards(@RequestBody List<Card> cards, Principal principal) {
+        OpFabJwtAuthenticationToken jwtPrincipal = (OpFabJwtAuthenticationToken) principal;
+        CurrentUserWithPerimeters user = null;
+        Jwt token = null;
+        if (jwtPrincipal != null) {
+            user = (CurrentUserWithPerimeters) jwtPrincipal.getPrincipal();
+            token = jwtPrincipal.getToken();
+        }
+
+        List<CardCreationResult> results = cardProcessingService.processCards(cards, Optional.ofNullable(user),
+                Optional.ofNullable(token));
+
+        for (int i = 0; i < cards.size(); i++) {
+            if (results.get(i).status() == HttpStatus.CREATED.value()) {
+                Card card = cards.get(i);
+                logUserAction(user != null ? user.getUserData().getLogin() : null,
+                        card.getParentCardId() != null ? UserActionEnum.SEND_RESPONSE : UserActionEnum.SEND_CARD,
+                        user != null ? user.getUserData().getEntities() : null, card.getUid(), null);
+            }
+        }
+        return results;
+    }
+
     @PatchMapping(value = "/{id}", produces = { "application/json" }, consumes = { "application/json" })
     @ResponseStatus(HttpStatus.OK)
     public CardCreationReport patchCard( @PathVariable String id, @RequestBody Card card,
@@ -0,0 +1,37 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.controllers;
+
+import org.opfab.cards.publication.model.QueryPlanReport;
+import org.opfab.cards.publication.mongo.CardIndexManager;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Diagnostic of the plans chosen by MongoDB for the queries on the card collections
+ */
+@RestController
+@RequestMapping("/cards/queryPlans")
+public class QueryPlanController {
+
+    private final CardIndexManager cardIndexManager;
+
+    QueryPlanController(CardIndexManager cardIndexManager) {
+        this.cardIndexManager = cardIndexManager;
+    }
+
+    @GetMapping
+    public List<QueryPlanReport> getQueryPlans() {
+        return cardIndexManager.explainQueryShapes();
+    }
+}
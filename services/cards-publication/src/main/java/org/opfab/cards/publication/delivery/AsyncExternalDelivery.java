@@ -0,0 +1,115 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.delivery;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * <p>Asynchronous delivery of the cards to the external recipients, when
+ * operatorfabric.cards-publication.externalRecipientsDelivery.async is true.</p>
+ * <p>The card is saved and notified without waiting for the external applications: each recipient has its own queue,
+ * so a slow or unavailable application only delays its own deliveries. The connections are reused by a single HTTP
+ * client with connection and read timeouts.</p>
+ */
+@Service
+public class AsyncExternalDelivery {
+
+    private final boolean enabled;
+    private final int connectionsPerRecipient;
+    private final int queueSize;
+    private final int maxRetries;
+    private final long retryInitialDelay;
+    private final int circuitBreakerFailureThreshold;
+    private final long circuitBreakerOpenDuration;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final Map<String, RecipientDeliveryQueue> queues = new ConcurrentHashMap<>();
+    private RestTemplate restTemplate;
+    private ScheduledExecutorService retryScheduler;
+
+    public AsyncExternalDelivery(
+            ObjectProvider<MeterRegistry> meterRegistryProvider,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.async:false}") boolean enabled,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.connectionsPerRecipient:2}") int connectionsPerRecipient,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.queueSize:1000}") int queueSize,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.connectTimeout:5000}") long connectTimeout,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.readTimeout:10000}") long readTimeout,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.maxRetries:3}") int maxRetries,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.retryInitialDelay:1000}") long retryInitialDelay,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.circuitBreakerFailureThreshold:5}") int circuitBreakerFailureThreshold,
+            @Value("${operatorfabric.cards-publication.externalRecipientsDelivery.circuitBreakerOpenDuration:30000}") long circuitBreakerOpenDuration) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.enabled = enabled;
+        this.connectionsPerRecipient = connectionsPerRecipient;
+        this.queueSize = queueSize;
+        this.maxRetries = maxRetries;
+        this.retryInitialDelay = retryInitialDelay;
+        this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+        if (enabled) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofMillis(connectTimeout))
+                    .build();
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(Duration.ofMillis(readTimeout));
+            this.restTemplate = new RestTemplate(requestFactory);
+            this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "external-delivery-retries");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the request for the recipient and returns immediately
+     *
+     * @param description describes the delivery in the logs
+     */
+    public void deliver(String recipientId, String url, HttpMethod method, HttpEntity<String> request,
+                        String description) {
+        queues.computeIfAbsent(recipientId, this::createQueue)
+                .submit(description, () -> restTemplate.exchange(url, method, request, Void.class));
+    }
+
+    private RecipientDeliveryQueue createQueue(String recipientId) {
+        return new RecipientDeliveryQueue(recipientId, connectionsPerRecipient, queueSize, maxRetries,
+                retryInitialDelay,
+                new CircuitBreaker(circuitBreakerFailureThreshold, circuitBreakerOpenDuration, System::currentTimeMillis),
+                retryScheduler, meterRegistryProvider.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queues.values().forEach(RecipientDeliveryQueue::shutdown);
+        if (retryScheduler != null)
+            retryScheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,82 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.delivery;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling an external application after a number of consecutive failures. Once the open duration has elapsed,
+ * a single call is let through: its success closes the circuit, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationInMillis;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+
+    public CircuitBreaker(int failureThreshold, long openDurationInMillis, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationInMillis = openDurationInMillis;
+        this.clock = clock;
+    }
+
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.getAsLong() < openUntil)
+                    return false;
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                // a trial call is in progress
+                return false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntil = clock.getAsLong() + openDurationInMillis;
+        }
+    }
+
+    /**
+     * Time before a call is let through again, 0 if the circuit is closed or if the open duration has elapsed
+     */
+    public synchronized long remainingOpenTime() {
+        if (state != State.OPEN)
+            return 0;
+        return Math.max(0, openUntil - clock.getAsLong());
+    }
+
+    public synchronized boolean isOpen() {
+        return state != State.CLOSED;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,182 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.delivery;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deliveries waiting to be sent to one external recipient, sent by a fixed number of threads (so at most this number
+ * of connections to the recipient). A delivery failing because the recipient is unreachable or answers with a server
+ * error is retried with an exponential backoff, a delivery rejected by the recipient (4xx) is not. When the queue is
+ * full, new deliveries are dropped rather than blocking the publication of the cards.
+ * While the circuit of the recipient is open, the deliveries wait for it to close again without using up their
+ * retries, within the limit of the queue size.
+ */
+@Slf4j
+public class RecipientDeliveryQueue {
+
+    public record Delivery(String description, Runnable send, int attempt) {
+
+        Delivery nextAttempt() {
+            return new Delivery(description, send, attempt + 1);
+        }
+    }
+
+    private static final int MAX_BACKOFF_EXPONENT = 10;
+
+    private final String recipientId;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService retryScheduler;
+    private final CircuitBreaker circuitBreaker;
+    private final int queueSize;
+    private final int maxRetries;
+    private final long retryInitialDelayInMillis;
+    private final AtomicInteger deliveriesWaitingForCircuit = new AtomicInteger();
+
+    private final Counter deliveredCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Counter droppedCounter;
+
+    public RecipientDeliveryQueue(String recipientId, int connections, int queueSize, int maxRetries,
+                                  long retryInitialDelayInMillis, CircuitBreaker circuitBreaker,
+                                  ScheduledExecutorService retryScheduler, MeterRegistry meterRegistry) {
+        this.recipientId = recipientId;
+        this.queueSize = queueSize;
+        this.maxRetries = maxRetries;
+        this.retryInitialDelayInMillis = retryInitialDelayInMillis;
+        this.circuitBreaker = circuitBreaker;
+        this.retryScheduler = retryScheduler;
+        this.executor = new ThreadPoolExecutor(connections, connections, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "external-delivery-" + recipientId);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        deliveredCounter = deliveryCounter(meterRegistry, "delivered");
+        retriedCounter = deliveryCounter(meterRegistry, "retried");
+        failedCounter = deliveryCounter(meterRegistry, "failed");
+        droppedCounter = deliveryCounter(meterRegistry, "dropped");
+        Gauge.builder("opfab.externalRecipients.pendingDeliveries", executor, pool -> pool.getQueue().size() + deliveriesWaitingForCircuit.get())
+                .description("Number of deliveries waiting to be sent to an external recipient")
+                .tag("recipient", recipientId)
+                .register(meterRegistry);
+        Gauge.builder("opfab.externalRecipients.circuitOpen", circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("1 when the calls to an external recipient are suspended after consecutive failures")
+                .tag("recipient", recipientId)
+                .register(meterRegistry);
+    }
+
+    private Counter deliveryCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("opfab.externalRecipients.deliveries")
+                .description("Number of deliveries to an external recipient by result")
+                .tag("recipient", recipientId)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public void submit(String description, Runnable send) {
+        submit(new Delivery(description, send, 0));
+    }
+
+    private void submit(Delivery delivery) {
+        try {
+            executor.execute(() -> attempt(delivery));
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment();
+            log.error("Delivery queue of external recipient {} full or stopped, {} dropped", recipientId,
+                    delivery.description());
+        }
+    }
+
+    private void attempt(Delivery delivery) {
+        if (!circuitBreaker.allowRequest()) {
+            waitForCircuit(delivery);
+            return;
+        }
+        try {
+            delivery.send().run();
+            circuitBreaker.onSuccess();
+            deliveredCounter.increment();
+        } catch (HttpClientErrorException e) {
+            // The recipient is available but rejects the delivery, sending it again would not change the answer
+            circuitBreaker.onSuccess();
+            failedCounter.increment();
+            log.error("External recipient {} rejected {} with status {}", recipientId, delivery.description(),
+                    e.getStatusCode());
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            retryOrFail(delivery, e.getMessage(), e);
+        }
+    }
+
+    private void retryOrFail(Delivery delivery, String reason, Exception exception) {
+        if (delivery.attempt() >= maxRetries) {
+            failedCounter.increment();
+            log.error("Impossible to send {} to external recipient {} after {} attempts: {}", delivery.description(),
+                    recipientId, delivery.attempt() + 1, reason, exception);
+            return;
+        }
+        retriedCounter.increment();
+        long delay = retryInitialDelayInMillis << Math.min(delivery.attempt(), MAX_BACKOFF_EXPONENT);
+        log.warn("Impossible to send {} to external recipient {} ({}), new attempt in {} ms", delivery.description(),
+                recipientId, reason, delay);
+        try {
+            retryScheduler.schedule(() -> submit(delivery.nextAttempt()), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            droppedCounter.increment();
+        }
+    }
+
+    /**
+     * The recipient has not been called, the delivery is submitted again once the circuit may let calls through,
+     * with the same attempt number
+     */
+    private void waitForCircuit(Delivery delivery) {
+        if (deliveriesWaitingForCircuit.incrementAndGet() > queueSize) {
+            deliveriesWaitingForCircuit.decrementAndGet();
+            droppedCounter.increment();
+            log.error("Too many deliveries waiting for external recipient {} to be called again, {} dropped",
+                    recipientId, delivery.description());
+            return;
+        }
+        // When a trial call is in progress, its result is not known yet
+        long delay = Math.max(circuitBreaker.remainingOpenTime(), retryInitialDelayInMillis);
+        log.debug("Calls to external recipient {} suspended after consecutive failures, {} sent again in {} ms",
+                recipientId, delivery.description(), delay);
+        try {
+            retryScheduler.schedule(() -> {
+                deliveriesWaitingForCircuit.decrementAndGet();
+                submit(delivery);
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            deliveriesWaitingForCircuit.decrementAndGet();
+            droppedCounter.increment();
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
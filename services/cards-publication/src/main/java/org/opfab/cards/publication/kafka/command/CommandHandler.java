@@ -1,5 +1,5 @@
 /* Copyright (c) 2020, Alliander (http://www.alliander.com)
- * Copyright (c) 2021, RTE (http://www.rte-france.com)
+ * Copyright (c) 2021-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -13,9 +13,18 @@ package org.opfab.cards.publication.kafka.command;
 import org.opfab.avro.CardCommand;
 import org.opfab.avro.CommandType;
 
+import java.util.List;
+
 public interface CommandHandler {
 
     CommandType getCommandType();
 
     void executeCommand(CardCommand cardCommand);
+
+    /**
+     * Executes several commands of the type of the handler, in order
+     */
+    default void executeCommands(List<CardCommand> cardCommands) {
+        cardCommands.forEach(this::executeCommand);
+    }
 }
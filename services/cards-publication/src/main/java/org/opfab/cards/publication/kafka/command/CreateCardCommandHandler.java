@@ -1,5 +1,5 @@
 /* Copyright (c) 2020, Alliander (http://www.alliander.com)
-*  Copyright (c) 2021-2024, RTE (http://www.rte-france.com)
+*  Copyright (c) 2021-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -16,8 +16,14 @@ import org.opfab.avro.Card;
 import org.opfab.avro.CardCommand;
 import org.opfab.avro.CommandType;
 import org.opfab.cards.publication.configuration.Services;
+import org.opfab.cards.publication.model.CardCreationResult;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
 @Slf4j
 @RequiredArgsConstructor
 @Component
@@ -41,4 +47,24 @@ public class CreateCardCommandHandler extends BaseCommandHandler implements Comm
             services.getCardProcessingService().processCard(card);
         }
     }
+
+    /**
+     * Publishes the cards of the commands together (see CardProcessingService.processCards), the rejected cards are
+     * logged
+     */
+    @Override
+    public void executeCommands(List<CardCommand> cardCommands) {
+        List<org.opfab.cards.publication.model.Card> cards = cardCommands.stream()
+                .map(this::buildCardPublicationData)
+                .filter(Objects::nonNull)
+                .toList();
+        if (cards.isEmpty())
+            return;
+        List<CardCreationResult> results = services.getCardProcessingService().processCards(cards, Optional.empty(),
+                Optional.empty());
+        results.stream()
+                .filter(result -> result.status() != HttpStatus.CREATED.value())
+                .forEach(result -> log.error("Kafka card {} rejected with status {}: {}", result.id(), result.status(),
+                        result.message()));
+    }
 }
@@ -0,0 +1,68 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.kafka.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.opfab.avro.CardCommand;
+import org.opfab.avro.CommandType;
+import org.opfab.cards.publication.kafka.command.CommandHandler;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Receives the card commands by batch of records (see the "operatorfabric.cards-publication.kafka.batchListener"
+ * property): the consecutive commands of a same type are executed together, so that a burst of card creations is
+ * published with bulk writes
+ */
+@Slf4j
+public class CardCommandBatchConsumerListener {
+
+    private final Map<CommandType, CommandHandler> commandHandlerMap;
+
+    public CardCommandBatchConsumerListener(List<CommandHandler> commandHandlerList) {
+        commandHandlerMap = commandHandlerList.stream()
+                .collect(Collectors.toMap(CommandHandler::getCommandType, it -> it));
+    }
+
+    @KafkaListener(topics = "${operatorfabric.cards-publication.kafka.topics.card.topicname:opfab}", containerFactory = "kafkaBatchListenerContainerFactory")
+    public void receivedCommands(@Payload List<ConsumerRecord<String, CardCommand>> consumerRecords) {
+        log.info("Received {} records", consumerRecords.size());
+        List<CardCommand> commandsOfSameType = new ArrayList<>();
+        for (ConsumerRecord<String, CardCommand> consumerRecord : consumerRecords) {
+            log.debug("Key: {}, Value: {}, Partition: {}, Offset: {}",
+                    consumerRecord.key(), consumerRecord.value(), consumerRecord.partition(), consumerRecord.offset());
+            CardCommand cardCommand = consumerRecord.value();
+            if (!commandsOfSameType.isEmpty() && commandsOfSameType.get(0).getCommand() != cardCommand.getCommand()) {
+                executeCommands(commandsOfSameType);
+                commandsOfSameType = new ArrayList<>();
+            }
+            commandsOfSameType.add(cardCommand);
+        }
+        if (!commandsOfSameType.isEmpty())
+            executeCommands(commandsOfSameType);
+    }
+
+    private void executeCommands(List<CardCommand> cardCommands) {
+        CommandType commandType = cardCommands.get(0).getCommand();
+        CommandHandler commandHandler = commandHandlerMap.get(commandType);
+        if (commandHandler != null) {
+            commandHandler.executeCommands(cardCommands);
+        }
+        else {
+            throw new IllegalStateException("No command handler available for " + commandType);
+        }
+    }
+}
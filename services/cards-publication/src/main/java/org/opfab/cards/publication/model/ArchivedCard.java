@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -16,6 +16,7 @@ import org.springframework.validation.annotation.Validated;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @Document(collection = "archivedCards")
 @Validated
@@ -58,7 +59,10 @@ public record ArchivedCard(
                 RRule rRule,
                 List<CardActionEnum> actions,
                 List<TimeSpan> timeSpans,
-                @Indexed Instant deletionDate) {
+                @Indexed Instant deletionDate,
+                Map<String, String> normalized,
+                Boolean latestVersion,
+                List<String> visibilityKeys) {
 
         public ArchivedCard(Card card) {
                 this(
@@ -100,7 +104,10 @@ public record ArchivedCard(
                                 card.getRRule(),
                                 card.getActions(),
                                 card.getTimeSpans(),
-                                null);
+                                null,
+                                card.computeNormalizedFields(),
+                                true,
+                                card.computeVisibilityKeys());
 
         }
 
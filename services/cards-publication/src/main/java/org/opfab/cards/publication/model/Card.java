@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -15,6 +15,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.validation.constraints.Min;
 import lombok.*;
+import org.opfab.springtools.configuration.mongo.NormalizedFields;
+import org.opfab.springtools.configuration.mongo.VisibilityKeys;
 import org.opfab.utilities.ObjectUtils;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
@@ -70,6 +72,10 @@ public class Card  {
     @Indexed
     private Instant lastUpdate;
 
+    // Increased on each modification of the card, it allows a client to get only the modifications it has missed
+    @Indexed
+    private Long sequence;
+
     private Instant lttd;
     
     @Indexed
@@ -156,6 +162,14 @@ public class Card  {
 
     private List<CardActionEnum> actions;
 
+    // Lower case copies of the fields filtered in the archives and monitoring screens, see NormalizedFields
+    @JsonIgnore
+    private Map<String, String> normalized;
+
+    // Keys of the users receiving the card, see VisibilityKeys
+    @JsonIgnore
+    private List<String> visibilityKeys;
+
     public void prepare(Instant publishDate) {
         this.publishDate = publishDate;
         this.id = process + "." + processInstanceId;
@@ -164,6 +178,15 @@ public class Card  {
         this.entitiesAcks = Collections.emptyList();
     }
 
+    public Map<String, String> computeNormalizedFields() {
+        return NormalizedFields.ofCard(titleTranslated, summaryTranslated, processInstanceId, publisher);
+    }
+
+    public List<String> computeVisibilityKeys() {
+        return VisibilityKeys.ofCard(userRecipients, groupRecipients, entityRecipients,
+                publisherType != null ? publisherType.toString() : null, publisher);
+    }
+
     public Card patch(Card other) {
         Card result = new Card();
 
@@ -193,6 +216,7 @@ public class Card  {
                 this.getSummaryTranslated());
         result.publishDate = this.getPublishDate();
         result.lastUpdate = this.getLastUpdate();
+        result.sequence = this.getSequence();
 
         result.lttd = ObjectUtils.getNotNullOrDefault(other.getLttd(),
                 this.getLttd());
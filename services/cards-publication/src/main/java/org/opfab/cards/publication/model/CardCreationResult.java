@@ -0,0 +1,35 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * Result of the publication of one card of a bulk publication, in the order of the published cards
+ *
+ * @param status  HTTP status the card would have got if published alone
+ * @param message reason of the rejection of the card
+ */
+public record CardCreationResult(@JsonInclude(JsonInclude.Include.NON_EMPTY) String id,
+        @JsonInclude(JsonInclude.Include.NON_EMPTY) String uid,
+        int status,
+        @JsonInclude(JsonInclude.Include.NON_EMPTY) String message) {
+
+    public static CardCreationResult created(Card card) {
+        return new CardCreationResult(card.getId(), card.getUid(), HttpStatus.CREATED.value(), null);
+    }
+
+    public static CardCreationResult rejected(Card card, HttpStatusCode status, String message) {
+        return new CardCreationResult(card.getProcess() + "." + card.getProcessInstanceId(), null, status.value(),
+                message);
+    }
+}
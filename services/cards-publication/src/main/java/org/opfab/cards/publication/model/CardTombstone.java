@@ -0,0 +1,64 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Trace of a deleted card, it keeps the recipients of the card so that only the users who could receive the card
+ * get its deletion when they ask for the modifications since a given sequence
+ */
+@Data
+@Document(collection = "cardTombstones")
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardTombstone {
+
+    @Id
+    private String id;
+    private String uid;
+    private String processStateKey;
+    private String publisher;
+    private PublisherTypeEnum publisherType;
+    private List<String> userRecipients;
+    private List<String> groupRecipients;
+    private List<String> entityRecipients;
+    private List<String> visibilityKeys;
+    @Indexed
+    private Long sequence;
+    @Indexed(expireAfter = "7d")
+    private Instant deletionDate;
+
+    public static CardTombstone of(Card card, long sequence, Instant deletionDate) {
+        return CardTombstone.builder()
+                .id(card.getId())
+                .uid(card.getUid())
+                .processStateKey(card.getProcess() + "." + card.getState())
+                .publisher(card.getPublisher())
+                .publisherType(card.getPublisherType())
+                .userRecipients(card.getUserRecipients())
+                .groupRecipients(card.getGroupRecipients())
+                .entityRecipients(card.getEntityRecipients())
+                .visibilityKeys(card.computeVisibilityKeys())
+                .sequence(sequence)
+                .deletionDate(deletionDate)
+                .build();
+    }
+}
@@ -57,6 +57,7 @@ public record LightCard(
         @JsonProperty("rRule") // if we don't use this annotation, the field will be serialized as "rrule"
         RRule rRule,
         @JsonInclude(JsonInclude.Include.NON_EMPTY) List<CardActionEnum> actions,
+        Long sequence,
         Object data) {
 
     public LightCard(Card card) {
@@ -100,6 +101,7 @@ public record LightCard(
                 card.getSecondsBeforeTimeSpanForReminder(),
                 card.getRRule(),
                 card.getActions(),
+                card.getSequence(),
                 card.getData());
     }
 
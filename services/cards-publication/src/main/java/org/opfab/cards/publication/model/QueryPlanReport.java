@@ -0,0 +1,23 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.model;
+
+import java.util.List;
+
+/**
+ * Plan chosen by MongoDB for a query shape on the card collections
+ *
+ * @param collectionScan true if the plan reads the whole collection
+ * @param indexesUsed    names of the indexes used by the plan
+ * @param error          message of the error if the query shape cannot be explained
+ */
+public record QueryPlanReport(String queryShape, String collection, boolean collectionScan, List<String> indexesUsed,
+        String error) {
+}
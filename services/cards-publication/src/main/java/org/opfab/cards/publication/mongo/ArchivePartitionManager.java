@@ -0,0 +1,128 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.mongo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.opfab.cards.publication.model.ArchivedCard;
+import org.opfab.springtools.configuration.mongo.ArchivePartitions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Collections of the archived cards, see {@link ArchivePartitions}.</p>
+ * <p>A partition gets the indexes of the archivedCards collection (the ones declared on {@link ArchivedCard} and
+ * the ones of {@link CardIndexPlan}) the first time a card is archived in it.</p>
+ * <p>The list of the collections is kept in memory: it is read again when this service creates or drops a partition,
+ * and periodically to get the partitions created by the other instances of the service.</p>
+ */
+@Slf4j
+public class ArchivePartitionManager {
+
+    private static final long COLLECTIONS_REFRESH_PERIOD_IN_MILLIS = 60000;
+
+    private final MongoTemplate template;
+    private final ArchivePartitions partitions;
+    private final Set<String> indexedPartitions = ConcurrentHashMap.newKeySet();
+    // null when the collections must be read again
+    private volatile List<String> collections;
+    private volatile long collectionsReadTime;
+
+    public ArchivePartitionManager(MongoTemplate template,
+                                   @Value("${operatorfabric.archives.partitionByMonth:false}") boolean partitionByMonth) {
+        this.template = template;
+        this.partitions = new ArchivePartitions(partitionByMonth);
+    }
+
+    public boolean isPartitionByMonth() {
+        return partitions.isPartitionByMonth();
+    }
+
+    /**
+     * Collection where a card published at the given date is archived, created with its indexes if needed
+     */
+    public String collectionFor(Instant publishDate) {
+        String collection = partitions.collectionFor(publishDate != null ? publishDate : Instant.now());
+        if (partitions.isPartitionByMonth() && !indexedPartitions.contains(collection)) {
+            createIndexes(collection);
+            indexedPartitions.add(collection);
+            collections = null;
+        }
+        return collection;
+    }
+
+    /**
+     * All the collections of archived cards, the most recent first: a card is usually updated or deleted soon after
+     * its previous version was archived, so its previous version is usually found in the first collection
+     */
+    public List<String> collectionsMostRecentFirst() {
+        if (!partitions.isPartitionByMonth())
+            return List.of(ArchivePartitions.ARCHIVED_CARDS);
+        List<String> currentCollections = collections;
+        long now = System.currentTimeMillis();
+        if (currentCollections == null || now - collectionsReadTime > COLLECTIONS_REFRESH_PERIOD_IN_MILLIS) {
+            currentCollections = partitions.collectionsBetween(template.getCollectionNames(), null, null);
+            collectionsReadTime = now;
+            collections = currentCollections;
+        }
+        return currentCollections;
+    }
+
+    /**
+     * Collections which may hold a card archived at the given publish date: the partition of this date, then the
+     * archivedCards collection if it holds cards archived before partitioning was activated
+     */
+    public List<String> collectionsFor(Instant publishDate) {
+        if (!partitions.isPartitionByMonth())
+            return List.of(ArchivePartitions.ARCHIVED_CARDS);
+        String partition = partitions.collectionFor(publishDate);
+        if (collectionsMostRecentFirst().contains(ArchivePartitions.ARCHIVED_CARDS))
+            return List.of(partition, ArchivePartitions.ARCHIVED_CARDS);
+        return List.of(partition);
+    }
+
+    /**
+     * Drops the partitions holding only cards published before the given date, a drop does not depend on the
+     * number of cards of the partition
+     *
+     * @return the dropped partitions
+     */
+    public List<String> dropPartitionsBefore(Instant date) {
+        List<String> dropped = partitions.partitionsBefore(template.getCollectionNames(), date);
+        dropped.forEach(partition -> {
+            log.info("Drop archived cards partition {}", partition);
+            template.dropCollection(partition);
+            indexedPartitions.remove(partition);
+        });
+        if (!dropped.isEmpty())
+            collections = null;
+        return dropped;
+    }
+
+    private void createIndexes(String partition) {
+        IndexOperations indexOperations = template.indexOps(partition);
+        try {
+            new MongoPersistentEntityIndexResolver(template.getConverter().getMappingContext())
+                    .resolveIndexFor(ArchivedCard.class)
+                    .forEach(indexOperations::ensureIndex);
+            CardIndexPlan.INDEXES.stream()
+                    .filter(index -> index.collection().equals(CardIndexPlan.ARCHIVED_CARDS))
+                    .forEach(index -> indexOperations.ensureIndex(index.definition()));
+        } catch (RuntimeException e) {
+            log.error("Unable to create indexes on archived cards partition {}", partition, e);
+        }
+    }
+}
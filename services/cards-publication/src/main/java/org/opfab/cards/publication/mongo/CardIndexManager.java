@@ -0,0 +1,112 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.mongo;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.opfab.cards.publication.model.QueryPlanReport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Creates the compound indexes of {@link CardIndexPlan} at startup and explains the query shapes to check that
+ * none of them scans a whole collection.</p>
+ */
+@Slf4j
+public class CardIndexManager {
+
+    private static final String COLLECTION_SCAN = "COLLSCAN";
+
+    private final MongoTemplate template;
+    private final boolean createIndexes;
+    private final boolean explainQueryShapesAtStartup;
+
+    public CardIndexManager(MongoTemplate template,
+                            @Value("${operatorfabric.cards-publication.createIndexes:true}") boolean createIndexes,
+                            @Value("${operatorfabric.cards-publication.explainQueryShapesAtStartup:false}")
+                            boolean explainQueryShapesAtStartup) {
+        this.template = template;
+        this.createIndexes = createIndexes;
+        this.explainQueryShapesAtStartup = explainQueryShapesAtStartup;
+    }
+
+    @PostConstruct
+    void init() {
+        if (createIndexes)
+            createIndexes();
+        if (explainQueryShapesAtStartup)
+            explainQueryShapes().forEach(report -> {
+                if (report.collectionScan())
+                    log.warn("Query shape {} on collection {} scans the whole collection", report.queryShape(),
+                            report.collection());
+                else if (report.error() == null)
+                    log.info("Query shape {} on collection {} uses indexes {}", report.queryShape(),
+                            report.collection(), report.indexesUsed());
+            });
+    }
+
+    public void createIndexes() {
+        CardIndexPlan.INDEXES.forEach(index -> {
+            try {
+                template.indexOps(index.collection())
+                        .ensureIndex(index.definition());
+            } catch (RuntimeException e) {
+                // An index with the same keys but another name or options may already exist
+                log.error("Unable to create index {} on collection {}", index.name(), index.collection(), e);
+            }
+        });
+    }
+
+    public List<QueryPlanReport> explainQueryShapes() {
+        List<QueryPlanReport> reports = new ArrayList<>();
+        CardIndexPlan.QUERY_SHAPES.forEach(queryShape -> reports.add(explain(queryShape)));
+        return reports;
+    }
+
+    private QueryPlanReport explain(CardIndexPlan.QueryShape queryShape) {
+        Document find = new Document("find", queryShape.collection()).append("filter", queryShape.filter());
+        if (queryShape.sort() != null)
+            find.append("sort", queryShape.sort());
+        try {
+            Document explanation = template.getDb()
+                    .runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+            Document queryPlanner = explanation.get("queryPlanner", Document.class);
+            Object winningPlan = queryPlanner != null ? queryPlanner.get("winningPlan") : null;
+            List<String> stages = new ArrayList<>();
+            List<String> indexesUsed = new ArrayList<>();
+            collectStagesAndIndexes(winningPlan, stages, indexesUsed);
+            return new QueryPlanReport(queryShape.name(), queryShape.collection(), stages.contains(COLLECTION_SCAN),
+                    indexesUsed, null);
+        } catch (RuntimeException e) {
+            log.error("Unable to explain query shape {}", queryShape.name(), e);
+            return new QueryPlanReport(queryShape.name(), queryShape.collection(), false, List.of(), e.getMessage());
+        }
+    }
+
+    /**
+     * Walks through a plan of an explain result, whatever the nesting of its stages (inputStage, inputStages,
+     * queryPlan for the slot based engine)
+     */
+    static void collectStagesAndIndexes(Object plan, List<String> stages, List<String> indexesUsed) {
+        if (plan instanceof Document planStage) {
+            if (planStage.get("stage") instanceof String stage)
+                stages.add(stage);
+            if (planStage.get("indexName") instanceof String indexName && !indexesUsed.contains(indexName))
+                indexesUsed.add(indexName);
+            planStage.values().forEach(value -> collectStagesAndIndexes(value, stages, indexesUsed));
+        } else if (plan instanceof List<?> planStages) {
+            planStages.forEach(value -> collectStagesAndIndexes(value, stages, indexesUsed));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.mongo;
+
+import org.bson.Document;
+import org.opfab.springtools.configuration.mongo.NormalizedFields;
+import org.opfab.springtools.configuration.mongo.VisibilityKeys;
+import org.springframework.data.mongodb.core.index.CompoundIndexDefinition;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * <p>Compound indexes of the card collections and the query shapes they are made for.</p>
+ * <p>The query shapes reproduce the filters built by cards-consultation (feed of the UI, archives) and
+ * cards-publication (archived card update, expired cards deletion), with placeholder values: the plan chosen by
+ * MongoDB depends on the shape of the filter, not on the values.</p>
+ * <p>Indexes follow the equality, sort, range rule: processStateKey, filtered by $in on the user perimeter,
+ * comes first, then the date or sequence filtered by range.</p>
+ * <p>The recipients of the cards are filtered by a single $in on the visibilityKeys (see {@link VisibilityKeys})
+ * which can be part of the compound indexes, instead of a $or on the recipient fields.</p>
+ */
+public final class CardIndexPlan {
+
+    /**
+     * @param uniqueWhen if not null, the index is unique among the documents matching this filter
+     */
+    public record ManagedIndex(String collection, String name, Document keys, Document uniqueWhen) {
+
+        public ManagedIndex(String collection, String name, Document keys) {
+            this(collection, name, keys, null);
+        }
+
+        public IndexDefinition definition() {
+            Index definition = new CompoundIndexDefinition(keys).named(name);
+            if (uniqueWhen != null)
+                definition.unique().partial(PartialIndexFilter.of(uniqueWhen));
+            return definition;
+        }
+    }
+
+    public record QueryShape(String name, String collection, Document filter, Document sort) {
+    }
+
+    static final String CARDS = "cards";
+    static final String ARCHIVED_CARDS = "archivedCards";
+    static final String CARD_TOMBSTONES = "cardTombstones";
+
+    private static final String PROCESS_STATE_KEY = "processStateKey";
+    private static final String PUBLISH_DATE = "publishDate";
+    private static final String START_DATE = "startDate";
+    private static final String END_DATE = "endDate";
+    private static final String LAST_UPDATE = "lastUpdate";
+    private static final String SEQUENCE = "sequence";
+    private static final String PARENT_CARD_ID = "parentCardId";
+    private static final String LATEST_VERSION = "latestVersion";
+
+    public static final List<ManagedIndex> INDEXES = Stream.concat(Stream.of(
+            new ManagedIndex(CARDS, "opfab_feed_range",
+                    new Document(PROCESS_STATE_KEY, 1).append(START_DATE, 1).append(END_DATE, 1)),
+            new ManagedIndex(CARDS, "opfab_feed_publishDate",
+                    new Document(PROCESS_STATE_KEY, 1).append(PUBLISH_DATE, 1)),
+            new ManagedIndex(CARDS, "opfab_feed_lastUpdate",
+                    new Document(PROCESS_STATE_KEY, 1).append(LAST_UPDATE, 1)),
+            new ManagedIndex(CARDS, "opfab_feed_sequence",
+                    new Document(PROCESS_STATE_KEY, 1).append(SEQUENCE, 1)),
+            new ManagedIndex(CARDS, "opfab_feed_visibility",
+                    new Document(PROCESS_STATE_KEY, 1).append(VisibilityKeys.FIELD, 1)),
+            new ManagedIndex(CARD_TOMBSTONES, "opfab_tombstones_sequence",
+                    new Document(PROCESS_STATE_KEY, 1).append(SEQUENCE, 1)),
+            new ManagedIndex(CARD_TOMBSTONES, "opfab_tombstones_visibility",
+                    new Document(PROCESS_STATE_KEY, 1).append(VisibilityKeys.FIELD, 1).append(SEQUENCE, 1)),
+            new ManagedIndex(ARCHIVED_CARDS, "opfab_archives_publishDate",
+                    new Document(PROCESS_STATE_KEY, 1).append(PUBLISH_DATE, -1)),
+            new ManagedIndex(ARCHIVED_CARDS, "opfab_archives_visibility",
+                    new Document(PROCESS_STATE_KEY, 1).append(VisibilityKeys.FIELD, 1).append(PUBLISH_DATE, -1)),
+            new ManagedIndex(ARCHIVED_CARDS, "opfab_archives_latestVersion",
+                    new Document(PROCESS_STATE_KEY, 1).append(LATEST_VERSION, 1).append(PUBLISH_DATE, -1)),
+            new ManagedIndex(ARCHIVED_CARDS, "opfab_archives_processInstance",
+                    new Document("process", 1).append("processInstanceId", 1).append("deletionDate", 1)),
+            // Only one archived version of a card can be marked as its latest version
+            new ManagedIndex(ARCHIVED_CARDS, "opfab_archives_uniqueLatestVersion",
+                    new Document("process", 1).append("processInstanceId", 1), new Document(LATEST_VERSION, true))),
+            // Case insensitive "equals" and "starts with" filters of the archives and monitoring screens
+            NormalizedFields.FIELDS.stream().flatMap(field -> Stream.of(CARDS, ARCHIVED_CARDS).map(collection ->
+                    new ManagedIndex(collection, "opfab_normalized_" + field,
+                            new Document(NormalizedFields.FIELD + "." + field, 1)))))
+            .toList();
+
+    private static final Date DATE = new Date(0);
+
+    public static final List<QueryShape> QUERY_SHAPES = List.of(
+            new QueryShape("feedInRange", CARDS,
+                    and(userPerimeter(), or(
+                            new Document(START_DATE, range()),
+                            new Document(END_DATE, range()),
+                            and(new Document(START_DATE, new Document("$lte", DATE)),
+                                    new Document(END_DATE, new Document("$gte", DATE))),
+                            new Document(PUBLISH_DATE, range()))),
+                    null),
+            new QueryShape("feedUpdatedFrom", CARDS,
+                    and(new Document(LAST_UPDATE, new Document("$gte", DATE)), userPerimeter()),
+                    null),
+            new QueryShape("feedAfterSequence", CARDS,
+                    and(new Document(SEQUENCE, new Document("$gt", 0L)), userPerimeter()),
+                    null),
+            new QueryShape("deletedCardsAfterSequence", CARD_TOMBSTONES,
+                    and(new Document(SEQUENCE, new Document("$gt", 0L)), userPerimeter()),
+                    new Document(SEQUENCE, 1)),
+            new QueryShape("childCards", CARDS,
+                    new Document(PARENT_CARD_ID, "parentCardId"),
+                    null),
+            new QueryShape("expiredCards", CARDS,
+                    or(and(new Document(END_DATE, new Document("$ne", null)),
+                                    new Document(END_DATE, new Document("$lt", DATE))),
+                            and(new Document(END_DATE, new Document("$exists", false)),
+                                    new Document(START_DATE, new Document("$lt", DATE)))),
+                    null),
+            new QueryShape("archives", ARCHIVED_CARDS,
+                    and(new Document(PUBLISH_DATE, range()), userPerimeter(),
+                            new Document(PARENT_CARD_ID, new Document("$exists", false))),
+                    new Document(PUBLISH_DATE, -1)),
+            new QueryShape("latestArchives", ARCHIVED_CARDS,
+                    and(new Document(PUBLISH_DATE, range()), userPerimeter(), new Document(LATEST_VERSION, true)),
+                    new Document(PUBLISH_DATE, -1)),
+            new QueryShape("archivesWithTitleStartingWith", ARCHIVED_CARDS,
+                    and(new Document(PUBLISH_DATE, range()), userPerimeter(),
+                            new Document(NormalizedFields.FIELD + "." + NormalizedFields.TITLE_TRANSLATED,
+                                    new Document("$regex", "^\\Qtitle\\E"))),
+                    new Document(PUBLISH_DATE, -1)),
+            new QueryShape("archivedCardNotDeleted", ARCHIVED_CARDS,
+                    and(new Document("process", "process"), new Document("processInstanceId", "processInstanceId"),
+                            new Document("deletionDate", null)),
+                    null));
+
+    private CardIndexPlan() {
+    }
+
+    /**
+     * Filter on the cards a user can receive, as built by cards-consultation
+     */
+    private static Document userPerimeter() {
+        return and(new Document(PROCESS_STATE_KEY, new Document("$in", List.of("process.state"))),
+                new Document(VisibilityKeys.FIELD, new Document("$in", List.of("u:login", "g:group"))));
+    }
+
+    private static Document range() {
+        return new Document("$gte", DATE).append("$lte", DATE);
+    }
+
+    private static Document and(Document... filters) {
+        return new Document("$and", List.of(filters));
+    }
+
+    private static Document or(Document... filters) {
+        return new Document("$or", List.of(filters));
+    }
+}
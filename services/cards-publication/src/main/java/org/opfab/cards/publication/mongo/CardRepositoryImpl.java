@@ -10,31 +10,57 @@
 package org.opfab.cards.publication.mongo;
 
 import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.result.UpdateResult;
 import lombok.extern.slf4j.Slf4j;
 
+import org.bson.Document;
 import org.opfab.cards.publication.model.ArchivedCard;
 import org.opfab.cards.publication.model.Card;
+import org.opfab.cards.publication.model.CardTombstone;
 import org.opfab.cards.publication.repositories.CardRepository;
 import org.opfab.cards.publication.repositories.UserBasedOperationResult;
 import org.opfab.users.model.User;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.LiteralOperators;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.addFields;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.limit;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.project;
 import static org.springframework.data.mongodb.core.query.Criteria.where;
 
 @Slf4j
 public class CardRepositoryImpl implements CardRepository {
 
     private MongoTemplate template;
+    private final ArchivePartitionManager archivePartitionManager;
 
     static final String START_DATE = "startDate";
     static final String END_DATE = "endDate";
@@ -42,9 +68,18 @@ public class CardRepositoryImpl implements CardRepository {
     static final String ENTITIES_ACKS = "entitiesAcks";
     static final String USERS_READS = "usersReads";
     static final String LAST_UPDATE = "lastUpdate";
-
-    public CardRepositoryImpl(MongoTemplate template) {
+    static final String SEQUENCE = "sequence";
+    static final String LATEST_VERSION = "latestVersion";
+    static final String DELETION_DATE = "deletionDate";
+    private static final String COLLECTION_FIELD = "collection";
+    private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+    private static final int MAX_LATEST_VERSION_INSERT_ATTEMPTS = 3;
+    static final String SEQUENCES_COLLECTION = "sequences";
+    static final String CARD_SEQUENCE_ID = "cards";
+
+    public CardRepositoryImpl(MongoTemplate template, ArchivePartitionManager archivePartitionManager) {
         this.template = template;
+        this.archivePartitionManager = archivePartitionManager;
     }
 
     public Optional<Card> findByUid(String uid) {
@@ -54,33 +89,262 @@ public class CardRepositoryImpl implements CardRepository {
     }
 
     public Optional<ArchivedCard> findArchivedCardByUid(String uid) {
-        Query query = new Query();
-        query.addCriteria(Criteria.where("id").is(uid));
-        return Optional.ofNullable(template.findOne(query, ArchivedCard.class));
+        List<String> collections = archivePartitionManager.collectionsMostRecentFirst();
+        if (collections.isEmpty())
+            return Optional.empty();
+        return aggregateOnCollections(collections, List.of(match(where("_id").is(uid)), limit(1))).stream()
+                .findFirst()
+                .map(document -> template.getConverter().read(ArchivedCard.class, document));
     }
 
     public void saveCard(Card card) {
         log.debug("preparing to write {}", card.toString());
         card.setLastUpdate(Instant.now());
+        card.setSequence(nextSequence());
+        card.setNormalized(card.computeNormalizedFields());
+        card.setVisibilityKeys(card.computeVisibilityKeys());
         template.save(card);
     }
 
-    public void saveCardToArchive(ArchivedCard card) {
-        this.template.insert(card);
+    /**
+     * The cards are replaced by id with an unordered bulk write, a failing card does not prevent the others from
+     * being saved
+     */
+    public List<Card> saveCards(List<Card> cards) {
+        if (cards.isEmpty())
+            return List.of();
+        Instant lastUpdate = Instant.now();
+        long sequence = reserveSequences(cards.size()) - cards.size();
+        BulkOperations bulkOperations = template.bulkOps(BulkOperations.BulkMode.UNORDERED, Card.class);
+        for (Card card : cards) {
+            card.setLastUpdate(lastUpdate);
+            card.setSequence(++sequence);
+            card.setNormalized(card.computeNormalizedFields());
+            card.setVisibilityKeys(card.computeVisibilityKeys());
+            bulkOperations.replaceOne(Query.query(where("_id").is(card.getId())), card,
+                    FindAndReplaceOptions.options().upsert());
+        }
+        try {
+            bulkOperations.execute();
+            return List.of();
+        } catch (DataAccessException e) {
+            List<BulkWriteError> errors = bulkWriteErrors(e);
+            List<Card> cardsNotSaved = errors != null ?
+                    errors.stream().map(error -> cards.get(error.getIndex())).toList() : cards;
+            log.error("{} cards out of {} could not be saved: {}", cardsNotSaved.size(), cards.size(), e.getMessage());
+            return cardsNotSaved;
+        }
+    }
+
+    public void saveCardsToArchive(List<ArchivedCard> cards, Map<String, Instant> previousVersionPublishDates) {
+        if (cards.isEmpty())
+            return;
+        Map<String, List<String>> collectionsOfPreviousVersions = collectionsOfLatestVersions(
+                cards.stream().map(ArchivedCardKey::of).toList(), previousVersionPublishDates);
+        Map<String, List<ArchivedCard>> cardsByPreviousVersionCollection = new HashMap<>();
+        cards.forEach(card -> collectionsOfPreviousVersions.getOrDefault(ArchivedCardKey.of(card).id(), List.of())
+                .forEach(collection -> cardsByPreviousVersionCollection
+                        .computeIfAbsent(collection, key -> new ArrayList<>()).add(card)));
+        cardsByPreviousVersionCollection.forEach((collection, cardsOfCollection) -> {
+            BulkOperations previousVersions = template.bulkOps(BulkOperations.BulkMode.UNORDERED, ArchivedCard.class,
+                    collection);
+            for (ArchivedCard card : cardsOfCollection) {
+                Criteria sameCard = ArchivedCardKey.of(card).criteria();
+                previousVersions.updateOne(Query.query(new Criteria().andOperator(sameCard,
+                        where(DELETION_DATE).isNull())), Update.update(DELETION_DATE, card.publishDate()));
+                previousVersions.updateMulti(Query.query(new Criteria().andOperator(sameCard,
+                        where(LATEST_VERSION).is(true))), Update.update(LATEST_VERSION, false));
+            }
+            previousVersions.execute();
+        });
+        Map<String, List<ArchivedCard>> cardsByCollection = cards.stream()
+                .collect(Collectors.groupingBy(card -> archivePartitionManager.collectionFor(card.publishDate())));
+        cardsByCollection.forEach((collection, cardsOfCollection) -> {
+            try {
+                template.bulkOps(BulkOperations.BulkMode.UNORDERED, ArchivedCard.class, collection)
+                        .insert(cardsOfCollection)
+                        .execute();
+            } catch (DataAccessException e) {
+                List<BulkWriteError> errors = bulkWriteErrors(e);
+                if (errors == null)
+                    throw e;
+                // Another version of these cards has been archived as latest version since their previous version
+                // lost its marker
+                errors.stream()
+                        .filter(error -> error.getCode() == DUPLICATE_KEY_ERROR_CODE)
+                        .map(error -> cardsOfCollection.get(error.getIndex()))
+                        .forEach(card -> insertAsLatestVersion(card, collection));
+                if (errors.stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY_ERROR_CODE))
+                    throw e;
+            }
+        });
+    }
+
+    private static List<BulkWriteError> bulkWriteErrors(DataAccessException e) {
+        if (e instanceof BulkOperationException bulkOperationException)
+            return bulkOperationException.getErrors();
+        if (e.getCause() instanceof MongoBulkWriteException bulkWriteException)
+            return bulkWriteException.getWriteErrors();
+        return null;
+    }
+
+    /**
+     * Inserts the archived card as the latest version of its card: the previous latest version loses its marker,
+     * so that the searches on latest versions only are plain indexed queries
+     */
+    public void saveCardToArchive(ArchivedCard card, Instant previousVersionPublishDate) {
+        String collection = archivePartitionManager.collectionFor(card.publishDate());
+        ArchivedCardKey key = ArchivedCardKey.of(card);
+        for (String archiveCollection : collectionsOfLatestVersion(key, previousVersionPublishDate)) {
+            if (template.updateMulti(latestVersionOf(key), Update.update(LATEST_VERSION, false), ArchivedCard.class,
+                    archiveCollection).getMatchedCount() > 0)
+                break;
+        }
+        insertAsLatestVersion(card, collection);
+    }
+
+    /**
+     * The unique index opfab_archives_uniqueLatestVersion allows only one latest version of a card per collection:
+     * when another version of the card has been archived as latest version by a concurrent publication, the last
+     * version inserted takes the marker
+     */
+    private void insertAsLatestVersion(ArchivedCard card, String collection) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                template.insert(card, collection);
+                return;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= MAX_LATEST_VERSION_INSERT_ATTEMPTS)
+                    throw e;
+                template.updateMulti(latestVersionOf(ArchivedCardKey.of(card)), Update.update(LATEST_VERSION, false),
+                        ArchivedCard.class, collection);
+            }
+        }
+    }
+
+    private static Query latestVersionOf(ArchivedCardKey card) {
+        return Query.query(new Criteria().andOperator(card.criteria(), where(LATEST_VERSION).is(true)));
+    }
+
+    /**
+     * Collections which may hold the latest archived version of a card, in the order they must be updated until
+     * the version is found, see {@link #collectionsOfLatestVersions}
+     */
+    private List<String> collectionsOfLatestVersion(ArchivedCardKey card, Instant publishDate) {
+        return collectionsOfLatestVersions(List.of(card),
+                publishDate != null ? Map.of(card.id(), publishDate) : Map.of()).getOrDefault(card.id(), List.of());
+    }
+
+    /**
+     * Collections which may hold the latest archived version of each card, by card id. When the publish date of
+     * this version is known (the card is in the feed), it is in the partition of this date or in the collection of
+     * the cards archived before partitioning was activated. Otherwise, the latest versions are looked for in all the
+     * collections with a single aggregation, so a new card does not cost one update per partition.
+     */
+    private Map<String, List<String>> collectionsOfLatestVersions(Collection<ArchivedCardKey> cards,
+                                                                  Map<String, Instant> publishDates) {
+        Map<String, List<String>> collectionsByCardId = new HashMap<>();
+        List<ArchivedCardKey> cardsWithUnknownLatestVersion = new ArrayList<>();
+        for (ArchivedCardKey card : cards) {
+            Instant publishDate = publishDates.get(card.id());
+            if (publishDate != null || !archivePartitionManager.isPartitionByMonth())
+                collectionsByCardId.put(card.id(), archivePartitionManager.collectionsFor(publishDate));
+            else
+                cardsWithUnknownLatestVersion.add(card);
+        }
+        if (cardsWithUnknownLatestVersion.isEmpty())
+            return collectionsByCardId;
+        List<String> collections = archivePartitionManager.collectionsMostRecentFirst();
+        if (collections.isEmpty())
+            return collectionsByCardId;
+        Criteria latestVersions = new Criteria().andOperator(where(LATEST_VERSION).is(true),
+                new Criteria().orOperator(cardsWithUnknownLatestVersion.stream()
+                        .map(ArchivedCardKey::criteria)
+                        .toArray(Criteria[]::new)));
+        aggregateOnCollections(collections, List.of(match(latestVersions), project("process", "processInstanceId")))
+                .forEach(latestVersion -> collectionsByCardId.computeIfAbsent(
+                        latestVersion.getString("process") + "." + latestVersion.getString("processInstanceId"),
+                        key -> List.of(latestVersion.getString(COLLECTION_FIELD))));
+        return collectionsByCardId;
+    }
+
+    /**
+     * Documents of several collections read by a single aggregation, each document with the name of its
+     * collection in the field "collection"
+     *
+     * @param operations operations run on each collection, the first one being the filter
+     */
+    private List<Document> aggregateOnCollections(List<String> collections, List<AggregationOperation> operations) {
+        List<AggregationOperation> unionOperations = new ArrayList<>(withCollectionName(operations,
+                collections.get(0)));
+        collections.subList(1, collections.size()).forEach(collection -> unionOperations.add(
+                UnionWithOperation.unionWith(collection).pipeline(withCollectionName(operations, collection))));
+        return template.aggregate(newAggregation(unionOperations), collections.get(0), Document.class)
+                .getMappedResults();
+    }
+
+    private static List<AggregationOperation> withCollectionName(List<AggregationOperation> operations,
+                                                                 String collection) {
+        List<AggregationOperation> operationsWithCollectionName = new ArrayList<>(operations);
+        operationsWithCollectionName.add(addFields()
+                .addFieldWithValue(COLLECTION_FIELD, LiteralOperators.Literal.asLiteral(collection)).build());
+        return operationsWithCollectionName;
+    }
+
+    private record ArchivedCardKey(String process, String processInstanceId) {
+
+        static ArchivedCardKey of(ArchivedCard card) {
+            return new ArchivedCardKey(card.process(), card.processInstanceId());
+        }
+
+        String id() {
+            return process + "." + processInstanceId;
+        }
+
+        Criteria criteria() {
+            return new Criteria().andOperator(where("process").is(process),
+                    where("processInstanceId").is(processInstanceId));
+        }
     }
 
     public void deleteCard(Card cardToDelete) {
         this.template.remove(cardToDelete);
+        Instant deletionDate = Instant.now();
+        this.template.save(CardTombstone.of(cardToDelete, nextSequence(), deletionDate));
+    }
+
+    /**
+     * Reserves sequence numbers for card modifications, the counter is shared by all the instances of the service.
+     * The date of the modification (lastUpdate or deletionDate) must be taken before reserving its sequence number,
+     * cards-consultation relies on it to send again the modifications committed after a greater sequence number.
+     *
+     * @return the last sequence number reserved
+     */
+    private long reserveSequences(int count) {
+        Document counter = template.findAndModify(Query.query(Criteria.where("_id").is(CARD_SEQUENCE_ID)),
+                new Update().inc("value", (long) count),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Document.class, SEQUENCES_COLLECTION);
+        return counter.get("value", Number.class).longValue();
     }
 
-    public void setArchivedCardAsDeleted(String process, String processInstanceId, Instant deletionDate) {
+    private long nextSequence() {
+        return reserveSequences(1);
+    }
+
+    public void setArchivedCardAsDeleted(String process, String processInstanceId, Instant publishDate,
+                                         Instant deletionDate) {
         Query query = new Query();
         query.addCriteria(new Criteria().andOperator(
                 where("process").is(process),
                 where("processInstanceId").is(processInstanceId),
-                where("deletionDate").isNull()));
-        template.updateFirst(query, Update.update("deletionDate", deletionDate),
-                ArchivedCard.class);
+                where(DELETION_DATE).isNull()));
+        for (String collection : collectionsOfLatestVersion(new ArchivedCardKey(process, processInstanceId),
+                publishDate)) {
+            if (template.updateFirst(query, Update.update(DELETION_DATE, deletionDate), ArchivedCard.class,
+                    collection).getMatchedCount() > 0)
+                break;
+        }
     }
 
 
@@ -98,6 +362,22 @@ public class CardRepositoryImpl implements CardRepository {
         return this.template.findOne(findCardByIdWithoutDataField, Card.class);
     }
 
+    public List<Card> findCardsByIds(Collection<String> ids, boolean dataFieldIncluded) {
+        if (ids.isEmpty())
+            return List.of();
+        Query query = Query.query(where("_id").in(ids));
+        if (!dataFieldIncluded)
+            query.fields().exclude("data");
+        return template.find(query, Card.class);
+    }
+
+    public Set<String> findIdsOfCardsWithChildCards(Collection<String> ids) {
+        if (ids.isEmpty())
+            return Set.of();
+        return new HashSet<>(template.findDistinct(Query.query(where("parentCardId").in(ids)), "parentCardId",
+                Card.class, String.class));
+    }
+
     public Optional<List<Card>> findChildCard(Card card) {
         if (Objects.isNull(card))
             return Optional.empty();
@@ -109,7 +389,8 @@ public class CardRepositoryImpl implements CardRepository {
     }
 
     public void setChildCardDates(String parentCardId, Instant startDate, Instant endDate) {
-        Update update = new Update().set(START_DATE, startDate).set(END_DATE, endDate);
+        Update update = new Update().set(START_DATE, startDate).set(END_DATE, endDate)
+                .set(LAST_UPDATE, Instant.now()).set(SEQUENCE, nextSequence());
         UpdateResult updateChilds = template.updateMulti(Query.query(Criteria.where("parentCardId").is(parentCardId)),
         update,
         Card.class);
@@ -121,7 +402,8 @@ public class CardRepositoryImpl implements CardRepository {
         Update update = new Update()
             .addToSet(USERS_ACKS, user.getLogin())
             .addToSet(ENTITIES_ACKS,BasicDBObjectBuilder.start("$each", entitiesAcks).get())
-            .set(LAST_UPDATE, Instant.now());
+            .set(LAST_UPDATE, Instant.now())
+            .set(SEQUENCE, nextSequence());
 
         UpdateResult updateFirst = template.updateFirst(Query.query(Criteria.where("uid").is(cardUid)),
                 update,
@@ -134,7 +416,8 @@ public class CardRepositoryImpl implements CardRepository {
     public UserBasedOperationResult addUserRead(String name, String cardUid) {
         Update update = new Update()
             .addToSet(USERS_READS, name)
-            .set(LAST_UPDATE, Instant.now());
+            .set(LAST_UPDATE, Instant.now())
+            .set(SEQUENCE, nextSequence());
 
         UpdateResult updateFirst = template.updateFirst(Query.query(Criteria.where("uid").is(cardUid)),
                 update, 
@@ -148,7 +431,7 @@ public class CardRepositoryImpl implements CardRepository {
         Update update = new Update().pull(USERS_ACKS, userName);
         if (entitiesAcks != null) 
             update = update.pullAll(ENTITIES_ACKS, entitiesAcks.toArray());
-        update.set(LAST_UPDATE, Instant.now());
+        update.set(LAST_UPDATE, Instant.now()).set(SEQUENCE, nextSequence());
         UpdateResult updateFirst = template.updateFirst(Query.query(Criteria.where("uid").is(cardUid)),
                 update, Card.class);
         log.debug("removed {} occurrence of {}'s userAcks in the card with uid: {}", updateFirst.getModifiedCount(),
@@ -158,7 +441,8 @@ public class CardRepositoryImpl implements CardRepository {
 
     public UserBasedOperationResult deleteUserRead(String userName, String cardUid) {
         UpdateResult updateFirst = template.updateFirst(Query.query(Criteria.where("uid").is(cardUid)),
-                new Update().pull(USERS_READS, userName).set(LAST_UPDATE, Instant.now()), Card.class);
+                new Update().pull(USERS_READS, userName).set(LAST_UPDATE, Instant.now()).set(SEQUENCE, nextSequence()),
+                Card.class);
         log.debug("removed {} occurrence of {}'s usersReads in the card with uid: {}", updateFirst.getModifiedCount(),
                 cardUid);
         return toUserBasedOperationResult(updateFirst);
@@ -184,6 +468,12 @@ public class CardRepositoryImpl implements CardRepository {
         findCardByEndDateBefore.fields().exclude("data");
         List<Card> toDelete = template.find(findCardByEndDateBefore, Card.class);
         template.remove(findCardByEndDateBefore, Card.class);
+        if (!toDelete.isEmpty()) {
+            Instant deletionDate = Instant.now();
+            long sequence = reserveSequences(toDelete.size()) - toDelete.size();
+            for (Card card : toDelete)
+                template.save(CardTombstone.of(card, ++sequence, deletionDate));
+        }
         return toDelete;
     }
 
@@ -202,6 +492,7 @@ public class CardRepositoryImpl implements CardRepository {
             .unset(USERS_READS)
             .set(ENTITIES_ACKS,new LinkedList<String>())
             .set(LAST_UPDATE, Instant.now())
+            .set(SEQUENCE, nextSequence())
             .set("publishDate", Instant.now())
             .pull("actions", "NOT_NOTIFIED");
         UpdateResult updateFirst = template.updateFirst(Query.query(Criteria.where("uid").is(cardUid)),
@@ -1,4 +1,4 @@
-/* Copyright (c) 2023-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -10,16 +10,22 @@
 package org.opfab.cards.publication.ratelimiter;
 
 import java.util.Map;
-import java.util.HashMap;
-import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Limits the number of cards a publisher can send during a sliding period. The dates of the last sendings of each
+ * publisher are kept in a ring buffer, locked independently of the other publishers. The publishers idle for more than
+ * the period are evicted as they can send again as if they had never sent a card.
+ */
 public class CardSendingLimiter {
 
     private final int limitCardCount;
     private final int limitPeriodInSec;
     private CustomClock customClock;
-    private Map<String, List<Long>> publisherData = new HashMap<>();
+    // Keyed by the upper case login and by the logins as received, to avoid converting each time
+    private final Map<String, SendingWindow> publisherData = new ConcurrentHashMap<>();
+    private final AtomicLong nextEviction;
 
     public CardSendingLimiter(int limitCardCount, int limitPeriodInSec) {
         this(limitCardCount, limitPeriodInSec, new DefaultClock());
@@ -29,43 +35,94 @@ public class CardSendingLimiter {
         this.limitCardCount = limitCardCount;
         this.limitPeriodInSec = limitPeriodInSec;
         this.customClock = customClock;
+        this.nextEviction = new AtomicLong(customClock.millis() + periodInMillis());
     }
 
     public boolean isNewSendingAllowed(String login) {
-        List<Long> cardSendings = getCardSendings(login.toUpperCase());
-        // Synchronization is needed as :
-        //  - cardSendings is shared between threads
-        //  - cardSendings list is not thread-safe
-        // See https://github.com/opfab/operatorfabric-core/issues/6727
-        synchronized (cardSendings) {
-            if (!isLimitReached(cardSendings)) {
-                registerNewSending(cardSendings);
-                return true;
-            } else
-                return false;
+        evictIdlePublishersIfNeeded(customClock.millis());
+        while (true) {
+            SendingWindow cardSendings = getCardSendings(login);
+            // Synchronization is needed as cardSendings is shared between threads
+            // See https://github.com/opfab/operatorfabric-core/issues/6727
+            synchronized (cardSendings) {
+                if (!cardSendings.evicted) {
+                    // Read under the lock so that the dates are registered in order and the date at index next
+                    // stays the oldest one
+                    long now = customClock.millis();
+                    if (cardSendings.isLimitReached(now))
+                        return false;
+                    cardSendings.registerNewSending(now);
+                    return true;
+                }
+            }
+            // Evicted meanwhile, the sending is registered in a new window of the publisher
+            publisherData.remove(login, cardSendings);
+            publisherData.remove(login.toUpperCase(), cardSendings);
         }
     }
 
     public void reset() {
-        this.publisherData = new HashMap<>();
+        publisherData.values().forEach(SendingWindow::evict);
+        publisherData.clear();
+    }
+
+    int publisherCount() {
+        return (int) publisherData.values().stream().distinct().count();
     }
 
-    private List<Long> getCardSendings(String login) {
-        return publisherData.computeIfAbsent(login, k -> new ArrayList<>());
+    private SendingWindow getCardSendings(String login) {
+        SendingWindow cardSendings = publisherData.get(login);
+        if (cardSendings != null)
+            return cardSendings;
+        cardSendings = publisherData.computeIfAbsent(login.toUpperCase(), k -> new SendingWindow());
+        publisherData.putIfAbsent(login, cardSendings);
+        return cardSendings;
     }
 
-    private boolean isLimitReached(List<Long> cardSendings) {
-        if (cardSendings.size() == limitCardCount) {
-            long timeSinceOldestSending = customClock.millis() - cardSendings.get(0);
-            if (timeSinceOldestSending <= limitPeriodInSec * 1000)
+    private long periodInMillis() {
+        return limitPeriodInSec * 1000L;
+    }
+
+    private void evictIdlePublishersIfNeeded(long now) {
+        long next = nextEviction.get();
+        if (now < next || !nextEviction.compareAndSet(next, now + periodInMillis()))
+            return;
+        publisherData.values().removeIf(cardSendings -> cardSendings.evictIfIdle(now));
+    }
+
+    private class SendingWindow {
+
+        private final long[] sendingDates = new long[limitCardCount];
+        // Index of the oldest sending date once the buffer is full
+        private int next = 0;
+        private int count = 0;
+        private boolean evicted = false;
+
+        private boolean isLimitReached(long now) {
+            if (count < limitCardCount)
+                return false;
+            return limitCardCount == 0 || now - sendingDates[next] <= periodInMillis();
+        }
+
+        private void registerNewSending(long now) {
+            sendingDates[next] = now;
+            next = (next + 1) % limitCardCount;
+            if (count < limitCardCount)
+                count++;
+        }
+
+        private synchronized boolean evictIfIdle(long now) {
+            if (evicted)
                 return true;
+            int last = (next + limitCardCount - 1) % Math.max(limitCardCount, 1);
+            if (count > 0 && now - sendingDates[last] <= periodInMillis())
+                return false;
+            evicted = true;
+            return true;
         }
-        return false;
-    }
 
-    private void registerNewSending(List<Long> cardSendings) {
-        cardSendings.add(customClock.millis());
-        if (cardSendings.size() > limitCardCount)
-            cardSendings.remove(0);
+        private synchronized void evict() {
+            evicted = true;
+        }
     }
 }
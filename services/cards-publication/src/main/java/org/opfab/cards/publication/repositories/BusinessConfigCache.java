@@ -0,0 +1,116 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.repositories;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <p>Cache of the configuration loaded from businessconfig for a process version, shared by the request threads and
+ * the Kafka listener threads.</p>
+ * <p>Concurrent requests for a version not in the cache wait for a single load: after a bundle upload, a burst of
+ * cards of this process triggers one call to businessconfig. A value not found (null) or a failed load is not kept, the
+ * next request loads it again. Above the maximum number of entries, the oldest loaded versions are evicted.</p>
+ */
+public class BusinessConfigCache<T> {
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load(String process, String processVersion) throws IOException, InterruptedException;
+    }
+
+    private record Key(String process, String processVersion) {
+    }
+
+    private final int maxEntries;
+    private final Map<Key, CompletableFuture<T>> entries = new ConcurrentHashMap<>();
+    // Keys in the order of their loading, to evict the oldest ones
+    private final Queue<Key> loadingOrder = new ConcurrentLinkedQueue<>();
+
+    public BusinessConfigCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public T get(String process, String processVersion, Loader<T> loader) throws IOException, InterruptedException {
+        Key key = new Key(process, processVersion);
+        CompletableFuture<T> entry = entries.get(key);
+        if (entry == null) {
+            CompletableFuture<T> newEntry = new CompletableFuture<>();
+            entry = entries.putIfAbsent(key, newEntry);
+            if (entry == null)
+                return load(key, newEntry, loader);
+        }
+        return waitFor(entry);
+    }
+
+    private T load(Key key, CompletableFuture<T> entry, Loader<T> loader) throws IOException, InterruptedException {
+        T value;
+        try {
+            value = loader.load(key.process(), key.processVersion());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            entries.remove(key, entry);
+            entry.completeExceptionally(e);
+            throw e;
+        }
+        if (value == null)
+            entries.remove(key, entry);
+        else if (entries.get(key) == entry) { // not invalidated during the loading
+            loadingOrder.add(key);
+            evictOldestEntries();
+        }
+        entry.complete(value);
+        return value;
+    }
+
+    private T waitFor(CompletableFuture<T> entry) throws IOException, InterruptedException {
+        try {
+            return entry.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException)
+                throw ioException;
+            if (cause instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            // The loading thread has been interrupted, not this one
+            throw new IOException("Loading from businessconfig interrupted", cause);
+        }
+    }
+
+    private void evictOldestEntries() {
+        while (loadingOrder.size() > maxEntries) {
+            Key oldest = loadingOrder.poll();
+            if (oldest == null)
+                return;
+            entries.remove(oldest);
+        }
+    }
+
+    /**
+     * Removes all the versions of the process
+     */
+    public void invalidate(String process) {
+        entries.keySet().removeIf(key -> key.process().equals(process));
+        loadingOrder.removeIf(key -> key.process().equals(process));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        loadingOrder.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -1,5 +1,5 @@
 
-/* Copyright (c) 2023-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
 * See AUTHORS.txt
 * This Source Code Form is subject to the terms of the Mozilla Public
 * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -15,8 +15,11 @@ import org.opfab.cards.publication.model.Card;
 import org.opfab.users.model.User;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface CardRepository {
 
@@ -26,16 +29,45 @@ public interface CardRepository {
 
     public void saveCard(Card card);
 
-    public void saveCardToArchive(ArchivedCard card);
+    /**
+     * @param previousVersionPublishDate publish date of the previous version of the card, null if unknown
+     */
+    public void saveCardToArchive(ArchivedCard card, Instant previousVersionPublishDate);
+
+    /**
+     * Saves several cards in one bulk write
+     *
+     * @return the cards that could not be saved
+     */
+    public List<Card> saveCards(List<Card> cards);
+
+    /**
+     * Archives several cards in bulk writes: the previous archived versions of the cards are set as deleted at
+     * the publish date of the new versions and lose their latest version marker, then the new versions are inserted
+     *
+     * @param previousVersionPublishDates publish dates of the previous versions of the cards by card id, when known
+     */
+    public void saveCardsToArchive(List<ArchivedCard> cards, Map<String, Instant> previousVersionPublishDates);
 
     public void deleteCard(Card cardToDelete);
 
-    public void setArchivedCardAsDeleted(String process, String processInstanceId,Instant deletionDate);
+    /**
+     * @param publishDate publish date of the archived version to set as deleted, null if unknown
+     */
+    public void setArchivedCardAsDeleted(String process, String processInstanceId, Instant publishDate,
+                                         Instant deletionDate);
 
     public Card findCardById(String id, boolean dataFieldIncluded);
 
+    public List<Card> findCardsByIds(Collection<String> ids, boolean dataFieldIncluded);
+
     public Optional<List<Card>> findChildCard(Card card);
 
+    /**
+     * @return the ids, among the given ones, of the cards having child cards
+     */
+    public Set<String> findIdsOfCardsWithChildCards(Collection<String> ids);
+
     public void setChildCardDates(String parentCardId, Instant startDate, Instant endDate);
 
     public UserBasedOperationResult addUserAck(User user, String cardUid, List<String> entitiesAcks);
@@ -1,4 +1,4 @@
-/* Copyright (c) 2023, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -11,10 +11,21 @@
 package org.opfab.cards.publication.repositories;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import org.opfab.utilities.I18nTranslation;
+
 import java.io.IOException;
 
 
 public interface I18NRepository {
 
     public JsonNode getI18n(String process, String processVersion) throws IOException, InterruptedException;
+
+    /**
+     * @return the translations of the process version, null if there is no i18n file for this version
+     */
+    public default I18nTranslation getTranslation(String process, String processVersion)
+            throws IOException, InterruptedException {
+        JsonNode i18n = getI18n(process, processVersion);
+        return i18n != null ? new I18nTranslation(i18n) : null;
+    }
 }
@@ -1,4 +1,4 @@
-/* Copyright (c) 2023-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -14,9 +14,10 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.HashMap;
 
+import org.opfab.utilities.I18nTranslation;
 import org.opfab.utilities.eventbus.EventBus;
+import org.opfab.utilities.eventbus.EventKeys;
 import org.opfab.utilities.eventbus.EventListener;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -25,34 +26,41 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class I18NRepositoryImpl implements I18NRepository, EventListener {
 
     private String businessConfigUrl;
-    private HashMap<String, JsonNode> i18nCache = new HashMap<>();
+    private HttpClient httpClient;
+    // The translations are kept with their templates compiled
+    private BusinessConfigCache<I18nTranslation> i18nCache;
+    private ObjectMapper objectMapper = new ObjectMapper();
 
-    public I18NRepositoryImpl(EventBus eventBus, String businessConfigUrl) {
+    public I18NRepositoryImpl(EventBus eventBus, String businessConfigUrl, HttpClient httpClient,
+            int cacheMaxEntries) {
         this.businessConfigUrl = businessConfigUrl;
-        eventBus.addListener("process", this);
+        this.httpClient = httpClient;
+        this.i18nCache = new BusinessConfigCache<>(cacheMaxEntries);
+        eventBus.addListener(EventKeys.PROCESS_CHANGE, this);
     }
 
     public JsonNode getI18n(String process, String processVersion) throws IOException, InterruptedException {
-        String key = process + "." + processVersion;
-        if (i18nCache.containsKey(key)) {
-            return i18nCache.get(key);
-        }
-        String i18n = getI18NFromBusinessConfigService(process, processVersion);
-        if (i18n==null) return null;
+        I18nTranslation translation = getTranslation(process, processVersion);
+        return translation != null ? translation.getI18n() : null;
+    }
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode jsonNode = null;
-        jsonNode = objectMapper.readTree(i18n);
-        if (jsonNode != null) {
-            i18nCache.put(key, jsonNode);
-        }
-        return jsonNode;
+    @Override
+    public I18nTranslation getTranslation(String process, String processVersion)
+            throws IOException, InterruptedException {
+        return i18nCache.get(process, processVersion, this::getTranslationFromBusinessConfigService);
+    }
+
+    private I18nTranslation getTranslationFromBusinessConfigService(String process, String processVersion)
+            throws IOException, InterruptedException {
+        String i18n = getI18nAsStringFromBusinessConfigService(process, processVersion);
+        if (i18n == null)
+            return null;
+        return new I18nTranslation(objectMapper.readTree(i18n));
     }
 
-    private String getI18NFromBusinessConfigService(String process, String processVersion)
+    private String getI18nAsStringFromBusinessConfigService(String process, String processVersion)
             throws IOException, InterruptedException {
 
-        HttpClient httpClient = HttpClient.newHttpClient();
         String uri = String.format(
                 "%s/processes/%s/i18n?version=%s", businessConfigUrl, process, processVersion);
         HttpRequest request = HttpRequest.newBuilder()
@@ -68,6 +76,9 @@ public class I18NRepositoryImpl implements I18NRepository, EventListener {
 
     @Override
     public void onEvent(String eventKey, String message) {
-        i18nCache.clear();
+        if (message == null || message.isEmpty())
+            i18nCache.invalidateAll();
+        else
+            i18nCache.invalidate(message);
     }
 }
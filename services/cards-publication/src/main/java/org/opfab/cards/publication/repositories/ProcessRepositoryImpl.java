@@ -1,4 +1,4 @@
-/* Copyright (c) 2023-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -14,10 +14,10 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.util.HashMap;
 
 import org.opfab.businessconfig.model.Process;
 import org.opfab.utilities.eventbus.EventBus;
+import org.opfab.utilities.eventbus.EventKeys;
 import org.opfab.utilities.eventbus.EventListener;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,26 +25,21 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class ProcessRepositoryImpl implements ProcessRepository, EventListener {
 
     private String businessConfigUrl;
-    private HashMap<String, Process> processCache = new HashMap<>();
+    private HttpClient httpClient;
+    private BusinessConfigCache<Process> processCache;
     private ObjectMapper objectMapper = new ObjectMapper();
 
-    public ProcessRepositoryImpl(String businessConfigUrl, EventBus eventBus) {
+    public ProcessRepositoryImpl(String businessConfigUrl, HttpClient httpClient, EventBus eventBus,
+            int cacheMaxEntries) {
         this.businessConfigUrl = businessConfigUrl;
-        eventBus.addListener("process", this);
+        this.httpClient = httpClient;
+        this.processCache = new BusinessConfigCache<>(cacheMaxEntries);
+        eventBus.addListener(EventKeys.PROCESS_CHANGE, this);
     }
-    
 
     @Override
     public Process getProcess(String processID, String processVersion) throws IOException, InterruptedException {
-        String key = processID + "." + processVersion;
-        if (processCache.containsKey(key)) {
-            return processCache.get(key);
-        }
-        Process process = getProcessFromBusinessConfigService(processID, processVersion);
-        if (process != null) {
-            processCache.put(key, process);
-        }
-        return process;
+        return processCache.get(processID, processVersion, this::getProcessFromBusinessConfigService);
     }
 
     private Process getProcessFromBusinessConfigService(String processId, String processVersion)
@@ -63,7 +58,6 @@ public class ProcessRepositoryImpl implements ProcessRepository, EventListener {
             throws IOException, InterruptedException {
 
         String result = null;
-        HttpClient httpClient = HttpClient.newHttpClient();
         String uri = String.format(
                 "%s/processes/%s?version=%s", businessConfigUrl, processId, processVersion);
 
@@ -81,7 +75,10 @@ public class ProcessRepositoryImpl implements ProcessRepository, EventListener {
 
     @Override
     public void onEvent(String eventKey, String message) {
-        processCache.clear();
+        if (message == null || message.isEmpty())
+            processCache.invalidateAll();
+        else
+            processCache.invalidate(message);
     }
 
 }
@@ -0,0 +1,44 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.scheduledtasks;
+
+import org.opfab.cards.publication.mongo.ArchivePartitionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Drops the monthly partitions of the archived cards older than the retention period
+ * (operatorfabric.cards-publication.archivesRetentionInMonths, 0 to keep all the archives)
+ */
+@Service
+@EnableScheduling
+public class DropOldArchivePartitionsScheduler {
+
+    private final ArchivePartitionManager archivePartitionManager;
+    private final int archivesRetentionInMonths;
+
+    public DropOldArchivePartitionsScheduler(ArchivePartitionManager archivePartitionManager,
+            @Value("${operatorfabric.cards-publication.archivesRetentionInMonths:0}") int archivesRetentionInMonths) {
+        this.archivePartitionManager = archivePartitionManager;
+        this.archivesRetentionInMonths = archivesRetentionInMonths;
+    }
+
+    @Scheduled(cron = "${operatorfabric.cards-publication.dropOldArchivePartitionsCron:0 0 3 * * *}")
+    public void dropOldArchivePartitions() {
+        if (archivesRetentionInMonths > 0)
+            archivePartitionManager.dropPartitionsBefore(
+                    ZonedDateTime.now(ZoneOffset.UTC).minusMonths(archivesRetentionInMonths).toInstant());
+    }
+}
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -102,7 +102,8 @@ public class CardDeletionService {
         if (null != cardToDelete) {
             cardNotificationService.notifyOneCard(cardToDelete, CardOperationTypeEnum.DELETE);
             cardRepository.deleteCard(cardToDelete);
-            cardRepository.setArchivedCardAsDeleted(cardToDelete.getProcess(), cardToDelete.getProcessInstanceId(),deletionDate);
+            cardRepository.setArchivedCardAsDeleted(cardToDelete.getProcess(), cardToDelete.getProcessInstanceId(),
+                    cardToDelete.getPublishDate(), deletionDate);
             externalAppService.notifyExternalApplicationThatCardIsDeleted(cardToDelete, jwt);
             Optional<List<Card>> childCard = cardRepository.findChildCard(cardToDelete);
             if (childCard.isPresent()) {
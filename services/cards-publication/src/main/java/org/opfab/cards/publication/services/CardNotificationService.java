@@ -20,6 +20,7 @@ import org.opfab.cards.publication.model.CardOperationTypeEnum;
 import org.opfab.cards.publication.model.Card;
 import org.opfab.cards.publication.model.LightCard;
 import org.opfab.utilities.eventbus.EventBus;
+import org.opfab.utilities.eventbus.EventKeys;
 
 import java.util.*;
 
@@ -38,6 +39,30 @@ public class CardNotificationService {
     }
 
     public void notifyOneCard(Card card, CardOperationTypeEnum type) {
+        pushCardInEventBus(toCardOperation(card, type));
+    }
+
+    /**
+     * Notifies the publication of several cards, the messages are sent to the event bus in one batch
+     *
+     * @param updatedCardIds ids of the cards that replaced an existing card, the other cards are new
+     */
+    public void notifyCards(List<Card> cards, Set<String> updatedCardIds) {
+        List<String> messages = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            CardOperationTypeEnum type = updatedCardIds.contains(card.getId()) ? CardOperationTypeEnum.UPDATE
+                    : CardOperationTypeEnum.ADD;
+            try {
+                messages.add(mapper.writeValueAsString(toCardOperation(card, type)));
+            } catch (JsonProcessingException e) {
+                log.error("Unable to linearize card {} to json on event bus", card.getId());
+            }
+        }
+        eventBus.sendEvents("card", messages);
+        log.debug("{} card operations sent to eventbus", messages.size());
+    }
+
+    private CardOperation toCardOperation(Card card, CardOperationTypeEnum type) {
         Card cardWithCustomDataFields = card.patch(card);
         LinkedHashMap<String, Object> customDataFields = new LinkedHashMap<>();
 
@@ -46,9 +71,7 @@ public class CardNotificationService {
         }
         cardWithCustomDataFields.setData(customDataFields);
 
-        CardOperation cardOperation = new CardOperation(type, card.getId(), null, new LightCard(cardWithCustomDataFields), null);
-
-        pushCardInEventBus(cardOperation);
+        return new CardOperation(type, card.getId(), null, new LightCard(cardWithCustomDataFields), null);
     }
 
     private void pushCardInEventBus(CardOperation cardOperation) {
@@ -82,4 +105,8 @@ public class CardNotificationService {
         }
     }
 
+    public void pushUserReadInEventBus(String login) {
+        eventBus.sendEvent(EventKeys.USER_READ, login);
+        log.debug("Read of user {} sent to event bus", login);
+    }
 }
@@ -22,9 +22,21 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 
+import jakarta.validation.ConstraintViolationException;
+
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * <p>
@@ -81,6 +93,16 @@ public class CardProcessingService {
     }
 
     public void processCard(Card card, Optional<CurrentUserWithPerimeters> user, Optional<Jwt> jwt, boolean dataFieldIncluded) {
+        processOneCard(card, checkCardBeforeProcessing(card, user), jwt, dataFieldIncluded);
+    }
+
+    /**
+     * Checks a card sent by a publisher
+     *
+     * @return the user the card is processed with, empty if the card is not a user card (otherwise it would be
+     * processed as a user card)
+     */
+    private Optional<CurrentUserWithPerimeters> checkCardBeforeProcessing(Card card, Optional<CurrentUserWithPerimeters> user) {
 
         if (card.getPublisherType() == null)
             card.setPublisherType(PublisherTypeEnum.EXTERNAL);
@@ -109,12 +131,121 @@ public class CardProcessingService {
                     .message(String.format("Publisher %s has reached the card sending limit", card.getPublisher()))
                     .build());
 
-        if (card.getPublisherType() == PublisherTypeEnum.USER) {
-            processOneCard(card, user, jwt, dataFieldIncluded);
-        } else {
-            // set empty user otherwise it will be processed as a usercard
-            processOneCard(card, Optional.empty(), jwt, dataFieldIncluded);
+        return card.getPublisherType() == PublisherTypeEnum.USER ? user : Optional.empty();
+    }
+
+    /**
+     * <p>Publishes several cards, each card being checked as if it was published alone: a rejected card does not
+     * prevent the other cards from being published.</p>
+     * <p>The cards without parent card, child cards or STORE_ONLY_IN_ARCHIVES action and not sent by a user are
+     * published together: the existing cards are fetched with one query, the cards and archived cards are written
+     * with unordered bulk writes and the notifications are sent in one batch. The other cards, as well as the cards
+     * sent several times in the batch, are then published one by one in their order in the batch.</p>
+     *
+     * @return the result of the publication of each card, in the order of the cards
+     */
+    public List<CardCreationResult> processCards(List<Card> cards, Optional<CurrentUserWithPerimeters> user, Optional<Jwt> jwt) {
+        CardCreationResult[] results = new CardCreationResult[cards.size()];
+        List<Optional<CurrentUserWithPerimeters>> cardUsers = new ArrayList<>(Collections.nCopies(cards.size(), null));
+        Set<String> cardIds = new HashSet<>();
+        List<Integer> bulkIndexes = new ArrayList<>();
+        List<Integer> oneByOneIndexes = new ArrayList<>();
+
+        for (int i = 0; i < cards.size(); i++) {
+            Card card = cards.get(i);
+            try {
+                Optional<CurrentUserWithPerimeters> cardUser = checkCardBeforeProcessing(card, user);
+                cardUsers.set(i, cardUser);
+                boolean firstCardWithId = cardIds.add(idOf(card));
+                if (firstCardWithId && cardUser.isEmpty() && card.getParentCardId() == null
+                        && !isCardToBeStoredOnlyInArchives(card))
+                    bulkIndexes.add(i);
+                else
+                    oneByOneIndexes.add(i);
+            } catch (RuntimeException e) {
+                results[i] = toRejection(card, e);
+            }
+        }
+
+        // Child cards of updated cards are deleted or updated with their parent card
+        Set<String> idsOfCardsWithChildCards = cardRepository.findIdsOfCardsWithChildCards(
+                bulkIndexes.stream().map(i -> idOf(cards.get(i))).toList());
+        if (!idsOfCardsWithChildCards.isEmpty()) {
+            bulkIndexes.stream().filter(i -> idsOfCardsWithChildCards.contains(idOf(cards.get(i))))
+                    .forEach(oneByOneIndexes::add);
+            bulkIndexes.removeIf(i -> idsOfCardsWithChildCards.contains(idOf(cards.get(i))));
+            oneByOneIndexes.sort(null);
+        }
+
+        processCardsInBulk(cards, bulkIndexes, jwt, results);
+
+        for (int i : oneByOneIndexes) {
+            Card card = cards.get(i);
+            try {
+                processOneCard(card, cardUsers.get(i), jwt, false);
+                results[i] = CardCreationResult.created(card);
+            } catch (RuntimeException e) {
+                results[i] = toRejection(card, e);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void processCardsInBulk(List<Card> cards, List<Integer> indexes, Optional<Jwt> jwt,
+                                    CardCreationResult[] results) {
+        if (indexes.isEmpty())
+            return;
+        Map<String, Card> oldCards = cardRepository.findCardsByIds(indexes.stream().map(i -> idOf(cards.get(i))).toList(), false)
+                .stream().collect(Collectors.toMap(Card::getId, Function.identity()));
+
+        Instant publishDate = Instant.ofEpochMilli(Instant.now().toEpochMilli());
+        Map<Card, Integer> indexOfCards = new IdentityHashMap<>();
+        List<Card> cardsToSave = new ArrayList<>(indexes.size());
+        for (int i : indexes) {
+            Card card = cards.get(i);
+            try {
+                card.prepare(publishDate);
+                cardTranslationService.translate(card);
+                Card oldCard = oldCards.get(card.getId());
+                if (oldCard != null)
+                    processCardUpdate(card, oldCard);
+                externalAppService.sendCardToExternalApplication(card, jwt);
+                cardsToSave.add(card);
+                indexOfCards.put(card, i);
+            } catch (RuntimeException e) {
+                results[i] = toRejection(card, e);
+            }
         }
+
+        Set<Card> cardsNotSaved = Collections.newSetFromMap(new IdentityHashMap<>());
+        cardsNotSaved.addAll(cardRepository.saveCards(cardsToSave));
+        cardsNotSaved.forEach(card -> results[indexOfCards.get(card)] = CardCreationResult.rejected(card,
+                HttpStatus.INTERNAL_SERVER_ERROR, "Card could not be saved"));
+        List<Card> savedCards = cardsToSave.stream().filter(card -> !cardsNotSaved.contains(card)).toList();
+
+        cardNotificationService.notifyCards(savedCards, oldCards.keySet());
+        Map<String, Instant> previousVersionPublishDates = new HashMap<>();
+        oldCards.forEach((id, oldCard) -> previousVersionPublishDates.put(id, oldCard.getPublishDate()));
+        cardRepository.saveCardsToArchive(savedCards.stream().map(ArchivedCard::new).toList(),
+                previousVersionPublishDates);
+        savedCards.forEach(card -> results[indexOfCards.get(card)] = CardCreationResult.created(card));
+        log.debug("{} cards persisted in bulk", savedCards.size());
+    }
+
+    private static String idOf(Card card) {
+        return card.getProcess() + "." + card.getProcessInstanceId();
+    }
+
+    private CardCreationResult toRejection(Card card, RuntimeException exception) {
+        if (exception instanceof ApiErrorException apiErrorException)
+            return CardCreationResult.rejected(card, apiErrorException.getError().getStatus(),
+                    apiErrorException.getError().getMessage());
+        if (exception instanceof AccessDeniedException)
+            return CardCreationResult.rejected(card, HttpStatus.FORBIDDEN, exception.getMessage());
+        if (exception instanceof ConstraintViolationException || exception instanceof IllegalArgumentException)
+            return CardCreationResult.rejected(card, HttpStatus.BAD_REQUEST, exception.getMessage());
+        log.error("Unexpected error while publishing card {}", idOf(card), exception);
+        return CardCreationResult.rejected(card, HttpStatus.INTERNAL_SERVER_ERROR, exception.getMessage());
     }
 
     public void patchCard(String id, Card cardPatch, Optional<CurrentUserWithPerimeters> user, Optional<Jwt> jwt) {
@@ -194,8 +325,10 @@ public class CardProcessingService {
         // This is a crucial step when consulting archived cards via the card consultation service.
         // If a child card is set as deleted before its parent card, the user will not see the child card when
         // the old parent card is displayed.
-        cardRepository.setArchivedCardAsDeleted(card.getProcess(), card.getProcessInstanceId(),card.getPublishDate());
-        cardRepository.saveCardToArchive(new ArchivedCard(card));
+        Instant previousVersionPublishDate = oldCard != null ? oldCard.getPublishDate() : null;
+        cardRepository.setArchivedCardAsDeleted(card.getProcess(), card.getProcessInstanceId(),
+                previousVersionPublishDate, card.getPublishDate());
+        cardRepository.saveCardToArchive(new ArchivedCard(card), previousVersionPublishDate);
 
         log.debug("Card persisted (process = {} , processInstanceId= {} , state = {} ", card.getProcess(),
                 card.getProcessInstanceId(), card.getState());
@@ -302,12 +435,18 @@ public class CardProcessingService {
 
     public UserBasedOperationResult processUserRead(String cardUid, String userName) {
         log.info("Set read on card with uid {} for user {} ", cardUid, userName);
-        return cardRepository.addUserRead(userName, cardUid);
+        return notifyUserRead(cardRepository.addUserRead(userName, cardUid), userName);
     }
 
     public UserBasedOperationResult deleteUserRead(String cardUid, String userName) {
         log.info("Delete read on card with uid {} for user {} ", cardUid, userName);
-        return cardRepository.deleteUserRead(userName, cardUid);
+        return notifyUserRead(cardRepository.deleteUserRead(userName, cardUid), userName);
+    }
+
+    private UserBasedOperationResult notifyUserRead(UserBasedOperationResult result, String userName) {
+        if (result.isCardFound() && Boolean.TRUE.equals(result.getOperationDone()))
+            cardNotificationService.pushUserReadInEventBus(userName);
+        return result;
     }
 
     public UserBasedOperationResult deleteUserAcknowledgement(String cardUid, CurrentUserWithPerimeters user, List<String> entitiesAcks) {
@@ -1,4 +1,4 @@
-/* Copyright (c) 2021-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2021-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -42,15 +42,15 @@ public class CardTranslationService {
     public void translate(Card card) throws ApiErrorException {
 
         try {
-            JsonNode i18n = i18NRepository.getI18n(card.getProcess(), card.getProcessVersion());
-            if (i18n == null) {
+            I18nTranslation translation = i18NRepository.getTranslation(card.getProcess(),
+                    card.getProcessVersion());
+            if (translation == null) {
                 throw new ApiErrorException(ApiError.builder()
                         .status(HttpStatus.BAD_REQUEST)
                         .message(String.format(NO_I18N_FILE, card.getProcess(), card.getProcessVersion(),
                                 card.getProcessInstanceId()))
                         .build());
             }
-            I18nTranslation translation = new I18nTranslation(i18n);
 
             if (!authorizeToSendCardWithInvalidProcessState) {
                 checkI18nExists(translation, card.getTitle().key(), card.getProcess(), card.getProcessVersion(),
@@ -87,9 +87,9 @@ public class CardTranslationService {
 
         String translatedField = i18nValue.key();
         try {
-            JsonNode i18n = i18NRepository.getI18n(process, processVersion);
-            I18nTranslation translation = new I18nTranslation(i18n);
-            translatedField = translation.translate(i18nValue.key(), i18nValue.parameters());
+            I18nTranslation translation = i18NRepository.getTranslation(process, processVersion);
+            if (translation != null)
+                translatedField = translation.translate(i18nValue.key(), i18nValue.parameters());
         } catch (InterruptedException ex) {
             log.error("Error getting field translation (Interrupted Exception)", ex);
             Thread.currentThread().interrupt();
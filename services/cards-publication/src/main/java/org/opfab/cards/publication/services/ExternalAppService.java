@@ -1,4 +1,4 @@
-/* Copyright (c) 2021-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2021-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -11,6 +11,7 @@ package org.opfab.cards.publication.services;
 import lombok.extern.slf4j.Slf4j;
 
 import org.opfab.cards.publication.configuration.ExternalRecipients;
+import org.opfab.cards.publication.delivery.AsyncExternalDelivery;
 import org.opfab.cards.publication.kafka.producer.ResponseCardProducer;
 import org.opfab.cards.publication.model.Card;
 import org.opfab.springtools.error.model.ApiError;
@@ -48,13 +49,16 @@ public class ExternalAppService {
     private RestTemplate restTemplate;
     private ResponseCardProducer responseCardProducer;
     private final ObjectMapper mapper;
+    private AsyncExternalDelivery asyncExternalDelivery;
 
     public ExternalAppService(ExternalRecipients externalRecipients, RestTemplate restTemplate,
-            ResponseCardProducer responseCardProducer, ObjectMapper mapper) {
+            ResponseCardProducer responseCardProducer, ObjectMapper mapper,
+            AsyncExternalDelivery asyncExternalDelivery) {
         this.externalRecipients = externalRecipients;
         this.restTemplate = restTemplate;
         this.responseCardProducer = responseCardProducer;
         this.mapper = mapper;
+        this.asyncExternalDelivery = asyncExternalDelivery;
     }
 
     public void sendCardToExternalApplication(Card card, Optional<Jwt> jwt) {
@@ -67,7 +71,7 @@ public class ExternalAppService {
                         Optional<ExternalRecipients.ExternalRecipient> externalRecipient = getExternalRecipient(item);
                         if (externalRecipient.isPresent()) {
                             ExternalRecipients.ExternalRecipient recipient = externalRecipient.get();
-                            callExternalApplication(card, recipient.getUrl(),
+                            callExternalApplication(card, recipient,
                                     recipient.isPropagateUserToken() ? jwt : Optional.empty());
                         } else
                             throw createApiError(HttpStatus.BAD_REQUEST, INVALID_URL_MESSAGE);
@@ -89,7 +93,7 @@ public class ExternalAppService {
                         Optional<ExternalRecipients.ExternalRecipient> externalRecipient = getExternalRecipient(item);
                         if (externalRecipient.isPresent()) {
                             ExternalRecipients.ExternalRecipient recipient = externalRecipient.get();
-                            notifyExternalApplication(card, recipient.getUrl(),
+                            notifyExternalApplication(card, recipient,
                                     recipient.isPropagateUserToken() ? jwt : Optional.empty());
                         } else {
                             log.debug("ExternalRecipient extracted from {} is empty", item);
@@ -108,19 +112,45 @@ public class ExternalAppService {
                 .findFirst();
     }
 
-    private void callExternalApplication(Card card, String externalRecipientUrl, Optional<Jwt> jwt) {
-        if (externalRecipientUrl.startsWith("kafka:")) {
+    private void callExternalApplication(Card card, ExternalRecipients.ExternalRecipient recipient,
+            Optional<Jwt> jwt) {
+        if (recipient.getUrl().startsWith("kafka:")) {
             callExternalKafkaApplication(card);
+        } else if (asyncExternalDelivery.isEnabled()) {
+            sendCardToExternalHttpApplicationAsynchronously(card, recipient, jwt);
         } else {
-            callExternalHttpApplication(card, externalRecipientUrl, jwt);
+            callExternalHttpApplication(card, recipient.getUrl(), jwt);
         }
     }
 
-    private void notifyExternalApplication(Card card, String externalRecipientUrl, Optional<Jwt> jwt) {
-        if (externalRecipientUrl.startsWith("kafka:")) {
+    private void notifyExternalApplication(Card card, ExternalRecipients.ExternalRecipient recipient,
+            Optional<Jwt> jwt) {
+        if (recipient.getUrl().startsWith("kafka:")) {
             notifyExternalKafkaApplication(card);
+        } else if (asyncExternalDelivery.isEnabled()) {
+            asyncExternalDelivery.deliver(recipient.getId(), recipient.getUrl() + "/" + card.getId(),
+                    HttpMethod.DELETE, new HttpEntity<>("", createRequestHeader(jwt)),
+                    "deletion of card " + card.getId());
         } else {
-            notifyExternalHttpApplication(card, externalRecipientUrl, jwt);
+            notifyExternalHttpApplication(card, recipient.getUrl(), jwt);
+        }
+    }
+
+    /**
+     * The card is serialized now, as published, and sent later without failing the publication: the delivery errors
+     * are logged and counted in the metrics. The user token is the one received with the card, it can not be
+     * refreshed and may have expired when a delivery is retried.
+     */
+    private void sendCardToExternalHttpApplicationAsynchronously(Card card,
+            ExternalRecipients.ExternalRecipient recipient, Optional<Jwt> jwt) {
+        try {
+            HttpEntity<String> requestBody = new HttpEntity<>(mapper.writeValueAsString(card),
+                    createRequestHeader(jwt));
+            asyncExternalDelivery.deliver(recipient.getId(), recipient.getUrl(), HttpMethod.POST, requestBody,
+                    "card " + card.getId());
+        } catch (JsonProcessingException ex) {
+            log.error("Error converting card to Json string", ex);
+            throwException(ex);
         }
     }
 
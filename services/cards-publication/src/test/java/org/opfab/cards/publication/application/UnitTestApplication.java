@@ -29,6 +29,7 @@ import org.opfab.cards.publication.configuration.Common;
 import org.opfab.cards.publication.configuration.ExternalRecipients;
 import org.opfab.cards.publication.configuration.Services;
 import org.opfab.cards.publication.controllers.CardController;
+import org.opfab.cards.publication.delivery.AsyncExternalDelivery;
 
 import org.springframework.context.annotation.Import;
 
@@ -38,7 +39,7 @@ import org.springframework.context.annotation.Import;
 , CardCommandFactory.class, CardObjectMapper.class, JacksonConfig.class
 , Common.class , CardController.class, 
 ExternalRecipients.class, UserActionLogsConfiguration.class, UserActionLogRepositoryImpl.class, EventBusSpy.class,
-        CardRepositoryMock.class,Services.class, CustomScreenDataFields.class})
+        CardRepositoryMock.class,Services.class, CustomScreenDataFields.class, AsyncExternalDelivery.class})
 public class UnitTestApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,214 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.delivery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipientDeliveryQueueShould {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ScheduledExecutorService retryScheduler;
+    private final AtomicLong now = new AtomicLong(0);
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void stop() {
+        retryScheduler.shutdownNow();
+    }
+
+    private RecipientDeliveryQueue createQueue(int queueSize, int maxRetries, CircuitBreaker circuitBreaker) {
+        return new RecipientDeliveryQueue("recipient1", 1, queueSize, maxRetries, 1, circuitBreaker, retryScheduler,
+                meterRegistry);
+    }
+
+    private CircuitBreaker createCircuitBreaker(int failureThreshold) {
+        return new CircuitBreaker(failureThreshold, 1000, now::get);
+    }
+
+    private double deliveries(String result) {
+        return meterRegistry.get("opfab.externalRecipients.deliveries").tag("result", result).counter().count();
+    }
+
+    private void waitForDeliveries(String result, double count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (deliveries(result) < count && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertThat(deliveries(result)).isEqualTo(count);
+    }
+
+    @Test
+    void retryADeliveryUntilItSucceeds() throws InterruptedException {
+        RecipientDeliveryQueue queue = createQueue(10, 3, createCircuitBreaker(10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        queue.submit("card1", () -> {
+            if (attempts.incrementAndGet() < 3)
+                throw new ResourceAccessException("Connection refused");
+        });
+
+        waitForDeliveries("delivered", 1);
+        assertThat(attempts).hasValue(3);
+        assertThat(deliveries("retried")).isEqualTo(2);
+        assertThat(deliveries("failed")).isZero();
+        queue.shutdown();
+    }
+
+    @Test
+    void failADeliveryAfterTheMaximumNumberOfRetries() throws InterruptedException {
+        RecipientDeliveryQueue queue = createQueue(10, 2, createCircuitBreaker(10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        queue.submit("card1", () -> {
+            attempts.incrementAndGet();
+            throw new ResourceAccessException("Connection refused");
+        });
+
+        waitForDeliveries("failed", 1);
+        assertThat(attempts).hasValue(3);
+        assertThat(deliveries("retried")).isEqualTo(2);
+        queue.shutdown();
+    }
+
+    @Test
+    void notRetryADeliveryRejectedByTheRecipient() throws InterruptedException {
+        RecipientDeliveryQueue queue = createQueue(10, 3, createCircuitBreaker(10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        queue.submit("card1", () -> {
+            attempts.incrementAndGet();
+            throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+        });
+
+        waitForDeliveries("failed", 1);
+        assertThat(attempts).hasValue(1);
+        assertThat(deliveries("retried")).isZero();
+        queue.shutdown();
+    }
+
+    @Test
+    void notCallTheRecipientWhileTheCircuitIsOpen() throws InterruptedException {
+        CircuitBreaker circuitBreaker = createCircuitBreaker(1);
+        RecipientDeliveryQueue queue = createQueue(10, 0, circuitBreaker);
+        AtomicInteger attempts = new AtomicInteger();
+
+        queue.submit("card1", () -> {
+            attempts.incrementAndGet();
+            throw new ResourceAccessException("Connection refused");
+        });
+        waitForDeliveries("failed", 1);
+        assertThat(circuitBreaker.isOpen()).isTrue();
+        assertThat(meterRegistry.get("opfab.externalRecipients.circuitOpen").gauge().value()).isEqualTo(1);
+
+        queue.submit("card2", attempts::incrementAndGet);
+        Thread.sleep(200);
+        assertThat(attempts).hasValue(1);
+
+        now.addAndGet(1000);
+        queue.submit("card3", attempts::incrementAndGet);
+        waitForDeliveries("delivered", 2);
+        assertThat(attempts).hasValue(3);
+        assertThat(circuitBreaker.isOpen()).isFalse();
+        queue.shutdown();
+    }
+
+    @Test
+    void keepTheRetriesOfTheDeliveriesWaitingForTheCircuitToClose() throws InterruptedException {
+        CircuitBreaker circuitBreaker = createCircuitBreaker(1);
+        RecipientDeliveryQueue queue = createQueue(10, 0, circuitBreaker);
+        AtomicInteger attempts = new AtomicInteger();
+
+        queue.submit("card1", () -> {
+            attempts.incrementAndGet();
+            throw new ResourceAccessException("Connection refused");
+        });
+        waitForDeliveries("failed", 1);
+
+        queue.submit("card2", attempts::incrementAndGet);
+        queue.submit("card3", attempts::incrementAndGet);
+        Thread.sleep(200);
+        assertThat(attempts).hasValue(1);
+        assertThat(meterRegistry.get("opfab.externalRecipients.pendingDeliveries").gauge().value()).isEqualTo(2);
+
+        now.addAndGet(1000);
+        waitForDeliveries("delivered", 2);
+        assertThat(attempts).hasValue(3);
+        assertThat(deliveries("failed")).isEqualTo(1);
+        assertThat(deliveries("retried")).isZero();
+        queue.shutdown();
+    }
+
+    @Test
+    void dropTheDeliveriesWaitingForTheCircuitAboveTheQueueSize() throws InterruptedException {
+        CircuitBreaker circuitBreaker = createCircuitBreaker(1);
+        RecipientDeliveryQueue queue = createQueue(1, 0, circuitBreaker);
+
+        queue.submit("card1", () -> {
+            throw new ResourceAccessException("Connection refused");
+        });
+        waitForDeliveries("failed", 1);
+
+        queue.submit("card2", () -> {
+        });
+        Thread.sleep(200);
+        queue.submit("card3", () -> {
+        });
+        waitForDeliveries("dropped", 1);
+
+        now.addAndGet(1000);
+        waitForDeliveries("delivered", 1);
+        queue.shutdown();
+    }
+
+    @Test
+    void dropTheDeliveriesWhenTheQueueIsFull() throws InterruptedException {
+        RecipientDeliveryQueue queue = createQueue(1, 0, createCircuitBreaker(10));
+        CountDownLatch deliveryStarted = new CountDownLatch(1);
+        CountDownLatch releaseDelivery = new CountDownLatch(1);
+
+        queue.submit("card1", () -> {
+            deliveryStarted.countDown();
+            try {
+                releaseDelivery.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(deliveryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        queue.submit("card2", () -> {
+        });
+        queue.submit("card3", () -> {
+        });
+
+        assertThat(deliveries("dropped")).isEqualTo(1);
+        releaseDelivery.countDown();
+        waitForDeliveries("delivered", 2);
+        queue.shutdown();
+    }
+}
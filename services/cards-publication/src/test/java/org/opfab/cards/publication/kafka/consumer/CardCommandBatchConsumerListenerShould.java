@@ -0,0 +1,66 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.kafka.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.opfab.avro.CardCommand;
+import org.opfab.avro.CommandType;
+import org.opfab.cards.publication.kafka.command.CommandHandler;
+import org.opfab.cards.publication.kafka.command.CreateCardCommandHandler;
+import org.opfab.cards.publication.kafka.command.DeleteCardCommandHandler;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardCommandBatchConsumerListenerShould {
+
+    private ConsumerRecord<String, CardCommand> createRecord(CommandType commandType) {
+        CardCommand cardCommand = new CardCommand();
+        cardCommand.setCommand(commandType);
+        return new ConsumerRecord<>("opfab", 0, 0, null, cardCommand);
+    }
+
+    @Test
+    void executeConsecutiveCommandsOfTheSameTypeTogether() {
+        CreateCardCommandHandler createMock = mock(CreateCardCommandHandler.class);
+        DeleteCardCommandHandler deleteMock = mock(DeleteCardCommandHandler.class);
+        when(createMock.getCommandType()).thenReturn(CommandType.CREATE_CARD);
+        when(deleteMock.getCommandType()).thenReturn(CommandType.DELETE_CARD);
+        List<CommandHandler> commandHandlerList = List.of(createMock, deleteMock);
+
+        ConsumerRecord<String, CardCommand> create1 = createRecord(CommandType.CREATE_CARD);
+        ConsumerRecord<String, CardCommand> create2 = createRecord(CommandType.CREATE_CARD);
+        ConsumerRecord<String, CardCommand> delete = createRecord(CommandType.DELETE_CARD);
+        ConsumerRecord<String, CardCommand> create3 = createRecord(CommandType.CREATE_CARD);
+
+        CardCommandBatchConsumerListener listener = new CardCommandBatchConsumerListener(commandHandlerList);
+        listener.receivedCommands(List.of(create1, create2, delete, create3));
+
+        InOrder inOrder = inOrder(createMock, deleteMock);
+        inOrder.verify(createMock).executeCommands(List.of(create1.value(), create2.value()));
+        inOrder.verify(deleteMock).executeCommands(List.of(delete.value()));
+        inOrder.verify(createMock).executeCommands(List.of(create3.value()));
+    }
+
+    @Test
+    void noHandler() {
+        CardCommandBatchConsumerListener listener = new CardCommandBatchConsumerListener(Collections.emptyList());
+        List<ConsumerRecord<String, CardCommand>> records = List.of(createRecord(CommandType.CREATE_CARD));
+        Assertions.assertThrows(IllegalStateException.class, () -> listener.receivedCommands(records));
+    }
+}
@@ -1,4 +1,4 @@
-/* Copyright (c) 2023-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -11,10 +11,14 @@ package org.opfab.cards.publication.mocks;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.opfab.cards.publication.model.ArchivedCard;
 import org.opfab.cards.publication.model.Card;
@@ -65,10 +69,22 @@ public class CardRepositoryMock implements CardRepository {
     }
 
     @Override
-    public void saveCardToArchive(ArchivedCard card) {
+    public void saveCardToArchive(ArchivedCard card, Instant previousVersionPublishDate) {
         archiveCardsByUid.put(card.id(), card);
     }
 
+    @Override
+    public List<Card> saveCards(List<Card> cards) {
+        cards.forEach(this::saveCard);
+        return List.of();
+    }
+
+    @Override
+    public void saveCardsToArchive(List<ArchivedCard> cards, Map<String, Instant> previousVersionPublishDates) {
+        cards.forEach(card -> saveCardToArchive(card,
+                previousVersionPublishDates.get(card.process() + "." + card.processInstanceId())));
+    }
+
     @Override
     public void deleteCard(Card cardToDelete) {
         cardsById.remove(cardToDelete.getId());
@@ -76,7 +92,8 @@ public class CardRepositoryMock implements CardRepository {
     }
 
     @Override
-    public void setArchivedCardAsDeleted(String process, String processInstanceId, Instant deletionDate) {
+    public void setArchivedCardAsDeleted(String process, String processInstanceId, Instant publishDate,
+                                         Instant deletionDate) {
         return;
     }
 
@@ -85,6 +102,19 @@ public class CardRepositoryMock implements CardRepository {
         return cardsById.get(id);
     }
 
+    @Override
+    public List<Card> findCardsByIds(Collection<String> ids, boolean dataFieldIncluded) {
+        return ids.stream().map(cardsById::get).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    public Set<String> findIdsOfCardsWithChildCards(Collection<String> ids) {
+        return cardsById.values().stream()
+                .map(Card::getParentCardId)
+                .filter(parentCardId -> parentCardId != null && ids.contains(parentCardId))
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public Optional<List<Card>> findChildCard(Card card) {
         List<Card> children = new ArrayList<Card>();
@@ -0,0 +1,106 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.mongo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.opfab.cards.publication.application.UnitTestApplication;
+import org.opfab.cards.publication.model.ArchivedCard;
+import org.opfab.cards.publication.model.Card;
+import org.opfab.cards.publication.model.PublisherTypeEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {UnitTestApplication.class})
+class ArchivedCardLatestVersionShould {
+
+    private static final Instant JANUARY = Instant.parse("2025-01-15T10:00:00Z");
+    private static final Instant FEBRUARY = Instant.parse("2025-02-15T10:00:00Z");
+    private static final Instant MARCH = Instant.parse("2025-03-15T10:00:00Z");
+
+    @Autowired
+    private MongoTemplate template;
+
+    @AfterEach
+    void clean() {
+        template.getCollectionNames().stream()
+                .filter(collection -> collection.startsWith("archivedCards"))
+                .forEach(template::dropCollection);
+    }
+
+    private CardRepositoryImpl repository(ArchivePartitionManager archivePartitionManager) {
+        return new CardRepositoryImpl(template, archivePartitionManager);
+    }
+
+    private static ArchivedCard version(String uid, Instant publishDate) {
+        return new ArchivedCard(Card.builder()
+                .uid(uid)
+                .publisher("PUBLISHER")
+                .publisherType(PublisherTypeEnum.EXTERNAL)
+                .processVersion("1")
+                .process("PROCESS")
+                .processInstanceId("INSTANCE")
+                .state("state1")
+                .publishDate(publishDate)
+                .build());
+    }
+
+    private List<String> latestVersions(String collection) {
+        return template.find(Query.query(Criteria.where("latestVersion").is(true)), ArchivedCard.class, collection)
+                .stream().map(ArchivedCard::id).toList();
+    }
+
+    @Test
+    void markOnlyTheLastArchivedVersionOfACard() {
+        CardRepositoryImpl repository = repository(new ArchivePartitionManager(template, false));
+
+        repository.saveCardToArchive(version("v1", JANUARY), null);
+        repository.saveCardToArchive(version("v2", FEBRUARY), JANUARY);
+        // The previous version is not known when the card is not in the feed (card stored only in archives)
+        repository.saveCardToArchive(version("v3", MARCH), null);
+
+        assertThat(latestVersions("archivedCards")).containsExactly("v3");
+    }
+
+    @Test
+    void markOnlyTheLastVersionOfCardsArchivedInBulk() {
+        CardRepositoryImpl repository = repository(new ArchivePartitionManager(template, false));
+        repository.saveCardToArchive(version("v1", JANUARY), null);
+
+        repository.saveCardsToArchive(List.of(version("v2", FEBRUARY)), Map.of("PROCESS.INSTANCE", JANUARY));
+
+        assertThat(latestVersions("archivedCards")).containsExactly("v2");
+    }
+
+    @Test
+    void takeTheMarkerOfAVersionArchivedConcurrently() {
+        ArchivePartitionManager archivePartitionManager = new ArchivePartitionManager(template, true);
+        CardRepositoryImpl repository = repository(archivePartitionManager);
+        repository.saveCardToArchive(version("v1", JANUARY), null);
+        // Another publication archived a version in the same partition after the previous latest version lost
+        // its marker
+        template.insert(version("concurrentVersion", FEBRUARY),
+                archivePartitionManager.collectionFor(FEBRUARY));
+
+        repository.saveCardToArchive(version("v2", FEBRUARY), JANUARY);
+
+        assertThat(latestVersions("archivedCards_202501")).isEmpty();
+        assertThat(latestVersions("archivedCards_202502")).containsExactly("v2");
+    }
+}
@@ -0,0 +1,60 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.mongo;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardIndexManagerShould {
+
+    @Test
+    void findIndexesUsedByAPlanWithSeveralInputStages() {
+        Document plan = new Document("stage", "FETCH").append("inputStage",
+                new Document("stage", "OR").append("inputStages", List.of(
+                        new Document("stage", "IXSCAN").append("indexName", "opfab_feed_range"),
+                        new Document("stage", "IXSCAN").append("indexName", "opfab_feed_publishDate"))));
+        List<String> stages = new ArrayList<>();
+        List<String> indexesUsed = new ArrayList<>();
+
+        CardIndexManager.collectStagesAndIndexes(plan, stages, indexesUsed);
+
+        assertThat(stages).containsExactly("FETCH", "OR", "IXSCAN", "IXSCAN");
+        assertThat(indexesUsed).containsExactly("opfab_feed_range", "opfab_feed_publishDate");
+    }
+
+    @Test
+    void findCollectionScanInAPlanOfTheSlotBasedEngine() {
+        Document plan = new Document("queryPlan",
+                new Document("stage", "SORT").append("inputStage", new Document("stage", "COLLSCAN")))
+                .append("slotBasedPlan", new Document("slots", "..."));
+        List<String> stages = new ArrayList<>();
+        List<String> indexesUsed = new ArrayList<>();
+
+        CardIndexManager.collectStagesAndIndexes(plan, stages, indexesUsed);
+
+        assertThat(stages).contains("COLLSCAN");
+        assertThat(indexesUsed).isEmpty();
+    }
+
+    @Test
+    void declareIndexesAndQueryShapesWithUniqueNames() {
+        Set<String> indexNames = new HashSet<>();
+        CardIndexPlan.INDEXES.forEach(index -> assertThat(indexNames.add(index.name())).isTrue());
+        Set<String> queryShapeNames = new HashSet<>();
+        CardIndexPlan.QUERY_SHAPES.forEach(queryShape -> assertThat(queryShapeNames.add(queryShape.name())).isTrue());
+    }
+}
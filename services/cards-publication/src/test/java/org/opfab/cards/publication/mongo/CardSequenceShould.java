@@ -0,0 +1,110 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.mongo;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opfab.cards.publication.application.UnitTestApplication;
+import org.opfab.cards.publication.model.Card;
+import org.opfab.cards.publication.model.CardTombstone;
+import org.opfab.cards.publication.model.PublisherTypeEnum;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * cards-consultation sends again the modifications dated up to a safety lag before the last sequence received by a
+ * UI: the date of a modification must be taken before its sequence is reserved, so that a modification committed
+ * after one with a greater sequence is dated before it
+ */
+@SpringBootTest(classes = {UnitTestApplication.class})
+class CardSequenceShould {
+
+    @Autowired
+    private MongoTemplate template;
+
+    private final List<Instant> reservationDates = new ArrayList<>();
+    private CardRepositoryImpl repository;
+
+    @BeforeEach
+    void init() {
+        MongoTemplate spiedTemplate = Mockito.spy(template);
+        Mockito.doAnswer(invocation -> {
+            reservationDates.add(Instant.now());
+            return invocation.callRealMethod();
+        }).when(spiedTemplate).findAndModify(any(Query.class), any(UpdateDefinition.class),
+                any(FindAndModifyOptions.class), eq(Document.class), eq(CardRepositoryImpl.SEQUENCES_COLLECTION));
+        repository = new CardRepositoryImpl(spiedTemplate, new ArchivePartitionManager(template, false));
+    }
+
+    @AfterEach
+    void clean() {
+        template.dropCollection(Card.class);
+        template.dropCollection(CardTombstone.class);
+    }
+
+    private static Card card(String processInstanceId) {
+        return Card.builder()
+                .id("PROCESS." + processInstanceId)
+                .uid(processInstanceId)
+                .publisher("PUBLISHER")
+                .publisherType(PublisherTypeEnum.EXTERNAL)
+                .processVersion("1")
+                .process("PROCESS")
+                .processInstanceId(processInstanceId)
+                .state("state1")
+                .publishDate(Instant.now())
+                .startDate(Instant.now())
+                .build();
+    }
+
+    @Test
+    void dateTheCardsBeforeReservingTheirSequence() {
+        Card card1 = card("PROCESS1");
+        repository.saveCard(card1);
+        Card card2 = card("PROCESS2");
+        Card card3 = card("PROCESS3");
+        repository.saveCards(List.of(card2, card3));
+
+        assertThat(reservationDates).hasSize(2);
+        assertThat(card1.getLastUpdate()).isBeforeOrEqualTo(reservationDates.get(0));
+        assertThat(card2.getLastUpdate()).isBeforeOrEqualTo(reservationDates.get(1));
+        assertThat(card3.getLastUpdate()).isEqualTo(card2.getLastUpdate());
+        assertThat(List.of(card1.getSequence(), card2.getSequence(), card3.getSequence())).isSorted()
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void dateTheDeletionsBeforeReservingTheirSequence() {
+        Card card1 = card("PROCESS1");
+        repository.saveCard(card1);
+
+        repository.deleteCard(card1);
+
+        CardTombstone tombstone = template.findById(card1.getId(), CardTombstone.class);
+        assertThat(tombstone).isNotNull();
+        assertThat(tombstone.getSequence()).isGreaterThan(card1.getSequence());
+        assertThat(tombstone.getDeletionDate()).isBeforeOrEqualTo(reservationDates.get(1));
+    }
+}
@@ -1,4 +1,4 @@
-/* Copyright (c) 2023, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -15,6 +15,12 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 class CardSendingLimiterShould {
 
@@ -76,4 +82,48 @@ class CardSendingLimiterShould {
         testClock.offset(Duration.ofSeconds(30));
         Assertions.assertTrue(limiter.isNewSendingAllowed("PUBLISHER2"));
     }
+
+    @Test
+    void allowExactlyTheLimitToConcurrentSendings() throws Exception {
+        int threads = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String login = i % 2 == 0 ? "publisher1" : "PUBLISHER1";
+                results.add(executor.submit(() -> {
+                    int allowed = 0;
+                    for (int j = 0; j < 100; j++)
+                        if (limiter.isNewSendingAllowed(login))
+                            allowed++;
+                    return allowed;
+                }));
+            }
+            int allowed = 0;
+            for (Future<Integer> result : results)
+                allowed += result.get(10, TimeUnit.SECONDS);
+            Assertions.assertEquals(limitCardCount, allowed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void evictIdlePublishers() {
+        limiter.isNewSendingAllowed("publisher1");
+        limiter.isNewSendingAllowed("Publisher1");
+        limiter.isNewSendingAllowed("publisher2");
+        Assertions.assertEquals(2, limiter.publisherCount());
+
+        testClock.offset(Duration.ofSeconds(45));
+        limiter.isNewSendingAllowed("publisher2");
+        testClock.offset(Duration.ofSeconds(30));
+        limiter.isNewSendingAllowed("publisher2");
+        Assertions.assertEquals(1, limiter.publisherCount());
+
+        for (int i=0; i<limitCardCount; i++) {
+            Assertions.assertTrue(limiter.isNewSendingAllowed("PUBLISHER1"));
+        }
+        Assertions.assertFalse(limiter.isNewSendingAllowed("publisher1"));
+    }
 }
@@ -0,0 +1,120 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.cards.publication.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BusinessConfigCacheShould {
+
+    private final AtomicInteger loadings = new AtomicInteger();
+
+    private final BusinessConfigCache.Loader<String> loader = (process, version) -> {
+        loadings.incrementAndGet();
+        return process + "." + version;
+    };
+
+    @Test
+    void loadOnceAVersionRequestedByConcurrentThreads() throws Exception {
+        BusinessConfigCache<String> cache = new BusinessConfigCache<>(10);
+        CountDownLatch loadingStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoading = new CountDownLatch(1);
+        BusinessConfigCache.Loader<String> slowLoader = (process, version) -> {
+            loadingStarted.countDown();
+            releaseLoading.await();
+            return loader.load(process, version);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cache.get("process1", "1", slowLoader)));
+            assertThat(loadingStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 7; i++)
+                results.add(executor.submit(() -> cache.get("process1", "1", slowLoader)));
+            releaseLoading.countDown();
+
+            for (Future<String> result : results)
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("process1.1");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(loadings).hasValue(1);
+    }
+
+    @Test
+    void notKeepAVersionNotFound() throws Exception {
+        BusinessConfigCache<String> cache = new BusinessConfigCache<>(10);
+        BusinessConfigCache.Loader<String> notFound = (process, version) -> {
+            loadings.incrementAndGet();
+            return null;
+        };
+
+        assertThat(cache.get("process1", "1", notFound)).isNull();
+        assertThat(cache.get("process1", "1", notFound)).isNull();
+
+        assertThat(loadings).hasValue(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void notKeepAFailedLoading() throws Exception {
+        BusinessConfigCache<String> cache = new BusinessConfigCache<>(10);
+
+        assertThatThrownBy(() -> cache.get("process1", "1", (process, version) -> {
+            throw new IOException("businessconfig unavailable");
+        })).isInstanceOf(IOException.class).hasMessage("businessconfig unavailable");
+
+        assertThat(cache.get("process1", "1", loader)).isEqualTo("process1.1");
+        assertThat(loadings).hasValue(1);
+    }
+
+    @Test
+    void invalidateOnlyTheVersionsOfTheChangedProcess() throws Exception {
+        BusinessConfigCache<String> cache = new BusinessConfigCache<>(10);
+        cache.get("process1", "1", loader);
+        cache.get("process1", "2", loader);
+        cache.get("process2", "1", loader);
+
+        cache.invalidate("process1");
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.get("process2", "1", loader);
+        assertThat(loadings).hasValue(3);
+        cache.get("process1", "1", loader);
+        assertThat(loadings).hasValue(4);
+    }
+
+    @Test
+    void evictTheOldestVersionsAboveTheMaximumNumberOfEntries() throws Exception {
+        BusinessConfigCache<String> cache = new BusinessConfigCache<>(2);
+        cache.get("process1", "1", loader);
+        cache.get("process2", "1", loader);
+        cache.get("process3", "1", loader);
+
+        assertThat(cache.size()).isEqualTo(2);
+        cache.get("process3", "1", loader);
+        assertThat(loadings).hasValue(3);
+        cache.get("process1", "1", loader);
+        assertThat(loadings).hasValue(4);
+    }
+}
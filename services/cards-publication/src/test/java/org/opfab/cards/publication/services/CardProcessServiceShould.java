@@ -20,6 +20,7 @@ import org.opfab.cards.publication.mocks.ProcessRepositoryMock;
 import org.opfab.cards.publication.model.ArchivedCard;
 import org.opfab.cards.publication.model.Card;
 import org.opfab.cards.publication.model.CardActionEnum;
+import org.opfab.cards.publication.model.CardCreationResult;
 import org.opfab.cards.publication.model.I18n;
 import org.opfab.cards.publication.model.PublisherTypeEnum;
 import org.opfab.cards.publication.model.SeverityEnum;
@@ -209,6 +210,49 @@ class CardProcessServiceShould {
                 Assertions.assertThat(eventBusSpy.getMessagesSent()).hasSize(5);
         }
 
+        @Test
+        void GIVEN_a_publisher_WHEN_sending_5_cards_in_bulk_THEN_cards_are_saved_and_5_cards_events_are_sent() {
+                List<CardCreationResult> results = cardProcessingService.processCards(TestHelpers.generateFiveCards(),
+                                Optional.empty(), Optional.empty());
+
+                assertThat(results).extracting(CardCreationResult::status).containsOnly(201);
+                assertThat(results).extracting(CardCreationResult::id).containsExactly("process1.PROCESS_1",
+                                "process2.PROCESS_1", "process3.PROCESS_2", "process4.PROCESS_2", "process5.PROCESS_1");
+                Assertions.assertThat(TestHelpers.checkCardCount(cardRepositoryMock, 5)).isTrue();
+                Assertions.assertThat(checkArchiveCount(5)).isTrue();
+                Assertions.assertThat(eventBusSpy.getMessagesSent()).hasSize(5);
+        }
+
+        @Test
+        void GIVEN_an_invalid_card_WHEN_sending_cards_in_bulk_THEN_only_the_invalid_card_is_rejected() {
+                List<Card> cards = TestHelpers.generateFiveCards();
+                cards.get(2).setEndDate(cards.get(2).getStartDate().minusSeconds(60));
+
+                List<CardCreationResult> results = cardProcessingService.processCards(cards, Optional.empty(),
+                                Optional.empty());
+
+                assertThat(results).extracting(CardCreationResult::status).containsExactly(201, 201, 400, 201, 201);
+                assertThat(results.get(2).message()).contains("endDate must be after startDate");
+                Assertions.assertThat(TestHelpers.checkCardCount(cardRepositoryMock, 4)).isTrue();
+                Assertions.assertThat(checkArchiveCount(4)).isTrue();
+        }
+
+        @Test
+        void GIVEN_an_existing_card_WHEN_sending_it_twice_in_bulk_THEN_card_events_UPDATE_are_sent_to_eventBus() {
+                cardProcessingService.processCard(TestHelpers.generateOneCard());
+                eventBusSpy.clearMessageSent();
+
+                List<CardCreationResult> results = cardProcessingService.processCards(
+                                List.of(TestHelpers.generateOneCard(), TestHelpers.generateOneCard()),
+                                Optional.empty(), Optional.empty());
+
+                assertThat(results).extracting(CardCreationResult::status).containsExactly(201, 201);
+                Assertions.assertThat(TestHelpers.checkCardCount(cardRepositoryMock, 1)).isTrue();
+                Assertions.assertThat(checkArchiveCount(3)).isTrue();
+                Assertions.assertThat(eventBusSpy.getMessagesSent()).hasSize(2)
+                                .allSatisfy(message -> assertThat(message[1]).contains("{\"type\":\"UPDATE\""));
+        }
+
         @Test
         void GIVEN_a_card_with_external_recipient_WHEN_sending_the_card_THEN_card_is_sent_to_external_recipient()
                         throws URISyntaxException {
@@ -858,6 +902,17 @@ class CardProcessServiceShould {
                 Assertions.assertThat(eventBusSpy.getMessagesSent().get(1)[1]).contains("{\"type\":\"UPDATE\"");
         }
 
+        @Test
+        void GIVEN_a_card_WHEN_user_reads_it_THEN_user_read_event_is_sent_to_eventBus() {
+                Card card = TestHelpers.generateOneCard();
+                cardProcessingService.processCard(card);
+                cardProcessingService.processUserRead(card.getUid(), "user2");
+                Assertions.assertThat(eventBusSpy.getMessagesSent().get(1)).containsExactly("userRead", "user2");
+
+                cardProcessingService.processUserRead("unknownUid", "user2");
+                Assertions.assertThat(eventBusSpy.getMessagesSent()).hasSize(2);
+        }
+
         @Test
         void GIVEN_an_existing_card_WHEN_update_card_CONTAINS_KEEP_EXISTING_ACKS_AND_READS_THEN_acks_and_reads_are_kept() {
                 Card card = TestHelpers.generateOneCard("entity2");
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.opfab.cards.publication.configuration.ExternalRecipients;
+import org.opfab.cards.publication.delivery.AsyncExternalDelivery;
 import org.opfab.cards.publication.kafka.producer.ResponseCardProducer;
 import org.opfab.cards.publication.model.Card;
 import org.opfab.cards.publication.model.I18n;
@@ -23,6 +24,7 @@ import org.opfab.cards.publication.model.TimeSpan;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
@@ -34,7 +36,10 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -51,6 +56,9 @@ class ExternalAppServiceShould {
     @Mock
     private ObjectMapper mapper;
 
+    @Mock
+    private AsyncExternalDelivery asyncExternalDelivery;
+
     @InjectMocks
     private ExternalAppService externalAppService;
 
@@ -91,6 +99,17 @@ class ExternalAppServiceShould {
         verify (restTemplate).postForObject(anyString(), any(), any());
     }
 
+    @Test
+    void sendCardToExternalApplicationHttpAsynchronously() {
+        Card card = createCardPublicationData(externalRecipientHttp);
+        ReflectionTestUtils.setField(externalAppService, "externalRecipients", externalRecipients);
+        when(asyncExternalDelivery.isEnabled()).thenReturn(true);
+        externalAppService.sendCardToExternalApplication(card, Optional.empty());
+        verify (asyncExternalDelivery).deliver(eq(externalRecipientHttp), eq("http://"), eq(HttpMethod.POST), any(),
+                anyString());
+        verify (restTemplate, never()).postForObject(anyString(), any(), any());
+    }
+
     private Card createCardPublicationData( String externalRecipients ) {
         return  Card.builder().publisher("PUBLISHER_1").processVersion("O")
                 .processInstanceId("PROCESS_1").severity(SeverityEnum.ALARM)
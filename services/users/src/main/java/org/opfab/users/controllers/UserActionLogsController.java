@@ -1,4 +1,4 @@
-/* Copyright (c) 2022-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2022-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -9,12 +9,17 @@
 
 package org.opfab.users.controllers;
 
+import org.opfab.springtools.configuration.mongo.ContinuationPage;
+import org.opfab.springtools.configuration.mongo.ContinuationToken;
 import org.opfab.springtools.configuration.mongo.PaginationUtils;
+import org.opfab.springtools.error.model.ApiError;
+import org.opfab.springtools.error.model.ApiErrorException;
 import org.opfab.useractiontracing.services.UserActionLogService;
 import org.opfab.useractiontracing.model.UserActionLog;
 import org.opfab.users.model.UserActionLogPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.util.MultiValueMapAdapter;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -50,7 +55,8 @@ public class UserActionLogsController {
             @Valid @RequestParam(value = "dateFrom", required = false) BigDecimal dateFrom,
             @Valid @RequestParam(value = "dateTo", required = false) BigDecimal dateTo,
             @Valid @RequestParam(value = "page", required = false) BigDecimal page,
-            @Valid @RequestParam(value = "size", required = false) BigDecimal size)  {
+            @Valid @RequestParam(value = "size", required = false) BigDecimal size,
+            @Valid @RequestParam(value = "continuationToken", required = false) String continuationToken)  {
         Pageable pageable = PaginationUtils.createPageable(page != null ? page.intValue() : null,
                 size != null ? size.intValue() : null);
         Map<String, List<String>> queryParams = new HashMap<>();
@@ -63,7 +69,8 @@ public class UserActionLogsController {
         if (dateTo != null)
             queryParams.put("dateTo", Arrays.asList(dateTo.toString()));
         Page<UserActionLog> actionsPage = actionService
-                .getUserActionLogsByParams(new MultiValueMapAdapter<>(queryParams), pageable);
+                .getUserActionLogsByParams(new MultiValueMapAdapter<>(queryParams), pageable,
+                        decodeContinuationToken(continuationToken));
 
 
         UserActionLogPage userActionLogPageData = new UserActionLogPage();
@@ -75,7 +82,23 @@ public class UserActionLogsController {
         userActionLogPageData.setNumberOfElements(BigDecimal.valueOf(actionsPage.getNumberOfElements()));
         userActionLogPageData.setFirst(actionsPage.isFirst());
         userActionLogPageData.setLast(actionsPage.isLast());
+        if (actionsPage instanceof ContinuationPage<UserActionLog> continuationPage)
+            userActionLogPageData.setNextPageToken(continuationPage.getNextPageToken());
                 
         return userActionLogPageData;
     }
+
+    private ContinuationToken decodeContinuationToken(String continuationToken) {
+        if (continuationToken == null)
+            return null;
+        try {
+            return ContinuationToken.decode(continuationToken);
+        } catch (IllegalArgumentException e) {
+            throw new ApiErrorException(
+                    ApiError.builder()
+                            .status(HttpStatus.BAD_REQUEST)
+                            .message(e.getMessage())
+                            .build());
+        }
+    }
 }
@@ -0,0 +1,55 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.users.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opfab.springtools.configuration.mongo.ContinuationToken;
+import org.opfab.springtools.error.model.ApiErrorException;
+import org.opfab.useractiontracing.services.UserActionLogService;
+import org.opfab.users.stubs.UserActionLogRepositoryStub;
+import org.springframework.http.HttpStatus;
+
+class UserActionLogsControllerShould {
+
+    private UserActionLogRepositoryStub userActionLogRepositoryStub;
+    private UserActionLogsController controller;
+
+    @BeforeEach
+    void init() {
+        userActionLogRepositoryStub = new UserActionLogRepositoryStub();
+        controller = new UserActionLogsController(new UserActionLogService(userActionLogRepositoryStub));
+    }
+
+    @Test
+    void answerBadRequestForAnInvalidContinuationToken() {
+        ApiErrorException exception = catchThrowableOfType(() -> controller.getUserActionLogs(null, null, null, null,
+                null, null, null, BigDecimal.valueOf(10), "invalid"), ApiErrorException.class);
+
+        assertThat(exception.getError().getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(exception.getError().getMessage()).contains("Invalid continuation token");
+    }
+
+    @Test
+    void readTheNextPageAfterThePositionOfTheContinuationToken() {
+        ContinuationToken token = new ContinuationToken(Instant.ofEpochMilli(1000), "id1");
+
+        controller.getUserActionLogs(null, null, null, null, null, null, null, BigDecimal.valueOf(10),
+                token.encode());
+
+        assertThat(userActionLogRepositoryStub.getLastContinuationToken()).isEqualTo(token);
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.users.stubs;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.opfab.springtools.configuration.mongo.ContinuationPage;
+import org.opfab.springtools.configuration.mongo.ContinuationToken;
+import org.opfab.useractiontracing.model.UserActionLog;
+import org.opfab.useractiontracing.repositories.UserActionLogRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.MultiValueMap;
+
+public class UserActionLogRepositoryStub implements UserActionLogRepository {
+
+    private final List<UserActionLog> userActionLogs = new ArrayList<>();
+    private ContinuationToken lastContinuationToken;
+
+    public ContinuationToken getLastContinuationToken() {
+        return lastContinuationToken;
+    }
+
+    @Override
+    public List<UserActionLog> findAll() {
+        return new ArrayList<>(userActionLogs);
+    }
+
+    @Override
+    public UserActionLog save(UserActionLog userActionLog) {
+        userActionLogs.add(userActionLog);
+        return userActionLog;
+    }
+
+    @Override
+    public Optional<UserActionLog> findById(String id) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Page<UserActionLog> findByParams(MultiValueMap<String, String> params, Pageable pageable) {
+        return findByParams(params, pageable, null);
+    }
+
+    @Override
+    public Page<UserActionLog> findByParams(MultiValueMap<String, String> params, Pageable pageable,
+            ContinuationToken after) {
+        lastContinuationToken = after;
+        return new ContinuationPage<>(findAll(), pageable, userActionLogs.size(), null);
+    }
+
+    @Override
+    public void deleteExpiredLogs(Instant expirationDate) {
+        userActionLogs.removeIf(userActionLog -> userActionLog.getDate().isBefore(expirationDate));
+    }
+
+    @Override
+    public void delete(UserActionLog entity) {
+        userActionLogs.remove(entity);
+    }
+
+    @Override
+    public void deleteAll() {
+        userActionLogs.clear();
+    }
+}
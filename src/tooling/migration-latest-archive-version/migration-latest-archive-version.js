@@ -0,0 +1,73 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+// Marks the latest version of each card in the archived cards ("latestVersion" field) archived before it was
+// maintained by cards-publication
+
+const mongoClient = require('mongodb').MongoClient;
+
+const login = process.argv[4];
+const pwd = process.argv[5];
+const url = 'mongodb://' + login + ':' + pwd + '@' + process.argv[2] + ':' + process.argv[3] + '/';
+
+const BATCH_SIZE = 1000;
+
+migrate().catch((error) => {
+    console.error(error);
+    process.exitCode = 1;
+});
+
+async function migrate() {
+    const client = await mongoClient.connect(url);
+    try {
+        const archivedCards = client.db('operator-fabric').collection('archivedCards');
+        console.log('Migration of collection archivedCards is starting');
+
+        const result = await archivedCards.updateMany(
+            {latestVersion: {$exists: false}},
+            {$set: {latestVersion: false}}
+        );
+        console.log(result.modifiedCount + ' archived cards updated');
+
+        // Cards archived again since the new version of cards-publication already have a marked latest version
+        const cursor = archivedCards.aggregate(
+            [
+                {$sort: {publishDate: -1}},
+                {
+                    $group: {
+                        _id: {process: '$process', processInstanceId: '$processInstanceId'},
+                        latestId: {$first: '$_id'},
+                        marked: {$max: '$latestVersion'}
+                    }
+                },
+                {$match: {marked: false}}
+            ],
+            {allowDiskUse: true}
+        );
+
+        let updates = [];
+        let count = 0;
+        for await (const card of cursor) {
+            updates.push({updateOne: {filter: {_id: card.latestId}, update: {$set: {latestVersion: true}}}});
+            if (updates.length === BATCH_SIZE) {
+                await archivedCards.bulkWrite(updates, {ordered: false});
+                count += updates.length;
+                updates = [];
+                console.log(count + ' latest versions marked');
+            }
+        }
+        if (updates.length > 0) {
+            await archivedCards.bulkWrite(updates, {ordered: false});
+            count += updates.length;
+        }
+        console.log('Migration of collection archivedCards is done, ' + count + ' latest versions marked');
+    } finally {
+        await client.close();
+    }
+}
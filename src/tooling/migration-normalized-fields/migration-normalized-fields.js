@@ -0,0 +1,64 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+// Writes the lower case copies of the filtered fields ("normalized" field) in the cards and archived cards
+// published before they were written by cards-publication
+
+const mongoClient = require('mongodb').MongoClient;
+
+const login = process.argv[4];
+const pwd = process.argv[5];
+const url = 'mongodb://' + login + ':' + pwd + '@' + process.argv[2] + ':' + process.argv[3] + '/';
+
+const NORMALIZED_FIELDS = ['titleTranslated', 'summaryTranslated', 'processInstanceId', 'publisher'];
+const BATCH_SIZE = 1000;
+
+migrate().catch((error) => {
+    console.error(error);
+    process.exitCode = 1;
+});
+
+async function migrate() {
+    const client = await mongoClient.connect(url);
+    try {
+        const db = client.db('operator-fabric');
+        await migrateCollection(db.collection('cards'));
+        await migrateCollection(db.collection('archivedCards'));
+    } finally {
+        await client.close();
+    }
+}
+
+async function migrateCollection(collection) {
+    console.log('Migration of collection ' + collection.collectionName + ' is starting');
+    const projection = {};
+    NORMALIZED_FIELDS.forEach((field) => (projection[field] = 1));
+    const cursor = collection.find({normalized: {$exists: false}}, {projection: projection});
+
+    let updates = [];
+    let count = 0;
+    for await (const card of cursor) {
+        const normalized = {};
+        NORMALIZED_FIELDS.forEach((field) => {
+            if (typeof card[field] === 'string') normalized[field] = card[field].toLowerCase();
+        });
+        updates.push({updateOne: {filter: {_id: card._id}, update: {$set: {normalized: normalized}}}});
+        if (updates.length === BATCH_SIZE) {
+            await collection.bulkWrite(updates, {ordered: false});
+            count += updates.length;
+            updates = [];
+            console.log(count + ' documents updated in ' + collection.collectionName);
+        }
+    }
+    if (updates.length > 0) {
+        await collection.bulkWrite(updates, {ordered: false});
+        count += updates.length;
+    }
+    console.log('Migration of collection ' + collection.collectionName + ' is done, ' + count + ' documents updated');
+}
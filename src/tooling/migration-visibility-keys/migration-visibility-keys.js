@@ -0,0 +1,90 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+// Writes the visibility keys ("visibilityKeys" field) of the cards, card tombstones and archived cards saved before
+// they were written by cards-publication. The keys are computed with the same rules as cards-publication
+// (see VisibilityKeys in spring-mongo-utilities).
+
+const mongoClient = require('mongodb').MongoClient;
+
+const login = process.argv[4];
+const pwd = process.argv[5];
+const url = 'mongodb://' + login + ':' + pwd + '@' + process.argv[2] + ':' + process.argv[3] + '/';
+
+const BATCH_SIZE = 1000;
+
+migrate().catch((error) => {
+    console.error(error);
+    process.exitCode = 1;
+});
+
+function visibilityKeys(card) {
+    const keys = new Set();
+    const userRecipients = card.userRecipients ?? [];
+    const groupRecipients = card.groupRecipients ?? [];
+    const entityRecipients = card.entityRecipients ?? [];
+
+    userRecipients.forEach((user) => keys.add('u:' + user));
+    if (groupRecipients.length > 0 && entityRecipients.length > 0)
+        groupRecipients.forEach((group) => entityRecipients.forEach((entity) => keys.add('g:' + group + '&e:' + entity)));
+    else if (groupRecipients.length > 0) groupRecipients.forEach((group) => keys.add('g:' + group));
+    else entityRecipients.forEach((entity) => keys.add('e:' + entity));
+
+    if (card.publisher && card.publisherType === 'USER') keys.add('u:' + card.publisher);
+    if (card.publisher && card.publisherType === 'ENTITY') keys.add('pe:' + card.publisher);
+    return [...keys];
+}
+
+async function migrateCollection(db, collectionName) {
+    const collection = db.collection(collectionName);
+    console.log('Migration of collection ' + collectionName + ' is starting');
+
+    const cursor = collection.find(
+        {visibilityKeys: {$exists: false}},
+        {
+            projection: {
+                userRecipients: 1,
+                groupRecipients: 1,
+                entityRecipients: 1,
+                publisher: 1,
+                publisherType: 1
+            }
+        }
+    );
+
+    let updates = [];
+    let count = 0;
+    for await (const card of cursor) {
+        updates.push({updateOne: {filter: {_id: card._id}, update: {$set: {visibilityKeys: visibilityKeys(card)}}}});
+        if (updates.length === BATCH_SIZE) {
+            await collection.bulkWrite(updates, {ordered: false});
+            count += updates.length;
+            updates = [];
+            console.log(count + ' documents of ' + collectionName + ' updated');
+        }
+    }
+    if (updates.length > 0) {
+        await collection.bulkWrite(updates, {ordered: false});
+        count += updates.length;
+    }
+    console.log('Migration of collection ' + collectionName + ' is done, ' + count + ' documents updated');
+}
+
+async function migrate() {
+    const client = await mongoClient.connect(url);
+    try {
+        const db = client.db('operator-fabric');
+        const collectionNames = (await db.listCollections({}, {nameOnly: true}).toArray())
+            .map((collection) => collection.name)
+            .filter((name) => ['cards', 'cardTombstones', 'archivedCards'].includes(name) || name.startsWith('archivedCards_'));
+        for (const collectionName of collectionNames) await migrateCollection(db, collectionName);
+    } finally {
+        await client.close();
+    }
+}
@@ -1,4 +1,4 @@
-/* Copyright (c) 2021-2022, RTE (http://www.rte-france.com)
+/* Copyright (c) 2021-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -10,22 +10,81 @@
 package org.opfab.utilities;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Template;
 import org.apache.commons.text.StringEscapeUtils;
 
-
+/**
+ * Translations of a process version. The i18n file is flattened at construction in a map of the dotted keys to their
+ * text, with the texts holding parameters compiled once, so an instance is meant to be kept and shared between threads
+ * as long as the i18n file does not change.
+ */
 public class I18nTranslation {
-    
-    private JsonNode i18n;
+
+    private static final Handlebars HANDLEBARS = new Handlebars();
+
+    /**
+     * @param template null for a text without parameters or a text that does not compile
+     */
+    private record Translation(JsonNode node, String text, String unescapedText, Template template) {
+    }
+
+    private final JsonNode i18n;
+    private final Map<String, Translation> translations;
 
     public I18nTranslation(JsonNode i18n) {
         this.i18n = i18n;
+        Map<String, Translation> flattenedTranslations = new HashMap<>();
+        if (i18n != null)
+            flatten("", i18n, flattenedTranslations);
+        this.translations = Collections.unmodifiableMap(flattenedTranslations);
+    }
+
+    private static void flatten(String prefix, JsonNode parent, Map<String, Translation> translations) {
+        Iterator<Map.Entry<String, JsonNode>> fields = parent.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            // A key with a dot can not be reached by a dotted path
+            if (field.getKey().contains("."))
+                continue;
+            String key = prefix + field.getKey();
+            JsonNode node = field.getValue();
+            translations.put(key, toTranslation(node));
+            if (node.isObject())
+                flatten(key + ".", node, translations);
+        }
+    }
+
+    private static Translation toTranslation(JsonNode node) {
+        String text = node.asText();
+        Template template = null;
+        if (text.contains("{{"))
+            try {
+                template = HANDLEBARS.compileInline(text);
+            } catch (IOException | RuntimeException e) {
+                // compiled again when translating to report the error
+            }
+        return new Translation(node, text, StringEscapeUtils.unescapeHtml4(text), template);
+    }
+
+    public JsonNode getI18n() {
+        return i18n;
     }
 
     public JsonNode findNode(String key) {
+        Translation translation = translations.get(key);
+        if (translation != null)
+            return translation.node();
+        return walk(key);
+    }
+
+    // Same lookup as the map for the usual keys, used for keys with empty parts like "process..title"
+    private JsonNode walk(String key) {
         String[] keyPath = key.split("\\.");
         JsonNode node = this.i18n;
         int i = 0;
@@ -37,27 +96,23 @@ public class I18nTranslation {
     }
 
     public String translate(String key, Map<String, String> parameters) throws IOException {
-        String[] keyPath = key.split("\\.");
-        JsonNode node = this.i18n;
-        int i = 0;
-        while (node != null && i < keyPath.length) {
-            node = node.get(keyPath[i]);
-            i++;
+        Translation translation = translations.get(key);
+        if (translation == null) {
+            JsonNode node = walk(key);
+            if (node == null)
+                return key;
+            translation = toTranslation(node);
         }
 
-        if (node == null) {
-            return key;
-        }
-        
-        String nodeText = node.asText();
-
         if (parameters == null || parameters.isEmpty()) {
-            return nodeText;
+            return translation.text();
+        }
+        if (!translation.text().contains("{{")) {
+            return translation.unescapedText();
         }
 
-        Handlebars handlebars = new Handlebars();
-        Template template = handlebars.compileInline(nodeText);
-    
+        Template template = translation.template() != null ? translation.template()
+                : HANDLEBARS.compileInline(translation.text());
         return StringEscapeUtils.unescapeHtml4(template.apply(parameters));
     }
 
@@ -1,5 +1,5 @@
 
-/* Copyright (c) 2023, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -9,7 +9,17 @@
  */
 package org.opfab.utilities.eventbus;
 
+import java.util.List;
+
 public interface EventBus {
     public void sendEvent(String eventKey,String eventMessage);
+
+    /**
+     * Sends several events with the same key, in order
+     */
+    public default void sendEvents(String eventKey, List<String> eventMessages) {
+        eventMessages.forEach(eventMessage -> sendEvent(eventKey, eventMessage));
+    }
+
     public void addListener(String eventKey,EventListener eventListener);
 }
@@ -0,0 +1,31 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+package org.opfab.utilities.eventbus;
+
+/**
+ * Keys of the events shared between services
+ */
+public final class EventKeys {
+
+    /**
+     * Sent by businessconfig when a process changes, with the id of the process as message or an empty message when
+     * all the processes have changed. cards-publication listens to it to invalidate its cache of the processes, so
+     * both services must be upgraded together.
+     */
+    public static final String PROCESS_CHANGE = "processChange";
+
+    /**
+     * Sent by cards-publication when a user reads or unreads a card, with the login of the user as message.
+     * cards-consultation listens to it to evict the snapshots of the cards of the user.
+     */
+    public static final String USER_READ = "userRead";
+
+    private EventKeys() {
+    }
+}
@@ -1,4 +1,4 @@
-/* Copyright (c) 2023-2024, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -13,6 +13,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
 import org.springframework.stereotype.Service;
 import org.opfab.utilities.eventbus.EventBus;
@@ -125,6 +126,30 @@ public class RabbitEventBus implements EventBus {
 
     }
 
+    /**
+     * Publishes all the events with a single channel borrowed from the pool
+     */
+    @Override
+    public void sendEvents(String eventKey, List<String> eventMessages) {
+        log.debug("Try to send {} messages with key {} ", eventMessages.size(), eventKey);
+        Channel channelFromPool = null;
+        try {
+            createExchange(eventKey);
+            channelFromPool = channelPool.borrowObject();
+            for (String eventMessage : eventMessages)
+                channelFromPool.basicPublish(eventKey, "", null, eventMessage.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception exc) {
+            log.error("Impossible to send messages to rabbitMQ", exc);
+        }
+
+        if (channelFromPool != null)
+            try {
+                channelPool.returnObject(channelFromPool);
+            } catch (Exception exc) {
+                log.error("Impossible to return channel to channel pool",exc);
+            }
+    }
+
     private void createExchange(String eventKey) {
 
         // event if rabbit does not create exchange if it already exists
@@ -1,4 +1,4 @@
-/* Copyright (c) 2018-2023, RTE (http://www.rte-france.com)
+/* Copyright (c) 2018-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -65,4 +65,33 @@ class I18nTranslationShould {
         String summaryTranslated = trans.translate("process.card.summary", null);
         assertThat(summaryTranslated).isEqualTo("process.card.summary");
     }
-}
\ No newline at end of file
+
+    @Test
+    void translateSeveralTimesWithDifferentParameters() throws Exception {
+        String json = "  {\"process\": {\"card\": {  \"summary\": \"{{contingenciesSize}} contingencies on {{country}} network\",\"title\": \"Card &amp; title\"}}}";
+
+        ObjectMapper mapper = new ObjectMapper();
+        I18nTranslation trans = new I18nTranslation(mapper.readTree(json));
+
+        assertThat(trans.translate("process.card.summary", Map.of("contingenciesSize", "12", "country", "France")))
+                .isEqualTo("12 contingencies on France network");
+        assertThat(trans.translate("process.card.summary", Map.of("contingenciesSize", "3", "country", "Spain")))
+                .isEqualTo("3 contingencies on Spain network");
+        // The text is unescaped as the result of a template only when parameters are given
+        assertThat(trans.translate("process.card.title", null)).isEqualTo("Card &amp; title");
+        assertThat(trans.translate("process.card.title", Map.of("param", "value"))).isEqualTo("Card & title");
+    }
+
+    @Test
+    void findNode() throws Exception {
+        String json = "  {\"process\": {\"card\": {  \"title\": \"Card title\"}, \"state.name\": \"State name\"}}";
+
+        ObjectMapper mapper = new ObjectMapper();
+        I18nTranslation trans = new I18nTranslation(mapper.readTree(json));
+
+        assertThat(trans.findNode("process.card.title").asText()).isEqualTo("Card title");
+        assertThat(trans.findNode("process.card").isObject()).isTrue();
+        assertThat(trans.findNode("process.card.summary")).isNull();
+        assertThat(trans.findNode("process.state.name")).isNull();
+    }
+}
@@ -0,0 +1,99 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.springtools.configuration.mongo;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * <p>Names of the collections storing the archived cards.</p>
+ * <p>By default, all the archived cards are stored in the archivedCards collection. When partitioning by month is
+ * activated (operatorfabric.archives.partitionByMonth), an archived card is stored in the collection of the month
+ * of its publish date (UTC), e.g. archivedCards_202501: searches only read the partitions of the requested publish
+ * date range and old archives are deleted by dropping whole partitions.</p>
+ * <p>The archivedCards collection, holding the archives written before partitioning was activated, is still read
+ * whatever the publish date range.</p>
+ */
+public class ArchivePartitions {
+
+    public static final String ARCHIVED_CARDS = "archivedCards";
+
+    private static final String PARTITION_PREFIX = ARCHIVED_CARDS + "_";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("uuuuMM");
+
+    private final boolean partitionByMonth;
+
+    public ArchivePartitions(boolean partitionByMonth) {
+        this.partitionByMonth = partitionByMonth;
+    }
+
+    public boolean isPartitionByMonth() {
+        return partitionByMonth;
+    }
+
+    /**
+     * Collection where an archived card published at the given date is written
+     */
+    public String collectionFor(Instant publishDate) {
+        if (!partitionByMonth)
+            return ARCHIVED_CARDS;
+        return PARTITION_PREFIX + YearMonth.from(publishDate.atOffset(ZoneOffset.UTC)).format(MONTH_FORMAT);
+    }
+
+    /**
+     * Existing collections which may hold archived cards published between the given dates (null for no limit),
+     * the most recent partitions first
+     */
+    public List<String> collectionsBetween(Collection<String> existingCollections, Instant from, Instant to) {
+        if (!partitionByMonth)
+            return List.of(ARCHIVED_CARDS);
+        YearMonth fromMonth = from != null ? YearMonth.from(from.atOffset(ZoneOffset.UTC)) : null;
+        YearMonth toMonth = to != null ? YearMonth.from(to.atOffset(ZoneOffset.UTC)) : null;
+        List<String> collections = new ArrayList<>(existingCollections.stream()
+                .filter(collection -> monthOf(collection)
+                        .filter(month -> (fromMonth == null || !month.isBefore(fromMonth))
+                                && (toMonth == null || !month.isAfter(toMonth)))
+                        .isPresent())
+                .sorted(Comparator.reverseOrder())
+                .toList());
+        if (existingCollections.contains(ARCHIVED_CARDS))
+            collections.add(ARCHIVED_CARDS);
+        return collections;
+    }
+
+    /**
+     * Existing partitions holding only archived cards published before the given date
+     */
+    public List<String> partitionsBefore(Collection<String> existingCollections, Instant date) {
+        YearMonth month = YearMonth.from(date.atOffset(ZoneOffset.UTC));
+        return existingCollections.stream()
+                .filter(collection -> monthOf(collection).filter(month::isAfter).isPresent())
+                .sorted()
+                .toList();
+    }
+
+    static Optional<YearMonth> monthOf(String collection) {
+        if (!collection.startsWith(PARTITION_PREFIX))
+            return Optional.empty();
+        try {
+            return Optional.of(YearMonth.parse(collection.substring(PARTITION_PREFIX.length()), MONTH_FORMAT));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
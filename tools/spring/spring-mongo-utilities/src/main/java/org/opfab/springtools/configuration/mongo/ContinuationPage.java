@@ -0,0 +1,32 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.springtools.configuration.mongo;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Page of results with the continuation token to read the next page, null if it is the last page
+ */
+public class ContinuationPage<T> extends PageImpl<T> {
+
+    private final String nextPageToken;
+
+    public ContinuationPage(List<T> content, Pageable pageable, long total, ContinuationToken next) {
+        super(content, pageable, total);
+        this.nextPageToken = next != null ? next.encode() : null;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+}
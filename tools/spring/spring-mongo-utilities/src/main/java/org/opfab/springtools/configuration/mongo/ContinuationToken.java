@@ -0,0 +1,73 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.springtools.configuration.mongo;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * <p>Position after the last document of a page sorted by date then _id, both descending.</p>
+ * <p>The next page is read by seeking directly to the documents after this position (keyset pagination) instead
+ * of skipping all the documents of the previous pages. The token sent to the clients is opaque: it is the
+ * position encoded in base64.</p>
+ */
+public record ContinuationToken(Instant date, Object id) {
+
+    private static final String OBJECT_ID = "o";
+    private static final String STRING_ID = "s";
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Position of a document, read from its date field and its _id
+     */
+    public static ContinuationToken of(Document document, String dateField) {
+        Object date = document.get(dateField);
+        Object id = document.get("_id");
+        if (date == null || id == null)
+            return null;
+        return new ContinuationToken(date instanceof Date d ? d.toInstant() : (Instant) date, id);
+    }
+
+    public static ContinuationToken decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 3);
+            Instant date = Instant.ofEpochMilli(Long.parseLong(parts[0]));
+            if (OBJECT_ID.equals(parts[1]))
+                return new ContinuationToken(date, new ObjectId(parts[2]));
+            if (STRING_ID.equals(parts[1]))
+                return new ContinuationToken(date, parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token " + token, e);
+        }
+        throw new IllegalArgumentException("Invalid continuation token " + token);
+    }
+
+    public String encode() {
+        String idType = id instanceof ObjectId ? OBJECT_ID : STRING_ID;
+        String position = date.toEpochMilli() + SEPARATOR + idType + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Documents after this position, in the order date descending then _id descending
+     */
+    public Criteria after(String dateField, String idField) {
+        return new Criteria().orOperator(
+                Criteria.where(dateField).lt(date),
+                new Criteria().andOperator(Criteria.where(dateField).is(date), Criteria.where(idField).lt(id)));
+    }
+}
@@ -0,0 +1,55 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.springtools.configuration.mongo;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * <p>Lower case copies of the card fields filtered by the archives and monitoring screens, written by
+ * cards-publication in the "normalized" field of the cards and archived cards.</p>
+ * <p>Filters "equals" and "starts with" on these fields are case insensitive: cards-consultation applies them to
+ * the lower case copies, which can use an index, instead of using a case insensitive regular expression.</p>
+ */
+public final class NormalizedFields {
+
+    public static final String FIELD = "normalized";
+
+    public static final String TITLE_TRANSLATED = "titleTranslated";
+    public static final String SUMMARY_TRANSLATED = "summaryTranslated";
+    public static final String PROCESS_INSTANCE_ID = "processInstanceId";
+    public static final String PUBLISHER = "publisher";
+    public static final List<String> FIELDS = List.of(TITLE_TRANSLATED, SUMMARY_TRANSLATED, PROCESS_INSTANCE_ID,
+            PUBLISHER);
+
+    private NormalizedFields() {
+    }
+
+    public static Map<String, String> ofCard(String titleTranslated, String summaryTranslated,
+                                             String processInstanceId, String publisher) {
+        Map<String, String> normalized = new LinkedHashMap<>();
+        put(normalized, TITLE_TRANSLATED, titleTranslated);
+        put(normalized, SUMMARY_TRANSLATED, summaryTranslated);
+        put(normalized, PROCESS_INSTANCE_ID, processInstanceId);
+        put(normalized, PUBLISHER, publisher);
+        return normalized;
+    }
+
+    public static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static void put(Map<String, String> normalized, String field, String value) {
+        if (value != null)
+            normalized.put(field, normalize(value));
+    }
+}
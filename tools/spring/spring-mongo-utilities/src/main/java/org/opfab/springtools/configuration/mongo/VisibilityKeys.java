@@ -0,0 +1,96 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.springtools.configuration.mongo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Keys written by cards-publication in the "visibilityKeys" field of the cards, card tombstones and archived
+ * cards: a user receives a card (process/state rights apart) if the card has one of the keys of the user.</p>
+ * <p>The keys of a card follow the rules of reception of the cards:</p>
+ * <ul>
+ *     <li>u:login for each user recipient and for the publisher of a card published by a user</li>
+ *     <li>g:group for each group recipient of a card without entity recipients</li>
+ *     <li>e:entity for each entity recipient of a card without group recipients</li>
+ *     <li>g:group&amp;e:entity for each group and entity recipients of a card with both</li>
+ *     <li>pe:entity for the publisher of a card published by an entity</li>
+ * </ul>
+ * <p>The keys of a user are the keys of the cards the user receives: u:login, g:group, e:entity and pe:entity for
+ * each of its groups and entities and g:group&amp;e:entity for each pair of them.</p>
+ */
+public final class VisibilityKeys {
+
+    public static final String FIELD = "visibilityKeys";
+
+    private static final String PUBLISHER_TYPE_USER = "USER";
+    private static final String PUBLISHER_TYPE_ENTITY = "ENTITY";
+
+    private VisibilityKeys() {
+    }
+
+    public static List<String> ofCard(List<String> userRecipients, List<String> groupRecipients,
+                                      List<String> entityRecipients, String publisherType, String publisher) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (userRecipients != null)
+            userRecipients.forEach(login -> keys.add(user(login)));
+        boolean hasGroupRecipients = groupRecipients != null && !groupRecipients.isEmpty();
+        boolean hasEntityRecipients = entityRecipients != null && !entityRecipients.isEmpty();
+        if (hasGroupRecipients && hasEntityRecipients)
+            groupRecipients.forEach(group -> entityRecipients.forEach(entity -> keys.add(groupAndEntity(group, entity))));
+        else if (hasGroupRecipients)
+            groupRecipients.forEach(group -> keys.add(group(group)));
+        else if (hasEntityRecipients)
+            entityRecipients.forEach(entity -> keys.add(entity(entity)));
+        if (publisher != null && PUBLISHER_TYPE_USER.equals(publisherType))
+            keys.add(user(publisher));
+        if (publisher != null && PUBLISHER_TYPE_ENTITY.equals(publisherType))
+            keys.add(publisherEntity(publisher));
+        return new ArrayList<>(keys);
+    }
+
+    /**
+     * Keys of a user apart from its login, the same for all the users with the same groups and entities
+     */
+    public static List<String> ofGroupsAndEntities(List<String> groups, List<String> entities) {
+        List<String> groupList = groups != null ? groups : List.of();
+        List<String> entityList = entities != null ? entities : List.of();
+        List<String> keys = new ArrayList<>(groupList.size() * (entityList.size() + 1) + 2 * entityList.size());
+        groupList.forEach(group -> keys.add(group(group)));
+        entityList.forEach(entity -> {
+            keys.add(entity(entity));
+            keys.add(publisherEntity(entity));
+        });
+        groupList.forEach(group -> entityList.forEach(entity -> keys.add(groupAndEntity(group, entity))));
+        return keys;
+    }
+
+    public static String user(String login) {
+        return "u:" + login;
+    }
+
+    static String group(String group) {
+        return "g:" + group;
+    }
+
+    static String entity(String entity) {
+        return "e:" + entity;
+    }
+
+    static String groupAndEntity(String group, String entity) {
+        return "g:" + group + "&e:" + entity;
+    }
+
+    static String publisherEntity(String entity) {
+        return "pe:" + entity;
+    }
+}
@@ -0,0 +1,42 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.springtools.configuration.mongo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContinuationPageShould {
+
+    @Test
+    void holdTheEncodedTokenOfTheNextPage() {
+        ContinuationToken next = new ContinuationToken(Instant.parse("2025-03-01T10:15:30Z"), "PROCESS.PROCESS2");
+        ContinuationPage<String> page = new ContinuationPage<>(List.of("card1", "card2"), PageRequest.of(0, 2), 5,
+                next);
+
+        assertThat(page.getNextPageToken()).isEqualTo(next.encode());
+        assertThat(ContinuationToken.decode(page.getNextPageToken())).isEqualTo(next);
+        assertThat(page.getContent()).containsExactly("card1", "card2");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void haveNoTokenOnTheLastPage() {
+        ContinuationPage<String> page = new ContinuationPage<>(List.of("card5"), PageRequest.of(2, 2), 5, null);
+
+        assertThat(page.getNextPageToken()).isNull();
+        assertThat(page.hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,104 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.springtools.configuration.mongo;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContinuationTokenShould {
+
+    private static final Instant DATE = Instant.parse("2025-03-01T10:15:30.123Z");
+
+    private static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decodeTheTokenOfAnObjectId() {
+        ObjectId id = new ObjectId();
+        ContinuationToken decoded = ContinuationToken.decode(new ContinuationToken(DATE, id).encode());
+
+        assertThat(decoded.date()).isEqualTo(DATE);
+        assertThat(decoded.id()).isInstanceOf(ObjectId.class).isEqualTo(id);
+    }
+
+    @Test
+    void decodeTheTokenOfAStringId() {
+        // A string id may look like an ObjectId or contain the separator of the token
+        for (String id : List.of("PROCESS.PROCESS1", new ObjectId().toHexString(), "id:with:separators", "\u00e9")) {
+            ContinuationToken decoded = ContinuationToken.decode(new ContinuationToken(DATE, id).encode());
+
+            assertThat(decoded.date()).isEqualTo(DATE);
+            assertThat(decoded.id()).isInstanceOf(String.class).isEqualTo(id);
+        }
+    }
+
+    @Test
+    void readThePositionOfADocument() {
+        ObjectId id = new ObjectId();
+        ContinuationToken token = ContinuationToken.of(new Document("_id", id)
+                .append("publishDate", Date.from(DATE)), "publishDate");
+
+        assertThat(token).isEqualTo(new ContinuationToken(DATE, id));
+        assertThat(ContinuationToken.of(new Document("_id", id), "publishDate")).isNull();
+        assertThat(ContinuationToken.of(new Document("publishDate", DATE), "publishDate")).isNull();
+    }
+
+    @Test
+    void rejectMalformedTokens() {
+        for (String token : List.of("", "not base64 !", encode("1740824130123"), encode("1740824130123:o"),
+                encode("notADate:s:id"), encode("1740824130123:x:id"), encode("1740824130123:o:notAnObjectId"))) {
+            assertThatThrownBy(() -> ContinuationToken.decode(token))
+                    .as(token)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Invalid continuation token");
+        }
+    }
+
+    @Test
+    void decodeATamperedTokenAsItsOwnPosition() {
+        // The token is not signed: a modified token is a valid position which only moves the page
+        String tampered = encode("0:s:PROCESS.PROCESS1");
+
+        assertThat(ContinuationToken.decode(tampered)).isEqualTo(new ContinuationToken(Instant.EPOCH,
+                "PROCESS.PROCESS1"));
+    }
+
+    @Test
+    void selectTheDocumentsWithAnEarlierDateOrTheSameDateAndALowerId() {
+        ObjectId id = new ObjectId();
+        Document criteria = new ContinuationToken(DATE, id).after("publishDate", "_id").getCriteriaObject();
+
+        assertThat(criteria.getList("$or", Document.class)).containsExactly(
+                new Document("publishDate", new Document("$lt", DATE)),
+                new Document("$and", List.of(new Document("publishDate", DATE),
+                        new Document("_id", new Document("$lt", id)))));
+    }
+
+    @Test
+    void compareTheIdsWithTheirOwnTypeForEqualDates() {
+        Document criteria = new ContinuationToken(DATE, "PROCESS.PROCESS2").after("publishDate", "_id")
+                .getCriteriaObject();
+
+        Document sameDate = criteria.getList("$or", Document.class).get(1);
+        assertThat(sameDate.getList("$and", Document.class).get(1))
+                .isEqualTo(new Document("_id", new Document("$lt", "PROCESS.PROCESS2")));
+    }
+}
@@ -1,4 +1,4 @@
-/* Copyright (c) 2023, RTE (http://www.rte-france.com)
+/* Copyright (c) 2023-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -10,6 +10,10 @@
 package org.opfab.useractiontracing.mongo;
 
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.opfab.springtools.configuration.mongo.ContinuationPage;
+import org.opfab.springtools.configuration.mongo.ContinuationToken;
+import org.opfab.springtools.configuration.mongo.PaginationUtils;
 import org.opfab.useractiontracing.model.UserActionLog;
 import org.opfab.useractiontracing.repositories.UserActionLogRepository;
 import org.springframework.data.domain.*;
@@ -37,6 +41,8 @@ public class UserActionLogRepositoryImpl implements UserActionLogRepository {
     private final MongoTemplate template;
     private final MongoUserActionLogRepository repository;
     private static final String COLLECTION_NAME = "userActionLogs";
+    private static final String DATE_FIELD = "date";
+    private static final String ID_FIELD = "_id";
 
     public UserActionLogRepositoryImpl(MongoTemplate template, MongoUserActionLogRepository repository) {
         this.template = template;
@@ -45,13 +51,43 @@ public class UserActionLogRepositoryImpl implements UserActionLogRepository {
 
     @Override
     public Page<UserActionLog> findByParams(MultiValueMap<String, String> params, Pageable pageable) {
-        Aggregation agg = newAggregation(this.getOperations(params, pageable));
+        return findByParams(params, pageable, null);
+    }
+
+    @Override
+    public Page<UserActionLog> findByParams(MultiValueMap<String, String> params, Pageable pageable,
+            ContinuationToken after) {
+        if (after != null) {
+            // Seek directly after the last log of the previous page and read one more log to know if there is a
+            // next page, logs are not counted
+            Pageable firstPage = PageRequest.of(0,
+                    pageable.isPaged() ? pageable.getPageSize() : PaginationUtils.DEFAULT_PAGE_SIZE);
+            List<Document> documents = template.aggregate(newAggregation(this.getOperations(params, firstPage, after)),
+                    COLLECTION_NAME, Document.class).getMappedResults();
+            boolean hasNextPage = documents.size() > firstPage.getPageSize();
+            List<Document> pageDocuments = hasNextPage ? documents.subList(0, firstPage.getPageSize()) : documents;
+            return new ContinuationPage<>(toUserActionLogs(pageDocuments), firstPage,
+                    pageDocuments.size() + (hasNextPage ? 1L : 0L), hasNextPage ? lastPosition(pageDocuments) : null);
+        }
+
+        Aggregation agg = newAggregation(this.getOperations(params, pageable, null));
         Aggregation countAgg = newAggregation(this.getOperationsForCount(params));
-        List<UserActionLog> results = template.aggregate(agg, COLLECTION_NAME, UserActionLog.class).getMappedResults();
+        List<Document> results = template.aggregate(agg, COLLECTION_NAME, Document.class).getMappedResults();
         String count = template.aggregate(countAgg, COLLECTION_NAME, String.class).getUniqueMappedResult();
 
         long totalSize = count != null ? getCountFromJson(count) : 0;
-        return new PageImpl<>(results, pageable, totalSize);
+        boolean hasNextPage = pageable.isPaged() && pageable.getOffset() + results.size() < totalSize;
+        return new ContinuationPage<>(toUserActionLogs(results), pageable, totalSize,
+                hasNextPage ? lastPosition(results) : null);
+    }
+
+    private List<UserActionLog> toUserActionLogs(List<Document> documents) {
+        return documents.stream().map(document -> template.getConverter().read(UserActionLog.class, document))
+                .toList();
+    }
+
+    private ContinuationToken lastPosition(List<Document> documents) {
+        return ContinuationToken.of(documents.get(documents.size() - 1), DATE_FIELD);
     }
 
     private long getCountFromJson(String json) {
@@ -66,20 +102,22 @@ public class UserActionLogRepositoryImpl implements UserActionLogRepository {
     }
 
     private List<AggregationOperation> getOperations(MultiValueMap<String, String> queryParams,
-            Pageable pageableRequest) {
+            Pageable pageableRequest, ContinuationToken after) {
 
         List<Criteria> criteria = getCriteria(queryParams);
+        if (after != null)
+            criteria.add(after.after(DATE_FIELD, ID_FIELD));
 
         List<AggregationOperation> operations = new ArrayList<>();
 
         if (!criteria.isEmpty())
             operations.add(match(new Criteria().andOperator(criteria.toArray(new Criteria[criteria.size()]))));
 
-        operations.add(sort(Sort.by(Sort.Order.desc("date"))));
+        operations.add(sort(Sort.by(Sort.Order.desc(DATE_FIELD), Sort.Order.desc(ID_FIELD))));
 
         if ((pageableRequest != null) && (pageableRequest.isPaged())) {
             operations.add(skip(((long) pageableRequest.getPageNumber()) * pageableRequest.getPageSize()));
-            operations.add(limit(pageableRequest.getPageSize()));
+            operations.add(limit(after != null ? pageableRequest.getPageSize() + 1L : pageableRequest.getPageSize()));
         }
         return operations;
     }
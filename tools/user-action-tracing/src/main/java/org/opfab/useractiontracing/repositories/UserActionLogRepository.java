@@ -1,4 +1,4 @@
-/* Copyright (c) 2022-2023, RTE (http://www.rte-france.com)
+/* Copyright (c) 2022-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -13,6 +13,7 @@ import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
+import org.opfab.springtools.configuration.mongo.ContinuationToken;
 import org.opfab.useractiontracing.model.UserActionLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -28,6 +29,9 @@ public interface UserActionLogRepository {
 
     public Page<UserActionLog> findByParams(MultiValueMap<String, String> params, Pageable pageable);
 
+    public Page<UserActionLog> findByParams(MultiValueMap<String, String> params, Pageable pageable,
+            ContinuationToken after);
+
     public void deleteExpiredLogs (Instant expirationDate);
 
     public void delete(UserActionLog entity);
@@ -1,4 +1,4 @@
-/* Copyright (c) 2022-2023, RTE (http://www.rte-france.com)
+/* Copyright (c) 2022-2025, RTE (http://www.rte-france.com)
  * See AUTHORS.txt
  * This Source Code Form is subject to the terms of the Mozilla Public
  * License, v. 2.0. If a copy of the MPL was not distributed with this
@@ -9,6 +9,7 @@
 
 package org.opfab.useractiontracing.services;
 
+import org.opfab.springtools.configuration.mongo.ContinuationToken;
 import org.opfab.useractiontracing.model.UserActionLog;
 import org.opfab.useractiontracing.repositories.UserActionLogRepository;
 import org.opfab.useractiontracing.model.UserActionEnum;
@@ -57,6 +58,11 @@ public class UserActionLogService {
         return this.userActionLogRepository.findByParams(params, pageable);
     }
 
+    public Page<UserActionLog> getUserActionLogsByParams(MultiValueMap<String, String> params, Pageable pageable,
+            ContinuationToken after) {
+        return this.userActionLogRepository.findByParams(params, pageable, after);
+    }
+
     public void deleteLogsByExpirationDate(Integer daysStored) {     
         Instant expirationDate = Instant.now().minus(daysStored, ChronoUnit.DAYS);
         this.userActionLogRepository.deleteExpiredLogs(expirationDate);
@@ -0,0 +1,99 @@
+/* Copyright (c) 2025, RTE (http://www.rte-france.com)
+ * See AUTHORS.txt
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ * SPDX-License-Identifier: MPL-2.0
+ * This file is part of the OperatorFabric project.
+ */
+
+package org.opfab.useractiontracing.mongo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.opfab.springtools.configuration.mongo.ContinuationPage;
+import org.opfab.springtools.configuration.mongo.ContinuationToken;
+import org.opfab.useractiontracing.TestApplication;
+import org.opfab.useractiontracing.model.UserActionEnum;
+import org.opfab.useractiontracing.model.UserActionLog;
+import org.opfab.useractiontracing.repositories.UserActionLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = TestApplication.class)
+class UserActionLogRepositoryShould {
+
+    @Autowired
+    private UserActionLogRepository repository;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void init() {
+        repository.deleteAll();
+        // Logs with the same date must neither be read twice nor skipped from one page to the next
+        for (int i = 0; i < 3; i++)
+            repository.save(userActionLog("login1", now, "same date " + i));
+        repository.save(userActionLog("login1", now.minusSeconds(1), "one second before"));
+        repository.save(userActionLog("login2", now.minusSeconds(2), "two seconds before"));
+        repository.save(userActionLog("login1", now.minusSeconds(3), "three seconds before"));
+    }
+
+    @AfterEach
+    void clean() {
+        repository.deleteAll();
+    }
+
+    private UserActionLog userActionLog(String login, Instant date, String comment) {
+        return UserActionLog.builder().login(login).action(UserActionEnum.ACK_CARD).date(date).comment(comment)
+                .build();
+    }
+
+    @Test
+    void readAllLogsOncePagingWithContinuationTokens() {
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("login", "login1");
+
+        List<String> allComments = repository.findByParams(params, Pageable.unpaged()).getContent().stream()
+                .map(UserActionLog::getComment).toList();
+        assertThat(allComments).hasSize(5);
+
+        // First page with its number, next pages with the token of the previous page
+        List<String> commentsReadByPage = new ArrayList<>();
+        Page<UserActionLog> page = repository.findByParams(params, PageRequest.of(0, 2), null);
+        int nbOfPages = 1;
+        page.getContent().forEach(log -> commentsReadByPage.add(log.getComment()));
+        String nextPageToken = ((ContinuationPage<UserActionLog>) page).getNextPageToken();
+        while (nextPageToken != null) {
+            page = repository.findByParams(params, PageRequest.of(0, 2), ContinuationToken.decode(nextPageToken));
+            page.getContent().forEach(log -> commentsReadByPage.add(log.getComment()));
+            nbOfPages++;
+            nextPageToken = ((ContinuationPage<UserActionLog>) page).getNextPageToken();
+        }
+
+        assertThat(nbOfPages).isEqualTo(3);
+        assertThat(commentsReadByPage).containsExactlyElementsOf(allComments);
+        assertThat(commentsReadByPage.subList(3, 5)).containsExactly("one second before", "three seconds before");
+    }
+
+    @Test
+    void returnNoContinuationTokenForTheLastPage() {
+        Page<UserActionLog> page = repository.findByParams(new LinkedMultiValueMap<>(), PageRequest.of(0, 6), null);
+
+        assertThat(page.getContent()).hasSize(6);
+        assertThat(((ContinuationPage<UserActionLog>) page).getNextPageToken()).isNull();
+    }
+}
@@ -17,6 +17,8 @@ export class CardsFilter {
         readonly includeChildCards: boolean,
         readonly latestUpdateOnly: boolean,
         readonly filters: Filter[],
-        readonly selectedFields?: string[]
+        readonly selectedFields?: string[],
+        readonly countMode?: string,
+        readonly continuationToken?: string
     ) {}
 }
@@ -9,7 +9,7 @@
 
 import {CardOperation} from '@ofServices/events/model/CardOperation';
 import {LogOption, LoggerService as logger} from 'app/services/logs/LoggerService';
-import {filter, map, Observable, ReplaySubject, Subject} from 'rxjs';
+import {mergeMap, Observable, ReplaySubject, Subject} from 'rxjs';
 import {OpfabEventStreamServer} from './server/OpfabEventStreamServer';
 import {ServerResponse, ServerResponseStatus} from 'app/server/ServerResponse';
 
@@ -52,7 +52,7 @@ export class OpfabEventStreamService {
 
     public static getCardOperationStream(): Observable<CardOperation> {
         return OpfabEventStreamService.opfabEventStreamServer.getEvents().pipe(
-            map((event) => {
+            mergeMap((event): CardOperation[] => {
                 switch (event.data) {
                     case 'RELOAD':
                         logger.info(`EventStreamService - RELOAD received`, LogOption.LOCAL_AND_REMOTE);
@@ -85,17 +85,19 @@ export class OpfabEventStreamService {
                         OpfabEventStreamService.businessDataChange.next();
                         break;
                     default:
-                        let cardOperation;
+                        let cardOperations;
                         try {
-                            cardOperation = JSON.parse(event.data, CardOperation.convertTypeIntoEnum);
+                            cardOperations = JSON.parse(event.data, CardOperation.convertTypeIntoEnum);
                         } catch (error) {
                             logger.warn('EventStreamService - Impossible to parse server message ' + error);
+                            return [];
                         }
-                        return cardOperation;
+                        // Cards already published may be sent by batches in a single message
+                        if (Array.isArray(cardOperations)) return cardOperations.filter((cardOperation) => cardOperation);
+                        return cardOperations ? [cardOperations] : [];
                 }
-                return null;
-            }),
-            filter((cardOperation) => cardOperation)
+                return [];
+            })
         );
     }
 